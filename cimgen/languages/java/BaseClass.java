@@ -1,10 +1,14 @@
 package cim4j;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.function.BiConsumer;
-import java.util.function.Function;
 
 /**
  * Base class of the CIM type hierarchy - all not primitive CIM classes inherit
@@ -28,6 +32,7 @@ public abstract class BaseClass {
     protected BaseClass(final String cimType, final String rdfid) {
         this.cimType = cimType;
         this.rdfid = rdfid;
+        this.hash = 31 + (rdfid == null ? 0 : rdfid.hashCode());
     }
 
     /**
@@ -48,6 +53,58 @@ public abstract class BaseClass {
         return rdfid;
     }
 
+    /**
+     * The hash code of the object (computed once from the final rdfid).
+     */
+    private final int hash;
+
+    /**
+     * Is the object frozen, i.e. immutable (see freeze)?
+     */
+    private boolean frozen;
+
+    public final boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Freeze the object: it becomes immutable and read-optimized.
+     *
+     * The sets of the list attributes are replaced by compact array-backed
+     * unmodifiable sets with cached hash codes and the rdfids kept for resolved
+     * links are dropped. The hash code of each object is computed once when it
+     * is created, so it needs not to be cached by freeze.
+     * Afterwards all setters throw an UnsupportedOperationException, and
+     * getAttribute returns the unmodifiable sets directly.
+     *
+     * The object can be read by any number of threads without locks if it is
+     * published safely after freezing, e.g. by a FrozenModel.
+     */
+    public final void freeze() {
+        if (!frozen) {
+            freezeAttributes();
+            frozen = true;
+        }
+    }
+
+    /**
+     * Freeze the attributes of the class - overridden by each generated class
+     * which freezes its own attributes after the attributes of the superclass.
+     */
+    protected void freezeAttributes() {
+    }
+
+    /**
+     * Check that the object is not frozen before modifying an attribute.
+     *
+     * @throws UnsupportedOperationException if the object is frozen
+     */
+    protected final void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Object is frozen: " + this);
+        }
+    }
+
     /**
      * Indicates whether some other object is "equal to" this one.
      *
@@ -76,10 +133,7 @@ public abstract class BaseClass {
      */
     @Override
     public final int hashCode() {
-        final int PRIME = 31;
-        int result = 1;
-        result = (result * PRIME) + (rdfid == null ? 0 : rdfid.hashCode());
-        return result;
+        return hash;
     }
 
     /**
@@ -102,10 +156,6 @@ public abstract class BaseClass {
      */
     public abstract List<String> getAttributeNames();
 
-    protected Map<String, AttrDetails> allAttrDetailsMap() {
-        return Map.of();
-    }
-
     /**
      * Get the full name of an attribute.
      *
@@ -132,6 +182,60 @@ public abstract class BaseClass {
      */
     public abstract void setAttribute(String attrName, Object value);
 
+    /**
+     * Set a class or list attribute to a link to an object without setting the
+     * inverse attribute of the linked object.
+     *
+     * The linked object is not modified, e.g. if it belongs to a shared model
+     * which must not be changed (see OverlayModel). The link is only visible
+     * from this object.
+     *
+     * @param attrName The attribute name
+     * @param object   The linked object
+     * @return         Could the attribute be set (false for attributes which are
+     *                 no class or list attributes)?
+     * @throws IllegalArgumentException if the object has the wrong type
+     */
+    public abstract boolean setAttributeWithoutInverse(String attrName, BaseClass object);
+
+    /**
+     * Remove a link to an object from a class or list attribute without changing
+     * the inverse attribute of the linked object, e.g. to remove the stale inverse
+     * link of a replaced link.
+     *
+     * @param attrName The attribute name
+     * @param object   The linked object
+     * @return         Was the link removed (false if the attribute does not link
+     *                 the object or is no class or list attribute)?
+     */
+    public abstract boolean removeAttributeLinkWithoutInverse(String attrName, BaseClass object);
+
+    /**
+     * Get the name of the inverse attribute of a class or list attribute, i.e.
+     * the attribute of the linked objects which is set when a link is set.
+     *
+     * @param attrName The attribute name
+     * @return         The inverse attribute name or null if the attribute has no
+     *                 inverse attribute
+     */
+    public abstract String getInverseAttributeName(String attrName);
+
+    /**
+     * Set a Double, Integer, Boolean or enum attribute value from the current
+     * value of a decoder.
+     *
+     * The value is decoded directly to the primitive type of the attribute without
+     * creating a string. Enum values (resources) are resolved to the enum
+     * constant. If the value is malformed the attribute is not changed, the caller
+     * can check this with decoder.isValid().
+     *
+     * @param attrName The attribute name
+     * @param decoder  The decoder containing the value
+     * @return         Could the attribute be set by the decoder (false for
+     *                 attributes of other types, e.g. String)?
+     */
+    public abstract boolean decodeAttribute(String attrName, ValueDecoder decoder);
+
     /**
      * Check if the attribute is a primitive attribute.
      *
@@ -150,6 +254,36 @@ public abstract class BaseClass {
      */
     public abstract boolean isEnumAttribute(String attrName);
 
+    /**
+     * Check if the attribute is a list attribute, i.e. a set of links to other
+     * CIM objects.
+     *
+     * @param attrName The attribute name
+     * @return         Is it a list attribute?
+     */
+    public abstract boolean isListAttribute(String attrName);
+
+    /**
+     * Get the Java type of the attribute values: String, Double, Integer, Boolean,
+     * the enum class or (for class and list attributes) the CIM class of the linked
+     * objects.
+     *
+     * @param attrName The attribute name
+     * @return         The type of the values
+     */
+    public abstract Class<?> getAttributeType(String attrName);
+
+    /**
+     * Get the getter of an attribute which reads the value like getAttribute, but
+     * without looking up the attribute name on each call.
+     *
+     * The getter can be used for all objects of this class and its subclasses.
+     *
+     * @param attrName The attribute name
+     * @return         The getter or null if the attribute is not known
+     */
+    public abstract AttributeGetter getAttributeGetter(String attrName);
+
     /**
      * Check if the attribute is used.
      *
@@ -220,47 +354,245 @@ public abstract class BaseClass {
     }
 
     protected static Double getDoubleFromString(String stringValue) {
-        try {
-            return Double.valueOf(stringValue);
-        } catch (NumberFormatException ex) {
-            LOG.error("Error getting Double from String", ex);
+        var decoder = new ValueDecoder();
+        decoder.setValue(stringValue);
+        double value = decoder.decodeDouble();
+        if (!decoder.isValid()) {
+            LOG.error("Error getting Double from String: %s", stringValue);
             return null;
         }
+        return value;
     }
 
     protected static Integer getIntegerFromString(String stringValue) {
-        try {
-            return Integer.parseInt(stringValue.trim());
-        } catch (NumberFormatException ex) {
-            LOG.error("Error getting Integer from String", ex);
+        var decoder = new ValueDecoder();
+        decoder.setValue(stringValue);
+        int value = decoder.decodeInteger();
+        if (!decoder.isValid()) {
+            LOG.error("Error getting Integer from String: %s", stringValue);
             return null;
         }
+        return value;
+    }
+
+    /**
+     * Create an unmodifiable set of profiles (e.g. for the metadata of attributes).
+     *
+     * @param profiles The profiles
+     * @return         Unmodifiable set of the profiles
+     */
+    protected static Set<CGMESProfile> profileSet(CGMESProfile... profiles) {
+        if (profiles.length == 0) {
+            return Collections.emptySet();
+        }
+        var set = EnumSet.noneOf(CGMESProfile.class);
+        Collections.addAll(set, profiles);
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Create an unmodifiable array-backed copy of the set of a list attribute
+     * (e.g. for freezing an object).
+     *
+     * @param set The set
+     * @return    Unmodifiable set with the same elements in the same order
+     */
+    protected static <T> Set<T> freezeSet(Set<T> set) {
+        return set.isEmpty() ? Collections.emptySet() : new ArraySet<>(set);
     }
 
     /**
      * Nested helper classes.
      */
 
-    protected static class AttrDetails {
+    /**
+     * Metadata of the base class: no attributes.
+     *
+     * Each generated class has its own nested Metadata class which contains the
+     * flattened attribute details of the class and all superclasses. The nested
+     * class is initialized on first use of the metadata, not when the CIM class is
+     * loaded or the first object is created.
+     */
+    static final class Metadata {
+        static final Map<String, AttrDetails> ATTR_DETAILS_MAP = Map.of();
+    }
+
+    /**
+     * Getter of an attribute value (see getAttributeGetter).
+     */
+    public interface AttributeGetter {
+        /**
+         * Get the attribute value of an object.
+         *
+         * @param obj The object (of the class of the getter or a subclass)
+         * @return    The attribute value like getAttribute
+         */
+        Object get(BaseClass obj);
+    }
+
+    /**
+     * Access to the attribute values of a CIM class by attribute index.
+     *
+     * Each generated class implements this interface once (instead of one getter
+     * and setter lambda per attribute), the attribute index is stored in the
+     * attribute details.
+     */
+    protected interface AttrAccessor {
+        Object get(BaseClass obj, int index);
+
+        void set(BaseClass obj, int index, Object value);
+
+        boolean decode(BaseClass obj, int index, ValueDecoder decoder);
+
+        boolean setWithoutInverse(BaseClass obj, int index, BaseClass object);
+
+        boolean removeWithoutInverse(BaseClass obj, int index, BaseClass object);
+    }
+
+    protected static final class AttrDetails implements AttributeGetter {
         public AttrDetails(String f, boolean u, String n, Set<CGMESProfile> c, boolean p, boolean e,
-                Function<BaseClass, Object> g, BiConsumer<BaseClass, Object> s) {
+                boolean l, Class<?> t, String v, AttrAccessor a, int i) {
             fullName = f;
             isUsed = u;
             nameSpace = n;
             profiles = c;
             isPrimitive = p;
             isEnum = e;
-            getter = g;
-            setter = s;
+            isList = l;
+            valueType = t;
+            inverseName = v;
+            accessor = a;
+            index = i;
+        }
+
+        public final String fullName;
+        public final boolean isUsed;
+        public final String nameSpace;
+        public final Set<CGMESProfile> profiles;
+        public final boolean isPrimitive;
+        public final boolean isEnum;
+        public final boolean isList;
+        public final Class<?> valueType;
+        public final String inverseName;
+        public final AttrAccessor accessor;
+        public final int index;
+
+        @Override
+        public Object get(BaseClass obj) {
+            return accessor.get(obj, index);
+        }
+
+        public void set(BaseClass obj, Object value) {
+            accessor.set(obj, index, value);
+        }
+
+        public boolean decode(BaseClass obj, ValueDecoder decoder) {
+            return accessor.decode(obj, index, decoder);
+        }
+
+        public boolean setWithoutInverse(BaseClass obj, BaseClass object) {
+            return accessor.setWithoutInverse(obj, index, object);
         }
 
-        public String fullName;
-        public boolean isUsed;
-        public String nameSpace;
-        public Set<CGMESProfile> profiles;
-        public Boolean isPrimitive;
-        public Boolean isEnum;
-        public Function<BaseClass, Object> getter;
-        public BiConsumer<BaseClass, Object> setter;
+        public boolean removeWithoutInverse(BaseClass obj, BaseClass object) {
+            return accessor.removeWithoutInverse(obj, index, object);
+        }
+    }
+
+    /**
+     * Unmodifiable set backed by an array of the elements (in the order of the
+     * copied set).
+     *
+     * Small sets are searched linearly. Larger sets have additional arrays of
+     * the element indexes sorted by hash code and of the sorted hash codes for a
+     * binary search without calling hashCode of the elements. This needs much
+     * less memory than a HashSet with its table and one node per element.
+     */
+    private static final class ArraySet<T> extends AbstractSet<T> {
+        private static final int LINEAR_SEARCH_LIMIT = 8;
+
+        private final Object[] elements;
+        private final int[] hashOrder;
+        private final int[] hashes;
+
+        ArraySet(Set<T> set) {
+            elements = set.toArray();
+            if (elements.length > LINEAR_SEARCH_LIMIT) {
+                // Sort hash code and index of each element together
+                long[] keys = new long[elements.length];
+                for (int idx = 0; idx < elements.length; ++idx) {
+                    keys[idx] = ((long) elements[idx].hashCode() << 32) | idx;
+                }
+                Arrays.sort(keys);
+                hashOrder = new int[elements.length];
+                hashes = new int[elements.length];
+                for (int idx = 0; idx < keys.length; ++idx) {
+                    hashOrder[idx] = (int) keys[idx];
+                    hashes[idx] = (int) (keys[idx] >> 32);
+                }
+            } else {
+                hashOrder = null;
+                hashes = null;
+            }
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            if (obj == null) {
+                return false;
+            }
+            if (hashOrder == null) {
+                for (Object element : elements) {
+                    if (element.equals(obj)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            int hash = obj.hashCode();
+            int low = 0;
+            int high = hashes.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (hashes[mid] < hash) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            // low is the first position with an equal or greater hash code
+            for (int pos = low; pos < hashes.length && hashes[pos] == hash; ++pos) {
+                if (elements[hashOrder[pos]].equals(obj)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < elements.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (next >= elements.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return (T) elements[next++];
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,18 @@
+package cim4j;
+
+/**
+ * Common interface of the generated enums in cim4j.types.
+ *
+ * Enum attributes of CIM objects are stored as enum constants. The RDF resource
+ * of a constant is the namespace URL of the attribute followed by the resource
+ * name, e.g. "http://iec.ch/TC57/CIM100#" + "WindingConnection.Y".
+ */
+public interface CimEnum {
+
+    /**
+     * Get the resource name of the enum constant: "<enum_name>.<value>".
+     *
+     * @return The resource name without namespace, e.g. "WindingConnection.Y"
+     */
+    String getResourceName();
+}
@@ -1,6 +1,15 @@
 package cim4j;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 // import org.apache.logging.log4j.LogManager;
 // import org.apache.logging.log4j.Logger;
@@ -10,6 +19,12 @@ import java.time.LocalDateTime;
  *
  * To switch from System.out.println to real logger uncomment the commented
  * lines and set printlnEnabled = false.
+ *
+ * Messages of disabled levels should be logged with the supplier or format
+ * overloads (or guarded by isEnabled), then no message is built at all.
+ *
+ * With setAsyncEnabled(true) the messages are not printed by the calling
+ * thread but queued and printed in batches by a background thread.
  */
 public class Logging {
     public enum Level {
@@ -28,6 +43,7 @@ public class Logging {
     // private static boolean log4jEnabled = true;
     private static boolean log4jEnabled = false;
     private static boolean printlnEnabled = true;
+    private static volatile boolean asyncEnabled = false;
 
     private Logging(final Class<?> clazz, Level logLevel) {
         level = logLevel;
@@ -36,11 +52,48 @@ public class Logging {
     }
 
     private void log(Level logLevel, String message) {
-        if (printlnEnabled && logLevel.compareTo(level) <= 0) {
-            System.out.println(LocalDateTime.now() + " " + className + " " + logLevel + ": " + message);
+        if (printlnEnabled && isEnabled(logLevel)) {
+            if (asyncEnabled) {
+                AsyncSink.enqueue(new Record(System.currentTimeMillis(), className, logLevel, message));
+            } else {
+                System.out.println(LocalDateTime.now() + " " + className + " " + logLevel + ": " + message);
+            }
+        }
+    }
+
+    private void log(Level logLevel, Supplier<String> messageSupplier) {
+        if (isEnabled(logLevel)) {
+            String message = messageSupplier.get();
+            if (log4jEnabled) {
+                // log4jLogger.log(org.apache.logging.log4j.Level.valueOf(logLevel.name()), message);
+            }
+            log(logLevel, message);
+        }
+    }
+
+    private void log(Level logLevel, String format, Object[] args) {
+        if (isEnabled(logLevel)) {
+            String message = String.format(format, args);
+            if (log4jEnabled) {
+                // log4jLogger.log(org.apache.logging.log4j.Level.valueOf(logLevel.name()), message);
+            }
+            log(logLevel, message);
         }
     }
 
+    /**
+     * Is a log level enabled for this logger?
+     *
+     * This check is cheap. It should be used to avoid building expensive log
+     * messages which are not logged at all.
+     *
+     * @param logLevel Log level to check
+     * @return         Messages of this level are logged?
+     */
+    public boolean isEnabled(Level logLevel) {
+        return logLevel.ordinal() <= level.ordinal() && (printlnEnabled || log4jEnabled);
+    }
+
     /**
      * Returns a Logger using the fully qualified name of the Class as the Logger
      * name.
@@ -82,6 +135,46 @@ public class Logging {
         printlnEnabled = enabled;
     }
 
+    /**
+     * Is the asynchronous output enabled?
+     *
+     * @return asynchronous output enabled?
+     */
+    public static boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    /**
+     * Enable or disable the asynchronous output.
+     *
+     * If enabled, the messages are queued and printed in batches by a background
+     * thread, so that logging does not slow down the calling threads. If the
+     * queue is full the calling thread waits. All queued messages are printed
+     * when the asynchronous output is disabled, by flush() and at shutdown of the
+     * JVM.
+     *
+     * @param enabled asynchronous output enabled
+     */
+    public static synchronized void setAsyncEnabled(boolean enabled) {
+        if (enabled && !asyncEnabled) {
+            AsyncSink.start();
+        }
+        if (!enabled && asyncEnabled) {
+            asyncEnabled = false;
+            AsyncSink.flush();
+        }
+        asyncEnabled = enabled;
+    }
+
+    /**
+     * Wait until all queued messages of the asynchronous output are printed.
+     */
+    public static void flush() {
+        if (asyncEnabled) {
+            AsyncSink.flush();
+        }
+    }
+
     /**
      * Returns the default log level.
      *
@@ -172,6 +265,132 @@ public class Logging {
         log(Level.trace, message);
     }
 
+    /**
+     * Logs a message with the FATAL level which is only built if the level is
+     * enabled.
+     *
+     * @param messageSupplier the supplier of the message string to log.
+     */
+    public void fatal(Supplier<String> messageSupplier) {
+        log(Level.fatal, messageSupplier);
+    }
+
+    /**
+     * Logs a message with the FATAL level which is only formatted if the level
+     * is enabled.
+     *
+     * @param format the format string (see String.format) of the message to log.
+     * @param args   the arguments referenced by the format string.
+     */
+    public void fatal(String format, Object... args) {
+        log(Level.fatal, format, args);
+    }
+
+    /**
+     * Logs a message with the ERROR level which is only built if the level is
+     * enabled.
+     *
+     * @param messageSupplier the supplier of the message string to log.
+     */
+    public void error(Supplier<String> messageSupplier) {
+        log(Level.error, messageSupplier);
+    }
+
+    /**
+     * Logs a message with the ERROR level which is only formatted if the level
+     * is enabled.
+     *
+     * @param format the format string (see String.format) of the message to log.
+     * @param args   the arguments referenced by the format string.
+     */
+    public void error(String format, Object... args) {
+        log(Level.error, format, args);
+    }
+
+    /**
+     * Logs a message with the WARN level which is only built if the level is
+     * enabled.
+     *
+     * @param messageSupplier the supplier of the message string to log.
+     */
+    public void warn(Supplier<String> messageSupplier) {
+        log(Level.warn, messageSupplier);
+    }
+
+    /**
+     * Logs a message with the WARN level which is only formatted if the level
+     * is enabled.
+     *
+     * @param format the format string (see String.format) of the message to log.
+     * @param args   the arguments referenced by the format string.
+     */
+    public void warn(String format, Object... args) {
+        log(Level.warn, format, args);
+    }
+
+    /**
+     * Logs a message with the INFO level which is only built if the level is
+     * enabled.
+     *
+     * @param messageSupplier the supplier of the message string to log.
+     */
+    public void info(Supplier<String> messageSupplier) {
+        log(Level.info, messageSupplier);
+    }
+
+    /**
+     * Logs a message with the INFO level which is only formatted if the level
+     * is enabled.
+     *
+     * @param format the format string (see String.format) of the message to log.
+     * @param args   the arguments referenced by the format string.
+     */
+    public void info(String format, Object... args) {
+        log(Level.info, format, args);
+    }
+
+    /**
+     * Logs a message with the DEBUG level which is only built if the level is
+     * enabled.
+     *
+     * @param messageSupplier the supplier of the message string to log.
+     */
+    public void debug(Supplier<String> messageSupplier) {
+        log(Level.debug, messageSupplier);
+    }
+
+    /**
+     * Logs a message with the DEBUG level which is only formatted if the level
+     * is enabled.
+     *
+     * @param format the format string (see String.format) of the message to log.
+     * @param args   the arguments referenced by the format string.
+     */
+    public void debug(String format, Object... args) {
+        log(Level.debug, format, args);
+    }
+
+    /**
+     * Logs a message with the TRACE level which is only built if the level is
+     * enabled.
+     *
+     * @param messageSupplier the supplier of the message string to log.
+     */
+    public void trace(Supplier<String> messageSupplier) {
+        log(Level.trace, messageSupplier);
+    }
+
+    /**
+     * Logs a message with the TRACE level which is only formatted if the level
+     * is enabled.
+     *
+     * @param format the format string (see String.format) of the message to log.
+     * @param args   the arguments referenced by the format string.
+     */
+    public void trace(String format, Object... args) {
+        log(Level.trace, format, args);
+    }
+
     /**
      * Logs a message object with the FATAL level including the stack trace of the
      * {@link Throwable} <code>throwable</code> passed as parameter.
@@ -213,4 +432,106 @@ public class Logging {
         }
         log(Level.warn, message + " Exception:" + throwable.getMessage());
     }
+
+    /**
+     * Log message queued for the asynchronous output.
+     */
+    private static final class Record {
+        final long time;
+        final String className;
+        final Level level;
+        final String message;
+
+        Record(long time, String className, Level level, String message) {
+            this.time = time;
+            this.className = className;
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Asynchronous output: a daemon thread prints the queued messages in batches.
+     */
+    private static final class AsyncSink {
+        private static final int QUEUE_CAPACITY = 65536;
+        private static final int BATCH_SIZE = 1024;
+        private static final BlockingQueue<Record> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private static final Object LOCK = new Object();
+        private static Thread thread;
+        private static final AtomicLong ENQUEUED = new AtomicLong();
+        private static long printed = 0;
+
+        static synchronized void start() {
+            if (thread == null) {
+                thread = new Thread(AsyncSink::run, "cim4j-logging");
+                thread.setDaemon(true);
+                thread.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(AsyncSink::flush));
+            }
+        }
+
+        static void enqueue(Record logRecord) {
+            try {
+                ENQUEUED.incrementAndGet();
+                QUEUE.put(logRecord);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                print(List.of(logRecord));
+                printed(1);
+            }
+        }
+
+        static void flush() {
+            long target = ENQUEUED.get();
+            synchronized (LOCK) {
+                while (printed < target && thread != null && thread.isAlive()) {
+                    try {
+                        LOCK.wait(100);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private static void printed(int count) {
+            synchronized (LOCK) {
+                printed += count;
+                LOCK.notifyAll();
+            }
+        }
+
+        private static void run() {
+            var batch = new ArrayList<Record>(BATCH_SIZE);
+            while (true) {
+                try {
+                    var first = QUEUE.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    QUEUE.drainTo(batch, BATCH_SIZE - 1);
+                    print(batch);
+                    printed(batch.size());
+                    batch.clear();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+
+        private static void print(List<Record> batch) {
+            var zone = ZoneId.systemDefault();
+            var text = new StringBuilder(batch.size() * 100);
+            for (var logRecord : batch) {
+                text.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(logRecord.time), zone)).append(' ')
+                        .append(logRecord.className).append(' ').append(logRecord.level).append(": ")
+                        .append(logRecord.message).append(System.lineSeparator());
+            }
+            System.out.print(text);
+            System.out.flush();
+        }
+    }
 }
@@ -0,0 +1,344 @@
+package cim4j;
+
+/**
+ * Decoder of primitive attribute values (Double, Integer, Boolean) and enum
+ * resources.
+ *
+ * The values are decoded directly from a character buffer, e.g. the buffer of
+ * the RDF parser, without creating intermediate strings. Malformed values do
+ * not throw exceptions: after each decode call isValid() tells if the value
+ * could be decoded and the number of malformed values is counted, so that they
+ * can be reported in bulk.
+ *
+ * A decoder is not thread-safe, each thread should use its own decoder.
+ */
+public final class ValueDecoder {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Integers up to 2^53 are exactly representable as double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private char[] buffer = new char[0];
+    private char[] stringBuffer = new char[32];
+    private String stringValue = null;
+    private int start = 0;
+    private int end = 0;
+    private boolean valid = true;
+    private long malformedCount = 0;
+
+    /**
+     * Set the value to decode as part of a character buffer.
+     *
+     * The buffer is not copied, it must not be modified until the value is
+     * decoded.
+     *
+     * @param buffer Character buffer
+     * @param start  Start of the value in the buffer
+     * @param length Length of the value
+     */
+    public void setValue(char[] buffer, int start, int length) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = start + length;
+        this.stringValue = null;
+    }
+
+    /**
+     * Set the value to decode as string.
+     *
+     * The characters are copied to an internal buffer which is reused for the
+     * next values.
+     *
+     * @param value String value
+     */
+    public void setValue(String value) {
+        int length = value.length();
+        if (stringBuffer.length < length) {
+            stringBuffer = new char[length];
+        }
+        value.getChars(0, length, stringBuffer, 0);
+        buffer = stringBuffer;
+        start = 0;
+        end = length;
+        stringValue = value;
+    }
+
+    /**
+     * Was the last decoded value valid?
+     *
+     * @return Value valid?
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Get the number of malformed values since creation or the last reset.
+     *
+     * @return Number of malformed values
+     */
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    /**
+     * Reset the number of malformed values.
+     */
+    public void resetMalformedCount() {
+        malformedCount = 0;
+    }
+
+    /**
+     * Get the current value as string - e.g. for the error report of a malformed
+     * value.
+     *
+     * @return The current value
+     */
+    public String getValueAsString() {
+        if (stringValue == null) {
+            stringValue = new String(buffer, start, end - start);
+        }
+        return stringValue;
+    }
+
+    /**
+     * Set the result of a decode done outside of the decoder, e.g. the lookup of
+     * an enum constant for the current value: the value is valid if the decoded
+     * value is not null. Malformed values are counted like the values of the
+     * decode functions.
+     *
+     * @param decodedValue The decoded value (null if the value is malformed)
+     * @return             Is the value valid?
+     */
+    public boolean setDecoded(Object decodedValue) {
+        if (decodedValue == null) {
+            setMalformed();
+            return false;
+        }
+        valid = true;
+        return true;
+    }
+
+    /**
+     * Decode the current value as boolean like Boolean.parseBoolean: "true"
+     * (ignoring the case) is true, all other values are false.
+     *
+     * A boolean value is never malformed.
+     *
+     * @return The decoded value
+     */
+    public boolean decodeBoolean() {
+        return setValid(end - start == 4 && equalsIgnoreCase(start, "true"));
+    }
+
+    /**
+     * Decode the current value as integer.
+     *
+     * Leading or trailing whitespace is ignored.
+     *
+     * @return The decoded value, 0 if the value is malformed
+     */
+    public int decodeInteger() {
+        int pos = skipLeadingWhitespace();
+        int last = skipTrailingWhitespace(pos);
+        boolean negative = false;
+        if (pos < last && (buffer[pos] == '-' || buffer[pos] == '+')) {
+            negative = buffer[pos] == '-';
+            ++pos;
+        }
+        if (pos == last) {
+            setMalformed();
+            return 0;
+        }
+        long value = 0;
+        for (; pos < last; ++pos) {
+            char ch = buffer[pos];
+            if (ch < '0' || ch > '9') {
+                setMalformed();
+                return 0;
+            }
+            value = value * 10 + (ch - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                setMalformed();
+                return 0;
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            setMalformed();
+            return 0;
+        }
+        valid = true;
+        return (int) value;
+    }
+
+    /**
+     * Decode the current value as double.
+     *
+     * Accepts decimal numbers with optional sign, fraction and exponent as well as
+     * "NaN", "INF", "-INF", "Infinity" and "-Infinity". Leading or trailing
+     * whitespace is ignored.
+     *
+     * Numbers with a mantissa of at most 2^53 and a decimal exponent of at most 22
+     * are converted without rounding error by a fast path, all other numbers by
+     * Double.parseDouble.
+     *
+     * @return The decoded value, 0.0 if the value is malformed
+     */
+    public double decodeDouble() {
+        int pos = skipLeadingWhitespace();
+        int last = skipTrailingWhitespace(pos);
+        int first = pos;
+        boolean negative = false;
+        if (pos < last && (buffer[pos] == '-' || buffer[pos] == '+')) {
+            negative = buffer[pos] == '-';
+            ++pos;
+        }
+
+        // Special values
+        if (pos < last && (buffer[pos] == 'N' || buffer[pos] == 'I')) {
+            int length = last - pos;
+            if (length == 3 && first == pos && equalsIgnoreCase(pos, "NaN")) {
+                return setValid(Double.NaN);
+            }
+            if ((length == 3 && equalsIgnoreCase(pos, "INF")) || (length == 8 && equalsIgnoreCase(pos, "Infinity"))) {
+                return setValid(negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+            }
+            setMalformed();
+            return 0.0;
+        }
+
+        // Mantissa
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean dotFound = false;
+        for (; pos < last; ++pos) {
+            char ch = buffer[pos];
+            if (ch >= '0' && ch <= '9') {
+                ++digits;
+                if (mantissa == 0 && ch == '0') {
+                    // Leading zeros are not significant
+                    if (dotFound) {
+                        --exponent;
+                    }
+                } else if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    ++significantDigits;
+                    if (dotFound) {
+                        --exponent;
+                    }
+                } else {
+                    // Too many digits for the mantissa
+                    ++significantDigits;
+                    if (!dotFound) {
+                        ++exponent;
+                    }
+                }
+            } else if (ch == '.' && !dotFound) {
+                dotFound = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            setMalformed();
+            return 0.0;
+        }
+
+        // Exponent
+        if (pos < last && (buffer[pos] == 'e' || buffer[pos] == 'E')) {
+            ++pos;
+            boolean negativeExponent = false;
+            if (pos < last && (buffer[pos] == '-' || buffer[pos] == '+')) {
+                negativeExponent = buffer[pos] == '-';
+                ++pos;
+            }
+            if (pos == last) {
+                setMalformed();
+                return 0.0;
+            }
+            int explicitExponent = 0;
+            for (; pos < last; ++pos) {
+                char ch = buffer[pos];
+                if (ch < '0' || ch > '9') {
+                    break;
+                }
+                if (explicitExponent < 100000) {
+                    explicitExponent = explicitExponent * 10 + (ch - '0');
+                }
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (pos != last) {
+            setMalformed();
+            return 0.0;
+        }
+
+        // Fast path: exact mantissa and exact power of ten
+        if (significantDigits <= 18 && mantissa <= MAX_EXACT_MANTISSA) {
+            double value = mantissa;
+            if (mantissa == 0) {
+                return setValid(negative ? -0.0 : 0.0);
+            }
+            if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+                value *= POWERS_OF_TEN[exponent];
+                return setValid(negative ? -value : value);
+            }
+            if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+                value /= POWERS_OF_TEN[-exponent];
+                return setValid(negative ? -value : value);
+            }
+        }
+
+        // Slow path: the syntax is already checked, parseDouble will not fail
+        return setValid(Double.parseDouble(new String(buffer, first, last - first)));
+    }
+
+    private int skipLeadingWhitespace() {
+        int pos = start;
+        while (pos < end && buffer[pos] <= ' ') {
+            ++pos;
+        }
+        return pos;
+    }
+
+    private int skipTrailingWhitespace(int pos) {
+        int last = end;
+        while (last > pos && buffer[last - 1] <= ' ') {
+            --last;
+        }
+        return last;
+    }
+
+    private boolean equalsIgnoreCase(int pos, String text) {
+        for (int idx = 0; idx < text.length(); ++idx) {
+            if (Character.toLowerCase(buffer[pos + idx]) != Character.toLowerCase(text.charAt(idx))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean setValid(boolean value) {
+        valid = true;
+        return value;
+    }
+
+    private double setValid(double value) {
+        valid = true;
+        return value;
+    }
+
+    private void setMalformed() {
+        valid = false;
+        ++malformedCount;
+    }
+}
@@ -0,0 +1,57 @@
+package cim4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cim4j.BaseClass;
+import cim4j.CimClassMap;
+import cim4j.Logging;
+
+/**
+ * Dispatch of the string based getAttribute/setAttribute functions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AttributeBenchmark {
+
+    private BaseClass line;
+    private Double value = 0.5;
+
+    @Setup
+    public void setup() {
+        Logging.setEnabled(false);
+        line = CimClassMap.createCimObject("ACLineSegment", "_L");
+        line.setAttribute("r", 0.25);
+        line.setAttribute("name", "Line");
+    }
+
+    @Benchmark
+    public Object getOwnAttribute() {
+        return line.getAttribute("r");
+    }
+
+    @Benchmark
+    public Object getInheritedAttribute() {
+        return line.getAttribute("name");
+    }
+
+    @Benchmark
+    public BaseClass setDoubleAttribute() {
+        line.setAttribute("x", value);
+        return line;
+    }
+
+    @Benchmark
+    public BaseClass setDoubleAttributeFromString() {
+        line.setAttribute("x", "0.125");
+        return line;
+    }
+}
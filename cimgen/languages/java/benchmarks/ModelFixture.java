@@ -0,0 +1,132 @@
+package cim4j.benchmarks;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.CimClassMap;
+import cim4j.utils.RdfWriter;
+
+/**
+ * Fixed-size CIM model used as benchmark fixture.
+ *
+ * The model consists of one BaseVoltage and "units" of one ACLineSegment with
+ * two Terminals, each connected to its own ConnectivityNode, TopologicalNode and
+ * SvVoltage. A unit has 9 objects with attributes in the profiles EQ, SSH, TP
+ * and SV. The rdfids and values only depend on the number of units.
+ *
+ * Only attribute names are used which exist in all supported CGMES versions.
+ */
+public final class ModelFixture {
+
+    private final Map<String, BaseClass> model;
+    private final Map<String, CGMESProfile> classProfileMap;
+    private final byte[] rdf;
+
+    private ModelFixture(int units) {
+        model = createModel(units);
+        var writer = new RdfWriter();
+        writer.addCimData(model);
+        classProfileMap = writer.getClassProfileMap();
+        var stringWriter = new StringWriter();
+        writer.write(stringWriter);
+        rdf = stringWriter.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Create a fixture.
+     *
+     * @param units Number of units (9 objects each)
+     * @return      The fixture
+     */
+    public static ModelFixture create(int units) {
+        return new ModelFixture(units);
+    }
+
+    /**
+     * Get the linked model.
+     *
+     * @return CIM data as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> getModel() {
+        return model;
+    }
+
+    /**
+     * Get the class profile map of the model.
+     *
+     * @return Mapping of CIM type to profile
+     */
+    public Map<String, CGMESProfile> getClassProfileMap() {
+        return classProfileMap;
+    }
+
+    /**
+     * Get the model as RDF/XML (all profiles in one document).
+     *
+     * @return UTF-8 encoded RDF/XML
+     */
+    public byte[] getRdf() {
+        return rdf;
+    }
+
+    /**
+     * Get the model as RDF/XML string (all profiles in one document).
+     *
+     * @return RDF/XML
+     */
+    public String getRdfString() {
+        return new String(rdf, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, BaseClass> createModel(int units) {
+        Map<String, BaseClass> model = new LinkedHashMap<>();
+        var baseVoltage = create(model, "BaseVoltage", "_BV");
+        baseVoltage.setAttribute("name", "110 kV");
+        baseVoltage.setAttribute("nominalVoltage", 110.0);
+
+        for (int unit = 0; unit < units; ++unit) {
+            var line = create(model, "ACLineSegment", "_L" + unit);
+            line.setAttribute("name", "Line " + unit);
+            line.setAttribute("r", 0.01 * (unit % 100 + 1));
+            line.setAttribute("x", 0.1 * (unit % 100 + 1));
+            line.setAttribute("bch", 1e-6 * (unit % 10 + 1));
+            line.setAttribute("length", 1.0 + unit % 50);
+            line.setAttribute("BaseVoltage", baseVoltage);
+
+            for (int side = 1; side <= 2; ++side) {
+                String id = "_L" + unit + "_" + side;
+                var node = create(model, "ConnectivityNode", "_CN" + id);
+                node.setAttribute("name", "Node " + unit + "_" + side);
+
+                var topoNode = create(model, "TopologicalNode", "_TN" + id);
+                topoNode.setAttribute("name", "Bus " + unit + "_" + side);
+                topoNode.setAttribute("BaseVoltage", baseVoltage);
+                node.setAttribute("TopologicalNode", topoNode);
+
+                var terminal = create(model, "Terminal", "_T" + id);
+                terminal.setAttribute("name", "Terminal " + side);
+                terminal.setAttribute("sequenceNumber", side);
+                terminal.setAttribute("connected", true);
+                terminal.setAttribute("ConductingEquipment", line);
+                terminal.setAttribute("ConnectivityNode", node);
+                terminal.setAttribute("TopologicalNode", topoNode);
+
+                var voltage = create(model, "SvVoltage", "_SV" + id);
+                voltage.setAttribute("v", 110.0 + unit % 7);
+                voltage.setAttribute("angle", 0.1 * (unit % 30));
+                voltage.setAttribute("TopologicalNode", topoNode);
+            }
+        }
+        return model;
+    }
+
+    private static BaseClass create(Map<String, BaseClass> model, String className, String rdfid) {
+        var cimObj = CimClassMap.createCimObject(className, rdfid);
+        model.put(rdfid, cimObj);
+        return cimObj;
+    }
+}
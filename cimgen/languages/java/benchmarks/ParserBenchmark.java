@@ -0,0 +1,43 @@
+package cim4j.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import cim4j.Logging;
+import cim4j.utils.RdfParser;
+
+/**
+ * Raw parse throughput of RdfParser (XML tokenizing and element building, no
+ * CIM objects).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParserBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int units;
+
+    private byte[] rdf;
+
+    @Setup
+    public void setup() {
+        Logging.setEnabled(false);
+        rdf = ModelFixture.create(units).getRdf();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        RdfParser.parse(new ByteArrayInputStream(rdf), blackhole::consume);
+    }
+}
@@ -0,0 +1,84 @@
+package cim4j.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cim4j.BaseClass;
+import cim4j.Logging;
+import cim4j.utils.RdfReader;
+
+/**
+ * Object creation (parse and create CIM objects without linking) and linking
+ * (setAttributeLinks) of RdfReader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReaderBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int units;
+
+    private List<String> xml;
+
+    @Setup
+    public void setup() {
+        Logging.setEnabled(false);
+        xml = List.of(ModelFixture.create(units).getRdfString());
+    }
+
+    @Benchmark
+    public Map<String, BaseClass> createObjects() {
+        var reader = new RdfReader();
+        reader.setLinkingEnabled(false);
+        return reader.readFromStrings(xml);
+    }
+
+    @Benchmark
+    public Map<String, BaseClass> createObjectsDeferred() {
+        var reader = new RdfReader();
+        reader.setLinkingEnabled(false);
+        reader.setDeferredTypeResolution(true);
+        return reader.readFromStrings(xml);
+    }
+
+    @Benchmark
+    public Map<String, BaseClass> createObjectsPipelined() {
+        var reader = new RdfReader();
+        reader.setLinkingEnabled(false);
+        reader.setPipelined(true);
+        return reader.readFromStrings(xml);
+    }
+
+    /**
+     * Unlinked model, created again before each invocation of the link benchmark.
+     */
+    @State(Scope.Thread)
+    public static class UnlinkedModel {
+        public RdfReader reader;
+
+        @Setup(Level.Invocation)
+        public void setup(ReaderBenchmark benchmark) {
+            reader = new RdfReader();
+            reader.setLinkingEnabled(false);
+            reader.readFromStrings(benchmark.xml);
+        }
+    }
+
+    @Benchmark
+    public RdfReader setAttributeLinks(UnlinkedModel unlinked) {
+        unlinked.reader.setAttributeLinks();
+        return unlinked.reader;
+    }
+}
@@ -0,0 +1,49 @@
+package cim4j.benchmarks;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cim4j.CGMESProfile;
+import cim4j.Logging;
+import cim4j.utils.RdfWriter;
+
+/**
+ * Serialization of one profile by RdfWriter.write (without disk I/O).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WriterBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int units;
+
+    @Param({ "EQ", "SSH", "TP", "SV" })
+    public String profile;
+
+    private ModelFixture fixture;
+    private RdfWriter writer;
+
+    @Setup
+    public void setup() {
+        Logging.setEnabled(false);
+        fixture = ModelFixture.create(units);
+        writer = new RdfWriter();
+        writer.addCimData(fixture.getModel());
+    }
+
+    @Benchmark
+    public boolean writeProfile() {
+        return writer.write(Writer.nullWriter(), CGMESProfile.valueOf(profile), "benchmark",
+                fixture.getClassProfileMap());
+    }
+}
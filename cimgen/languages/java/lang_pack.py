@@ -1,11 +1,20 @@
 import chevron
 import logging
+import os
 import shutil
 from pathlib import Path
 from importlib.resources import files
 
 logger = logging.getLogger(__name__)
 
+# The JMH benchmarks (cim4j.benchmarks) need JMH to compile, so they are only
+# generated if this environment variable is set, e.g. CIMGEN_JAVA_BENCHMARKS=1.
+benchmarks_env_variable = "CIMGEN_JAVA_BENCHMARKS"
+
+# The JUnit tests (cim4j.tests) need JUnit to compile, so they are only
+# generated if this environment variable is set, e.g. CIMGEN_JAVA_TESTS=1.
+tests_env_variable = "CIMGEN_JAVA_TESTS"
+
 
 # Setup called only once: make output directory, create base class, create profile class, etc.
 # This just makes sure we have somewhere to write the classes.
@@ -14,15 +23,28 @@ logger = logging.getLogger(__name__)
 def setup(output_path: str, version: str, cgmes_profile_details: list[dict], namespaces: dict[str, str]) -> None:
     source_dir = Path(__file__).parent
     dest_dir = Path(output_path)
+    with_benchmarks = os.environ.get(benchmarks_env_variable, "") not in ("", "0")
+    with_tests = os.environ.get(tests_env_variable, "") not in ("", "0")
     for file in dest_dir.glob("**/*.java"):
         file.unlink()
+    (dest_dir / "benchmarks" / "pom.xml").unlink(missing_ok=True)
+    (dest_dir / "tests" / "pom.xml").unlink(missing_ok=True)
     # Add all hardcoded utils and create parent dir
     for file in source_dir.glob("**/*.java"):
-        dest_file = dest_dir / file.relative_to(source_dir)
+        relative_file = file.relative_to(source_dir)
+        if relative_file.parts[0] == "benchmarks" and not with_benchmarks:
+            continue
+        if relative_file.parts[0] == "tests" and not with_tests:
+            continue
+        dest_file = dest_dir / relative_file
         dest_file.parent.mkdir(parents=True, exist_ok=True)
         shutil.copy(file, dest_file)
     _create_constants(dest_dir, version, namespaces)
     _create_cgmes_profile(dest_dir, cgmes_profile_details)
+    if with_benchmarks:
+        _create_benchmarks_pom(dest_dir, version)
+    if with_tests:
+        _create_tests_pom(dest_dir, version)
 
 
 # These are the files that are used to generate the java files.
@@ -31,6 +53,8 @@ enum_template_file = {"filename": "java_enum.mustache", "ext": ".java"}
 constants_template_file = {"filename": "java_constants.mustache", "ext": ".java"}
 profile_template_file = {"filename": "java_profile.mustache", "ext": ".java"}
 classlist_template_file = {"filename": "java_classlist.mustache", "ext": ".java"}
+benchmarks_pom_template_file = {"filename": "java_benchmarks_pom.mustache", "ext": ".xml"}
+tests_pom_template_file = {"filename": "java_tests_pom.mustache", "ext": ".xml"}
 
 
 def get_base_class() -> str:
@@ -45,7 +69,24 @@ def get_class_location(class_name: str, class_map: dict, version: str) -> str:
 def run_template(output_path: str, class_details: dict) -> None:
 
     # Add some attribute infos
-    for attribute in class_details["attributes"]:
+    for index, attribute in enumerate(class_details["attributes"]):
+        attribute["index"] = index
+        attribute["is_decodable"] = (
+            attribute["is_datatype_attribute"]
+            or attribute["is_enum_attribute"]
+            or attribute["is_primitive_attribute"]
+            and not _attribute_is_primitive_string(attribute)
+        )
+        attribute["attr_profiles"] = _profile_list(attribute["attr_origin"])
+        is_value = (
+            attribute["is_primitive_attribute"] or attribute["is_datatype_attribute"] or attribute["is_enum_attribute"]
+        )
+        attribute["is_used_java"] = _java_bool(is_value or attribute["is_used"])
+        attribute["is_primitive_java"] = _java_bool(
+            attribute["is_primitive_attribute"] or attribute["is_datatype_attribute"]
+        )
+        attribute["is_enum_java"] = _java_bool(attribute["is_enum_attribute"])
+        attribute["is_list_java"] = _java_bool(attribute["is_list_attribute"])
         attribute["is_primitive_string"] = "true" if _attribute_is_primitive_string(attribute) else ""
         if attribute["is_primitive_attribute"]:
             if _attribute_is_primitive_string(attribute):
@@ -54,15 +95,31 @@ def run_template(output_path: str, class_details: dict) -> None:
                 attribute["primitive_java_type"] = "Double"
             else:
                 attribute["primitive_java_type"] = attribute["attribute_class"]
+        if attribute["is_primitive_attribute"]:
+            attribute["value_type_java"] = attribute["primitive_java_type"] + ".class"
+        elif attribute["is_datatype_attribute"]:
+            attribute["value_type_java"] = "Double.class"
+        elif attribute["is_enum_attribute"]:
+            attribute["value_type_java"] = "cim4j.types." + attribute["attribute_class"] + ".class"
+        else:
+            attribute["value_type_java"] = attribute["attribute_class"] + ".class"
         attribute["variable_name"] = _variable_name(attribute["label"], class_details["class_name"])
         attribute["getter_name"] = _getter_setter_name("get", attribute["label"])
         attribute["setter_name"] = _getter_setter_name("set", attribute["label"])
+        attribute["is_link_attribute"] = attribute["is_class_attribute"] or attribute["is_list_attribute"]
         if attribute["is_class_attribute"] or attribute["is_list_attribute"]:
             if "inverse_role" in attribute:
                 inverse_label = attribute["inverse_role"].split(".")[1]
                 attribute["inverse_setter"] = [_getter_setter_name("set", inverse_label)]
+                attribute["inverse_name_java"] = '"' + inverse_label + '"'
             else:
                 attribute["inverse_setter"] = []
+                attribute["inverse_name_java"] = "null"
+        else:
+            attribute["inverse_name_java"] = "null"
+
+    class_details["attribute_count"] = len(class_details["attributes"])
+    class_details["class_profiles"] = _profile_list(class_details["class_origin"])
 
     if class_details["is_a_primitive_class"] or class_details["is_a_datatype_class"]:
         return
@@ -102,6 +159,31 @@ def _create_cgmes_profile(output_path: Path, profile_details: list[dict]) -> Non
     _write_templated_file(class_file, class_details, profile_template_file["filename"])
 
 
+def _create_benchmarks_pom(output_path: Path, version: str) -> None:
+    class_file = output_path / "benchmarks" / ("pom" + benchmarks_pom_template_file["ext"])
+    class_details = {"version": version}
+    _write_templated_file(class_file, class_details, benchmarks_pom_template_file["filename"])
+
+
+def _create_tests_pom(output_path: Path, version: str) -> None:
+    class_file = output_path / "tests" / ("pom" + tests_pom_template_file["ext"])
+    class_details = {"version": version}
+    _write_templated_file(class_file, class_details, tests_pom_template_file["filename"])
+
+
+def _profile_list(profiles: list[str]) -> str:
+    """Get the profiles as comma separated list of Java enum constants.
+
+    :param profiles: Profile names, e.g. ["EQ", "SSH"]
+    :return:         Java expression list, e.g. "CGMESProfile.EQ, CGMESProfile.SSH"
+    """
+    return ", ".join("CGMESProfile." + profile for profile in profiles)
+
+
+def _java_bool(value: object) -> str:
+    return "true" if value else "false"
+
+
 def _variable_name(label: str, class_name: str) -> str:
     """Get the name of the label used as variable name.
 
@@ -152,7 +234,9 @@ class_blacklist = [
     "CGMESProfile",
     "CimClassMap",
     "CimConstants",
+    "CimEnum",
     "Logging",
+    "ValueDecoder",
 ]
 
 
@@ -163,5 +247,5 @@ def resolve_headers(path: str, version: str) -> None:  # NOSONAR
     for file in sorted(directory.glob("*.java"), key=lambda f: f.stem):
         class_name = file.stem
         if class_name not in class_blacklist:
-            classes.append(class_name)
+            classes.append({"name": class_name, "index": len(classes)})
     _write_templated_file(classlist_file, {"classes": classes}, classlist_template_file["filename"])
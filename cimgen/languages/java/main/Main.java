@@ -1,13 +1,20 @@
 package cim4j.main;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import cim4j.BaseClass;
 import cim4j.Logging;
+import cim4j.utils.FootprintAnalyzer;
+import cim4j.utils.FrozenModel;
 import cim4j.utils.RdfReader;
+import cim4j.utils.RdfStreamConverter;
 import cim4j.utils.RdfWriter;
+import cim4j.utils.StringPool;
+import cim4j.utils.SyntheticModelGenerator;
+import cim4j.utils.TableExporter;
 
 /**
  * Main class of the cim4j application.
@@ -16,6 +23,19 @@ public final class Main {
 
     private static Logging LOG = Logging.getLogger(Main.class);
 
+    private static boolean printDiagnostics = false;
+    private static boolean deduplicateStrings = false;
+    private static boolean pipelinedReading = false;
+    private static boolean freezeModel = false;
+    private static boolean printFootprint = false;
+    private static boolean streamingConversion = false;
+    private static RdfWriter.Compression outputCompression = RdfWriter.Compression.NONE;
+    private static boolean zipArchive = false;
+    private static boolean nioOutput = false;
+    private static TableExporter.Format tableFormat = null;
+    private static long generateObjectCount = 0;
+    private static long generateSeed = SyntheticModelGenerator.DEFAULT_SEED;
+
     // Private dummy constructor - prevent to instantiate the class at all
     private Main() {
     }
@@ -25,10 +45,37 @@ public final class Main {
             System.out.println("\nError: " + error);
         }
         System.out.println("\nRead RDF files and write the data to RDF files separated by profiles.\n");
-        System.out.println("Usage: java -jar cim4j.jar [--log-level <level>] <rdf_file> [<rdf_file> ...]" +
-                " <output_path_stem>");
+        System.out.println("Usage: java -jar cim4j.jar [--log-level <level>] [--log-async] [--diagnostics]" +
+                " [--dedup-strings] [--pipelined] [--freeze] [--footprint] [--streaming]" +
+                " [--compress <format>] [--nio-output] [--tables <format>]" +
+                " <rdf_file> [<rdf_file> ...] <output_path_stem>");
+        System.out.println("       java -jar cim4j.jar [--log-level <level>] [--log-async]" +
+                " --generate <object_count> [--seed <seed>] <output_path_stem>");
         System.out.println("       --log-level <level>  Log level (fatal, error, warn, info, debug, trace)");
         System.out.println("                            Default log level: error");
+        System.out.println("       --log-async          Print log messages asynchronously in a background thread");
+        System.out.println("       --diagnostics        Print a summary of the data quality issues found while" +
+                " reading");
+        System.out.println("       --dedup-strings      Deduplicate repeated string values while reading" +
+                " (less memory)");
+        System.out.println("       --pipelined          Parse the XML data in a separate thread while creating the" +
+                " CIM objects");
+        System.out.println("       --freeze             Freeze the model after reading (immutable read-optimized" +
+                " snapshot)");
+        System.out.println("       --footprint          Print the estimated heap memory per CIM type after" +
+                " reading (and freezing)");
+        System.out.println("       --streaming          Convert the data element by element with constant memory" +
+                " (objects are neither merged nor linked)");
+        System.out.println("       --compress <format>  Compress the output files (gzip: one .xml.gz file per" +
+                " profile, zip: one .zip file per profile, archive: one .zip file with all profiles)");
+        System.out.println("       --nio-output         Write the uncompressed output files by the NIO byte" +
+                " serializer (not with --compress)");
+        System.out.println("       --tables <format>    Export one table per CIM type to the directory" +
+                " <output_path_stem>_tables instead of writing RDF files (binary or csv)");
+        System.out.println("       --generate <count>   Write a synthetic grid model with at least <count> objects" +
+                " instead of reading files");
+        System.out.println("       --seed <seed>        Seed of the synthetic grid model (default: " +
+                SyntheticModelGenerator.DEFAULT_SEED + ")");
         System.out.println("       <rdf_file> ...       Input files with CIM/CGMES data");
         System.out.println("       <output_path_stem>   Stem of the output files" +
                 " (<output_path_stem>_<profile_name>.xml)");
@@ -40,18 +87,88 @@ public final class Main {
      */
     public static void main(String[] args) {
         int offset = 0;
-        if (args.length >= 2 && args[0].equals("--log-level")) {
-            Logging.Level level = Logging.getDefaultLogLevel();
-            try {
-                level = Logging.Level.valueOf(args[1]);
-            } catch (IllegalArgumentException ex) {
-                printUsageAndExit("unknown log level: " + args[1]);
+        while (offset < args.length && args[offset].startsWith("--")) {
+            if (args.length >= offset + 2 && args[offset].equals("--log-level")) {
+                Logging.Level level = Logging.getDefaultLogLevel();
+                try {
+                    level = Logging.Level.valueOf(args[offset + 1]);
+                } catch (IllegalArgumentException ex) {
+                    printUsageAndExit("unknown log level: " + args[offset + 1]);
+                }
+                if (!level.equals(Logging.getDefaultLogLevel())) {
+                    Logging.setDefaultLogLevel(level);
+                    LOG = Logging.getLogger(Main.class);
+                }
+                offset += 2;
+            } else if (args[offset].equals("--log-async")) {
+                Logging.setAsyncEnabled(true);
+                offset += 1;
+            } else if (args[offset].equals("--diagnostics")) {
+                printDiagnostics = true;
+                offset += 1;
+            } else if (args[offset].equals("--dedup-strings")) {
+                deduplicateStrings = true;
+                offset += 1;
+            } else if (args[offset].equals("--pipelined")) {
+                pipelinedReading = true;
+                offset += 1;
+            } else if (args[offset].equals("--freeze")) {
+                freezeModel = true;
+                offset += 1;
+            } else if (args[offset].equals("--footprint")) {
+                printFootprint = true;
+                offset += 1;
+            } else if (args[offset].equals("--streaming")) {
+                streamingConversion = true;
+                offset += 1;
+            } else if (args.length >= offset + 2 && args[offset].equals("--compress")) {
+                if (args[offset + 1].equals("gzip")) {
+                    outputCompression = RdfWriter.Compression.GZIP;
+                } else if (args[offset + 1].equals("zip")) {
+                    outputCompression = RdfWriter.Compression.ZIP;
+                } else if (args[offset + 1].equals("archive")) {
+                    zipArchive = true;
+                } else {
+                    printUsageAndExit("unknown compression format: " + args[offset + 1]);
+                }
+                offset += 2;
+            } else if (args[offset].equals("--nio-output")) {
+                nioOutput = true;
+                offset += 1;
+            } else if (args.length >= offset + 2 && args[offset].equals("--tables")) {
+                if (args[offset + 1].equals("binary")) {
+                    tableFormat = TableExporter.Format.BINARY;
+                } else if (args[offset + 1].equals("csv")) {
+                    tableFormat = TableExporter.Format.CSV;
+                } else {
+                    printUsageAndExit("unknown table format: " + args[offset + 1]);
+                }
+                offset += 2;
+            } else if (args.length >= offset + 2 && args[offset].equals("--generate")) {
+                generateObjectCount = parseLong(args[offset + 1], "object count");
+                if (generateObjectCount <= 0) {
+                    printUsageAndExit("object count must be positive: " + args[offset + 1]);
+                }
+                offset += 2;
+            } else if (args.length >= offset + 2 && args[offset].equals("--seed")) {
+                generateSeed = parseLong(args[offset + 1], "seed");
+                offset += 2;
+            } else {
+                printUsageAndExit("unknown option: " + args[offset]);
             }
-            if (!level.equals(Logging.getDefaultLogLevel())) {
-                Logging.setDefaultLogLevel(level);
-                LOG = Logging.getLogger(Main.class);
+        }
+
+        if (nioOutput && (zipArchive || outputCompression != RdfWriter.Compression.NONE)) {
+            printUsageAndExit("--nio-output cannot be combined with --compress");
+        }
+
+        if (generateObjectCount > 0) {
+            if (args.length != offset + 1) {
+                printUsageAndExit("exactly one output path stem expected");
             }
-            offset += 2;
+            generateRdf(args[offset], generateObjectCount, generateSeed);
+            Logging.flush();
+            return;
         }
 
         if (args.length < offset + 2) {
@@ -68,8 +185,9 @@ public final class Main {
 
         readRdfWriteRdf(inputFiles, outputFile);
 
-        LOG.info(String.format("Total allocated memory: %d of %d MByte",
-                Runtime.getRuntime().totalMemory() / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        LOG.info("Total allocated memory: %d of %d MByte",
+                Runtime.getRuntime().totalMemory() / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        Logging.flush();
     }
 
     /**
@@ -79,12 +197,61 @@ public final class Main {
      * @param outputFile path of file to write
      */
     public static void readRdfWriteRdf(List<String> inputFiles, String outputFile) {
+        if (streamingConversion) {
+            convertRdf(inputFiles, outputFile);
+            return;
+        }
         var cimData = readRdf(inputFiles);
         if (cimData != null) {
+            if (freezeModel) {
+                cimData = FrozenModel.freeze(cimData).asMap();
+            }
+            if (printFootprint) {
+                var report = new FootprintAnalyzer().analyze(cimData);
+                System.out.println("\nEstimated heap footprint: " + report.getTotalBytes() / 1024 + " KByte");
+                System.out.print(report.getSummary());
+            }
+            if (tableFormat != null) {
+                exportTables(outputFile + "_tables", cimData);
+                return;
+            }
             writeRdf(outputFile, cimData);
         }
     }
 
+    /**
+     * Convert the cim data of rdf files element by element to rdf files separated
+     * by profiles (see RdfStreamConverter).
+     *
+     * @param inputFiles list of paths of files to read
+     * @param pathStem   Stem of the output files
+     *                   (also used as stem of the model IDs)
+     */
+    public static void convertRdf(List<String> inputFiles, String pathStem) {
+        try {
+            var converter = new RdfStreamConverter();
+            int count = 0;
+            for (var file : inputFiles) {
+                ++count;
+                LOG.info("CIM inputfile %d: %s", count, file);
+            }
+            var profileFileMap = converter.convert(inputFiles, pathStem, pathStem);
+            count = 0;
+            for (var profile : profileFileMap.keySet()) {
+                ++count;
+                LOG.info("CIM outputfile %d: %s", count, profileFileMap.get(profile));
+            }
+            LOG.info("Converted %d inputfiles to %d outputfiles", inputFiles.size(), count);
+            if (printDiagnostics) {
+                var diagnostics = converter.getDiagnostics();
+                System.out.println("\nData quality issues: " + diagnostics.getTotalCount());
+                System.out.print(diagnostics.getSummary());
+            }
+        } catch (Exception ex) {
+            LOG.error("Failed to convert RDF files", ex);
+        }
+    }
+
     /**
      * Read the cim data from rdf files.
      *
@@ -94,13 +261,22 @@ public final class Main {
     public static Map<String, BaseClass> readRdf(List<String> inputFiles) {
         try {
             var rdfReader = new RdfReader();
+            if (deduplicateStrings) {
+                rdfReader.setStringPool(new StringPool());
+            }
+            rdfReader.setPipelined(pipelinedReading);
             int count = 0;
             for (var file : inputFiles) {
                 ++count;
-                LOG.info(String.format("CIM inputfile %d: %s", count, file));
+                LOG.info("CIM inputfile %d: %s", count, file);
             }
             var cimData = rdfReader.read(inputFiles);
-            LOG.info(String.format("Read %d inputfiles", count));
+            LOG.info("Read %d inputfiles", count);
+            if (printDiagnostics) {
+                var diagnostics = rdfReader.getDiagnostics();
+                System.out.println("\nData quality issues: " + diagnostics.getTotalCount());
+                System.out.print(diagnostics.getSummary());
+            }
             return cimData;
         } catch (Exception ex) {
             LOG.error("Failed to convert RDF files to CIM", ex);
@@ -119,19 +295,78 @@ public final class Main {
         try {
             var writer = new RdfWriter();
             writer.addCimData(cimData);
+            if (zipArchive) {
+                String zipPath = pathStem + ".zip";
+                var profileEntryMap = writer.writeZip(zipPath, Path.of(pathStem).getFileName().toString(), pathStem,
+                        writer.getClassProfileMap());
+                LOG.info("Written %d profiles to %s", profileEntryMap.size(), zipPath);
+                return;
+            }
+            writer.setCompression(outputCompression);
+            writer.setNioOutput(nioOutput);
             var profileFileMap = writer.write(pathStem, pathStem, writer.getClassProfileMap());
             int count = 0;
             for (var profile : profileFileMap.keySet()) {
                 ++count;
-                LOG.info(String.format("CIM outputfile %d: %s", count, profileFileMap.get(profile)));
+                LOG.info("CIM outputfile %d: %s", count, profileFileMap.get(profile));
             }
-            LOG.info(String.format("Written %d outputfiles", count));
+            LOG.info("Written %d outputfiles", count);
         } catch (Exception ex) {
             LOG.error("Failed to write CIM data to a RDF file", ex);
             return;
         }
     }
 
+    /**
+     * Export the CIM data to one table per CIM type (see TableExporter).
+     *
+     * @param directory The directory of the table files
+     * @param cimData   CIM data as map of rdfid to CIM object
+     */
+    public static void exportTables(String directory, Map<String, BaseClass> cimData) {
+        try {
+            var exporter = new TableExporter();
+            exporter.setFormat(tableFormat);
+            var typeFileMap = exporter.export(cimData, directory);
+            LOG.info("Written %d tables to %s", typeFileMap.size(), directory);
+        } catch (Exception ex) {
+            LOG.error("Failed to export CIM data to tables", ex);
+        }
+    }
+
+    /**
+     * Generate a synthetic grid model and write it to RDF files separated by
+     * profiles.
+     *
+     * @param pathStem    Stem of the output files
+     *                    (also used as stem of the model IDs)
+     * @param objectCount Minimum number of CIM objects
+     * @param seed        Seed of the generator
+     */
+    public static void generateRdf(String pathStem, long objectCount, long seed) {
+        try {
+            var generator = new SyntheticModelGenerator(seed);
+            var profileFileMap = generator.write(pathStem, objectCount);
+            int count = 0;
+            for (var file : profileFileMap.values()) {
+                ++count;
+                LOG.info("CIM outputfile %d: %s", count, file);
+            }
+            LOG.info("Written %d outputfiles", count);
+        } catch (Exception ex) {
+            LOG.error("Failed to write synthetic CIM data to RDF files", ex);
+        }
+    }
+
+    private static long parseLong(String value, String description) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            printUsageAndExit("invalid " + description + ": " + value);
+            return 0;
+        }
+    }
+
     private static void checkArgs(List<String> inputFiles) {
         for (String inputFile : inputFiles) {
             if (!isRdfFile(inputFile)) {
@@ -0,0 +1,83 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import cim4j.ConnectivityNode;
+import cim4j.Terminal;
+import cim4j.utils.ConcurrentModel;
+
+class ConcurrentModelTest {
+
+    @Test
+    void addRefusesOtherObjectWithSameRdfid() {
+        var model = new ConcurrentModel(TestModels.createLines(1));
+        var terminal = model.get("_T_L0_1");
+        model.add(terminal);
+        assertThrows(IllegalArgumentException.class, () -> model.add(new Terminal("_T_L0_1")));
+        assertSame(terminal, model.get("_T_L0_1"));
+    }
+
+    @Test
+    void nestedAccessInCallbackThrows() {
+        var model = new ConcurrentModel(TestModels.createLines(1));
+        assertThrows(IllegalStateException.class,
+                () -> model.read("_T_L0_1", object -> model.getAttribute("_L0", "name")));
+        assertThrows(IllegalStateException.class,
+                () -> model.update("_T_L0_1", object -> model.setAttribute("_L0", "name", "x")));
+        assertThrows(IllegalStateException.class,
+                () -> model.readAll(objects -> model.update("_L0", object -> object.setAttribute("name", "x"))));
+        assertEquals("Line 0", model.getAttribute("_L0", "name"));
+        // The container is usable after the refused calls
+        assertTrue(model.update("_L0", object -> object.setAttribute("name", "y")));
+        assertEquals("y", model.getAttribute("_L0", "name"));
+    }
+
+    @Test
+    void parallelRelinkKeepsInverseLinksConsistent() throws Exception {
+        var model = new ConcurrentModel(TestModels.createLines(20), 4);
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int thread = 0; thread < 4; ++thread) {
+            int offset = thread;
+            tasks.add(() -> {
+                for (int idx = 0; idx < 2000; ++idx) {
+                    int line = (idx + offset) % 20;
+                    int node = (idx * 7 + offset) % 20;
+                    model.link("_T_L" + line + "_1", "ConnectivityNode", "_CN_L" + node + "_2");
+                }
+                return null;
+            });
+        }
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            for (var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Each terminal is in the list of its node only
+        model.readAll(objects -> {
+            for (var object : objects.values()) {
+                if (object instanceof ConnectivityNode) {
+                    for (var terminal : ((ConnectivityNode) object).getTerminals()) {
+                        assertSame(object, terminal.getConnectivityNode());
+                    }
+                } else if (object instanceof Terminal) {
+                    var node = ((Terminal) object).getConnectivityNode();
+                    assertTrue(node.getTerminals().stream().anyMatch(t -> t == object));
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import cim4j.ACLineSegment;
+import cim4j.ConnectivityNode;
+import cim4j.Terminal;
+import cim4j.utils.FrozenModel;
+
+class FrozenModelTest {
+
+    @Test
+    void settersThrow() {
+        var frozen = FrozenModel.freeze(TestModels.createLines(1));
+        var line = (ACLineSegment) frozen.get("_L0");
+        assertTrue(line.isFrozen());
+
+        assertThrows(UnsupportedOperationException.class, () -> line.setR(1.0));
+        assertThrows(UnsupportedOperationException.class, () -> line.setAttribute("name", "x"));
+        assertThrows(UnsupportedOperationException.class, () -> line.setAttribute("BaseVoltage", "_other"));
+        assertEquals(0.5, line.getR());
+        assertEquals("Line 0", line.getAttribute("name"));
+    }
+
+    @Test
+    void collectionsAreUnmodifiable() {
+        var frozen = FrozenModel.freeze(TestModels.createLines(1));
+        var node = (ConnectivityNode) frozen.get("_CN_L0_1");
+        var terminal = (Terminal) frozen.get("_T_L0_1");
+
+        assertThrows(UnsupportedOperationException.class, () -> node.getTerminals().clear());
+        assertThrows(UnsupportedOperationException.class, () -> frozen.asMap().remove("_L0"));
+        assertEquals(1, node.getTerminals().size());
+        assertTrue(node.getTerminals().contains(terminal));
+        assertFalse(node.getTerminals().contains(new Terminal("_T_L0_2")));
+        assertEquals(terminal.hashCode(), new Terminal("_T_L0_1").hashCode());
+    }
+
+    @Test
+    void linkToFrozenObjectChangesNothing() {
+        var frozen = FrozenModel.freeze(TestModels.createLines(1));
+        var node = (ConnectivityNode) frozen.get("_CN_L0_1");
+
+        // The inverse attribute of the frozen node cannot be set, so the new terminal is not linked either
+        var terminal = new Terminal("_T_new");
+        assertThrows(UnsupportedOperationException.class, () -> terminal.setConnectivityNode(node));
+        assertNull(terminal.getConnectivityNode());
+        assertEquals(1, node.getTerminals().size());
+
+        var newNode = new ConnectivityNode("_CN_new");
+        var frozenTerminal = (Terminal) frozen.get("_T_L0_2");
+        assertThrows(UnsupportedOperationException.class, () -> newNode.setTerminals(frozenTerminal));
+        assertTrue(newNode.getTerminals().isEmpty());
+        assertSame(frozen.get("_CN_L0_2"), frozenTerminal.getConnectivityNode());
+    }
+}
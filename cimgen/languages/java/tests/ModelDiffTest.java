@@ -0,0 +1,99 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import cim4j.CimClassMap;
+import cim4j.utils.ModelDiff;
+import cim4j.utils.ModelDiff.ChangeKind;
+
+class ModelDiffTest {
+
+    @Test
+    void sameModels() {
+        var oldModel = TestModels.createLines(3);
+        var newModel = TestModels.createLines(3);
+        for (boolean verify : new boolean[] { false, true }) {
+            var diff = new ModelDiff();
+            diff.setVerifyHashMatches(verify);
+            var result = diff.compare(oldModel, newModel);
+            assertTrue(result.isEmpty());
+            assertEquals(oldModel.size(), result.getUnchangedCount());
+            assertEquals(oldModel.size(), result.getHashMatchCount());
+        }
+    }
+
+    @Test
+    void changedModels() {
+        var oldModel = TestModels.createLines(3);
+        var newModel = TestModels.createLines(3);
+        newModel.get("_L0").setAttribute("r", 9.5);
+        newModel.get("_T_L1_1").setAttribute("ConnectivityNode", newModel.get("_CN_L2_1"));
+        newModel.remove("_SV_L2_2");
+        TestModels.create(newModel, "BaseVoltage", "_BV_new").setAttribute("nominalVoltage", 20.0);
+        // Same rdfid, other type
+        var substation = CimClassMap.createCimObject("Substation", "_L1");
+        newModel.put("_L1", substation);
+
+        for (boolean verify : new boolean[] { false, true }) {
+            var diff = new ModelDiff();
+            diff.setParallelism(2);
+            diff.setVerifyHashMatches(verify);
+            var result = diff.compare(oldModel, newModel);
+            assertEquals(Map.of("_L0", "CHANGED [r]", "_T_L1_1", "CHANGED [ConnectivityNode]",
+                    "_SV_L2_2", "REMOVED", "_BV_new", "ADDED", "_L1", "TYPE_CHANGED"), changes(result));
+            assertEquals(1, result.getCount(ChangeKind.ADDED));
+            assertEquals(2, result.getCount(ChangeKind.CHANGED));
+            assertEquals(oldModel.size() - 4, result.getUnchangedCount());
+        }
+    }
+
+    @Test
+    void differenceModel() {
+        var oldModel = TestModels.createLines(1);
+        var newModel = TestModels.createLines(1);
+        newModel.get("_L0").setAttribute("name", "renamed & <moved>");
+        var diff = new ModelDiff();
+        var result = diff.compare(oldModel, newModel);
+        var stringWriter = new StringWriter();
+        diff.writeDifferenceModel(result, stringWriter, "diff");
+        String rdf = stringWriter.toString();
+        assertTrue(rdf.contains("<dm:DifferenceModel rdf:about=\"#diff\">"));
+        assertTrue(rdf.contains("renamed &amp; &lt;moved&gt;"));
+        assertTrue(rdf.contains("Line 0"));
+    }
+
+    @Test
+    void contentHash() {
+        var model1 = TestModels.createLines(1);
+        var model2 = TestModels.createLines(1);
+        for (var rdfid : model1.keySet()) {
+            assertEquals(ModelDiff.contentHash(model1.get(rdfid)), ModelDiff.contentHash(model2.get(rdfid)));
+        }
+        long hash = ModelDiff.contentHash(model1.get("_L0"));
+        model2.get("_L0").setAttribute("x", 2.6);
+        assertNotEquals(hash, ModelDiff.contentHash(model2.get("_L0")));
+        model2.get("_L0").setAttribute("x", 2.5);
+        assertEquals(hash, ModelDiff.contentHash(model2.get("_L0")));
+        // Another link
+        model2.get("_L0").setAttribute("BaseVoltage", TestModels.create(model2, "BaseVoltage", "_BV2"));
+        assertNotEquals(hash, ModelDiff.contentHash(model2.get("_L0")));
+    }
+
+    private static Map<String, String> changes(ModelDiff.Result result) {
+        var changes = new HashMap<String, String>();
+        for (var change : result.getChanges()) {
+            // All attributes with a value are changed for the other kinds
+            String attrNames = change.getKind() == ChangeKind.CHANGED ? " " + change.getChangedAttributes() : "";
+            changes.put(change.getRdfid(), change.getKind() + attrNames);
+        }
+        return changes;
+    }
+}
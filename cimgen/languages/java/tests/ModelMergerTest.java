@@ -0,0 +1,119 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cim4j.BaseVoltage;
+import cim4j.CimConstants;
+import cim4j.utils.ModelMerger;
+
+class ModelMergerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mergeDisjointModels() throws Exception {
+        var lines = TestModels.createLines(2);
+        var merger = new ModelMerger();
+        merger.addModel("A", List.of(write("a.xml", TestModels.toRdf(lines))));
+        merger.addModel("B", List.of(write("b.xml", ""
+                + "  <cim:ACLineSegment rdf:ID=\"_L_B\">\n"
+                + "    <cim:ConductingEquipment.BaseVoltage rdf:resource=\"#_BV\"/>\n"
+                + "  </cim:ACLineSegment>\n")));
+        var result = merger.merge();
+
+        assertTrue(result.getConflicts().isEmpty());
+        assertEquals(0, result.getDiagnostics().getTotalCount());
+        assertEquals(lines.size() + 1, result.getModel().size());
+        // The reference between the models is linked
+        var baseVoltage = (BaseVoltage) result.getModel().get("_BV");
+        assertTrue(baseVoltage.getConductingEquipment().contains(result.getModel().get("_L_B")));
+    }
+
+    @Test
+    void mergeAttributesOfDuplicateId() throws Exception {
+        var merger = new ModelMerger();
+        merger.addModel("A", List.of(write("a.xml", ""
+                + "  <cim:ConductingEquipment rdf:ID=\"_X\">\n"
+                + "    <cim:IdentifiedObject.name>a</cim:IdentifiedObject.name>\n"
+                + "  </cim:ConductingEquipment>\n"
+                + "  <cim:BaseVoltage rdf:ID=\"_BV\">\n"
+                + "    <cim:BaseVoltage.nominalVoltage>110</cim:BaseVoltage.nominalVoltage>\n"
+                + "  </cim:BaseVoltage>\n")));
+        merger.addModel("B", List.of(write("b.xml", ""
+                + "  <cim:ACLineSegment rdf:ID=\"_X\">\n"
+                + "    <cim:IdentifiedObject.name>b</cim:IdentifiedObject.name>\n"
+                + "    <cim:IdentifiedObject.description>line</cim:IdentifiedObject.description>\n"
+                + "    <cim:ConductingEquipment.BaseVoltage rdf:resource=\"#_BV\"/>\n"
+                + "    <cim:ACLineSegment.r>1.5</cim:ACLineSegment.r>\n"
+                + "  </cim:ACLineSegment>\n"
+                + "  <cim:BaseVoltage rdf:ID=\"_BV\">\n"
+                + "    <cim:BaseVoltage.nominalVoltage>110.0</cim:BaseVoltage.nominalVoltage>\n"
+                + "    <cim:IdentifiedObject.name>110 kV</cim:IdentifiedObject.name>\n"
+                + "  </cim:BaseVoltage>\n")));
+        var result = merger.merge();
+        var model = result.getModel();
+
+        assertEquals(2, model.size());
+        var object = model.get("_X");
+        assertEquals("ConductingEquipment", object.getCimType());
+        assertEquals("a", object.getAttribute("name"));
+        assertEquals("line", object.getAttribute("description"));
+        assertSame(model.get("_BV"), object.getAttribute("BaseVoltage"));
+        assertEquals("110 kV", model.get("_BV").getAttribute("name"));
+
+        var conflicts = result.getConflicts();
+        assertEquals(2, conflicts.size());
+        assertEquals("_BV", conflicts.get(0).getRdfid());
+        assertEquals(ModelMerger.ConflictKind.DUPLICATE_ID, conflicts.get(0).getKind());
+        assertTrue(conflicts.get(0).getConflictingAttributes().isEmpty());
+        assertEquals("_X", conflicts.get(1).getRdfid());
+        assertEquals(ModelMerger.ConflictKind.DUPLICATE_ID, conflicts.get(1).getKind());
+        assertEquals("A", conflicts.get(1).getKeptModel());
+        assertEquals("B", conflicts.get(1).getDroppedModel());
+        // Different name, and ConductingEquipment has no attribute r
+        assertEquals(List.of("name", "r"), conflicts.get(1).getConflictingAttributes().stream().sorted().toList());
+    }
+
+    @Test
+    void keepFirstOfIncompatibleTypes() throws Exception {
+        var merger = new ModelMerger();
+        merger.addModel("A", List.of(write("a.xml", ""
+                + "  <cim:Substation rdf:ID=\"_S\">\n"
+                + "    <cim:IdentifiedObject.name>S</cim:IdentifiedObject.name>\n"
+                + "  </cim:Substation>\n")));
+        merger.addModel("B", List.of(write("b.xml", ""
+                + "  <cim:Terminal rdf:ID=\"_S\">\n"
+                + "    <cim:IdentifiedObject.name>T</cim:IdentifiedObject.name>\n"
+                + "  </cim:Terminal>\n")));
+        var result = merger.merge();
+
+        assertEquals("Substation", result.getModel().get("_S").getCimType());
+        assertEquals("S", result.getModel().get("_S").getAttribute("name"));
+        var conflict = result.getConflicts().get(0);
+        assertEquals(ModelMerger.ConflictKind.INCOMPATIBLE_TYPE, conflict.getKind());
+        assertEquals("Terminal", conflict.getDroppedType());
+        assertTrue(conflict.getConflictingAttributes().isEmpty());
+    }
+
+    private String write(String fileName, String rdf) throws Exception {
+        if (!rdf.startsWith("<?xml")) {
+            rdf = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                    + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:cim=\""
+                    + CimConstants.NAMESPACES_MAP.get("cim") + "\">\n" + rdf + "</rdf:RDF>\n";
+        }
+        var path = dir.resolve(fileName);
+        Files.writeString(path, rdf, StandardCharsets.UTF_8);
+        return path.toString();
+    }
+}
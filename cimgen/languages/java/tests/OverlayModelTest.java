@@ -0,0 +1,100 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import cim4j.ConnectivityNode;
+import cim4j.Terminal;
+import cim4j.utils.OverlayModel;
+import cim4j.utils.RdfReader;
+
+class OverlayModelTest {
+
+    @Test
+    void linkDoesNotModifyBase() {
+        var base = TestModels.createLines(1);
+        var baseNode = (ConnectivityNode) base.get("_CN_L0_1");
+        var overlay = new OverlayModel(base);
+
+        var terminal = new Terminal("_T_new");
+        overlay.add(terminal);
+        overlay.link(terminal, "ConnectivityNode", baseNode);
+
+        assertSame(baseNode, terminal.getConnectivityNode());
+        assertEquals(1, baseNode.getTerminals().size());
+        assertTrue(overlay.isShared(baseNode));
+        assertFalse(overlay.isShared(terminal));
+        assertThrows(IllegalArgumentException.class, () -> overlay.link(baseNode, "Terminals", terminal));
+    }
+
+    @Test
+    void classAttributeRelinkedToCopy() {
+        var base = TestModels.createLines(1);
+        var baseNode = (ConnectivityNode) base.get("_CN_L0_1");
+        var overlay = new OverlayModel(base);
+        var terminal = new Terminal("_T_new");
+        overlay.add(terminal);
+        overlay.link(terminal, "ConnectivityNode", baseNode);
+
+        var copy = (ConnectivityNode) overlay.getForUpdate("_CN_L0_1");
+        assertNotSame(baseNode, copy);
+        assertSame(copy, overlay.get("_CN_L0_1"));
+        assertSame(copy, terminal.getConnectivityNode());
+        // The copy has the inverse links of the base object and of the overlay object
+        assertTrue(copy.getTerminals().contains(terminal));
+        assertTrue(copy.getTerminals().contains(base.get("_T_L0_1")));
+        // The base object is not modified
+        assertEquals(1, baseNode.getTerminals().size());
+        assertFalse(baseNode.getTerminals().contains(terminal));
+    }
+
+    @Test
+    void listAttributeRelinkedToCopy() {
+        var base = TestModels.createLines(1);
+        var baseTerminal = (Terminal) base.get("_T_L0_1");
+        var overlay = new OverlayModel(base);
+        var node = new ConnectivityNode("_CN_new");
+        overlay.add(node);
+        overlay.link(node, "Terminals", baseTerminal);
+
+        var copy = (Terminal) overlay.getForUpdate("_T_L0_1");
+        // Equal objects have the same rdfid, so the instances are compared
+        assertTrue(node.getTerminals().stream().anyMatch(t -> t == copy));
+        assertFalse(node.getTerminals().stream().anyMatch(t -> t == baseTerminal));
+        assertSame(node, copy.getConnectivityNode());
+        assertSame(base.get("_CN_L0_1"), baseTerminal.getConnectivityNode());
+    }
+
+    @Test
+    void readOverlayRelinkedToCopy() {
+        var base = TestModels.createLines(1);
+        var baseNode = (ConnectivityNode) base.get("_CN_L0_2");
+        var reader = new RdfReader();
+        reader.setBaseModel(base);
+        var objects = reader.readFromStrings(List.of(""
+                + "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\" xmlns:cim=\""
+                + base.get("_BV").getClassNamespaceUrl() + "\">\n"
+                + "  <cim:Terminal rdf:ID=\"_T_new\">\n"
+                + "    <cim:Terminal.ConnectivityNode rdf:resource=\"#_CN_L0_2\"/>\n"
+                + "  </cim:Terminal>\n"
+                + "</rdf:RDF>\n"));
+        var overlay = new OverlayModel(base, objects);
+        var terminal = (Terminal) overlay.get("_T_new");
+        assertSame(baseNode, terminal.getConnectivityNode());
+        assertEquals(1, baseNode.getTerminals().size());
+
+        var copy = (ConnectivityNode) overlay.getForUpdate("_CN_L0_2");
+        assertSame(copy, terminal.getConnectivityNode());
+        assertTrue(copy.getTerminals().contains(terminal));
+        assertEquals(1, baseNode.getTerminals().size());
+    }
+}
@@ -0,0 +1,79 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.CimConstants;
+import cim4j.utils.ModelDiff;
+import cim4j.utils.RdfReader;
+import cim4j.utils.RdfWriter;
+import cim4j.utils.SyntheticModelGenerator;
+
+/**
+ * The NIO output of RdfWriter (see RdfByteSerializer) must write the same bytes
+ * as the XMLStreamWriter.
+ */
+class RdfByteSerializerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameBytesAsXmlStreamWriter() {
+        // Large enough for many buffers of the serializer
+        assertSameBytes(new SyntheticModelGenerator().generate(20000));
+    }
+
+    @Test
+    void sameBytesWithEscapedValues() {
+        var model = TestModels.createLines(2);
+        model.get("_L0").setAttribute("name", "A & B <line> \"1\" 'x'");
+        model.get("_L1").setAttribute("description", "Umspannwerk Süd – 110 kV ≥ 20 kV 🔌");
+        model.get("_BV").setAttribute("name", "  leading and trailing blanks  ");
+        var end = TestModels.create(model, "PowerTransformerEnd", "_END");
+        end.setAttribute("connectionKind", CimConstants.NAMESPACES_MAP.get("cim") + "WindingConnection.Y");
+        // Unknown enum values are kept as string
+        var end2 = TestModels.create(model, "PowerTransformerEnd", "_END2");
+        end2.setAttribute("connectionKind", CimConstants.NAMESPACES_MAP.get("cim") + "WindingConnection.Q");
+        assertSameBytes(model);
+    }
+
+    @Test
+    void readWriteRoundTrip() {
+        var model = new SyntheticModelGenerator().generate(2000);
+        var files = write(model, true, "nio");
+
+        var reader = new RdfReader();
+        var readModel = reader.read(new ArrayList<>(files.values()));
+        assertEquals(0, reader.getDiagnostics().getTotalCount());
+        assertTrue(new ModelDiff().compare(model, readModel).isEmpty());
+    }
+
+    private void assertSameBytes(Map<String, BaseClass> model) {
+        var xmlFiles = write(model, false, "xml");
+        var nioFiles = write(model, true, "nio");
+        assertEquals(xmlFiles.keySet(), nioFiles.keySet());
+        for (var profile : xmlFiles.keySet()) {
+            assertArrayEquals(RdfWriterTest.readBytes(xmlFiles.get(profile)),
+                    RdfWriterTest.readBytes(nioFiles.get(profile)), profile.name());
+        }
+    }
+
+    private Map<CGMESProfile, String> write(Map<String, BaseClass> model, boolean nioOutput, String stem) {
+        var writer = new RdfWriter();
+        writer.addCimData(model);
+        writer.setNioOutput(nioOutput);
+        // The same model ID for both, so the contents of the files are the same
+        return writer.write(dir.resolve(stem).toString(), "model", writer.getClassProfileMap());
+    }
+}
@@ -0,0 +1,145 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.utils.ModelDiff;
+import cim4j.utils.RdfReader;
+import cim4j.utils.RdfWriter;
+import cim4j.utils.SyntheticModelGenerator;
+
+class RdfWriterTest {
+
+    private static Map<String, BaseClass> model;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void createModel() {
+        model = new SyntheticModelGenerator().generate(5000);
+    }
+
+    @Test
+    void readWriteRoundTrip() {
+        var files = write(RdfWriter.Compression.NONE, "plain");
+        assertEquals(4, files.size());
+
+        var reader = new RdfReader();
+        var readModel = reader.read(new ArrayList<>(files.values()));
+        assertEquals(0, reader.getDiagnostics().getTotalCount());
+        var diff = new ModelDiff();
+        diff.setVerifyHashMatches(true);
+        assertTrue(diff.compare(model, readModel).isEmpty());
+    }
+
+    @Test
+    void gzipContainsPlainFiles() throws Exception {
+        var plainFiles = write(RdfWriter.Compression.NONE, "plain");
+        var files = write(RdfWriter.Compression.GZIP, "gzip");
+        assertEquals(plainFiles.keySet(), files.keySet());
+        for (var entry : files.entrySet()) {
+            assertTrue(entry.getValue().endsWith(".xml.gz"));
+            try (var stream = new GZIPInputStream(new FileInputStream(entry.getValue()))) {
+                assertArrayEquals(readBytes(plainFiles.get(entry.getKey())), stream.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void zipContainsPlainFiles() throws Exception {
+        var plainFiles = write(RdfWriter.Compression.NONE, "plain");
+        var files = write(RdfWriter.Compression.ZIP, "zip");
+        assertEquals(plainFiles.keySet(), files.keySet());
+        for (var entry : files.entrySet()) {
+            String profileName = entry.getKey().getLongName();
+            assertTrue(entry.getValue().endsWith("zip_" + profileName + ".zip"));
+            var entries = readZip(entry.getValue());
+            assertEquals(1, entries.size());
+            assertArrayEquals(readBytes(plainFiles.get(entry.getKey())), entries.get("zip_" + profileName + ".xml"));
+        }
+    }
+
+    @Test
+    void zipArchiveContainsPlainFiles() throws Exception {
+        var plainFiles = write(RdfWriter.Compression.NONE, "plain");
+        var writer = new RdfWriter();
+        writer.addCimData(model);
+        writer.setCompressionThreads(2);
+        String zipPath = dir.resolve("all.zip").toString();
+        var entryNames = writer.writeZip(zipPath, "all", "model", writer.getClassProfileMap());
+        assertEquals(plainFiles.keySet(), entryNames.keySet());
+
+        var entries = readZip(zipPath);
+        assertEquals(plainFiles.size(), entries.size());
+        for (var entry : entryNames.entrySet()) {
+            assertArrayEquals(readBytes(plainFiles.get(entry.getKey())), entries.get(entry.getValue()));
+        }
+    }
+
+    @Test
+    void emptyProfilesAreSkipped() throws Exception {
+        var eqModel = new HashMap<String, BaseClass>();
+        TestModels.create(eqModel, "BaseVoltage", "_BV").setAttribute("nominalVoltage", 110.0);
+        for (var compression : RdfWriter.Compression.values()) {
+            var writer = new RdfWriter();
+            writer.addCimData(eqModel);
+            writer.setCompression(compression);
+            var files = writer.write(dir.resolve(compression.name()).toString(), "model",
+                    writer.getClassProfileMap());
+            assertEquals(1, files.size());
+            assertTrue(files.containsKey(CGMESProfile.EQ));
+        }
+        var writer = new RdfWriter();
+        writer.addCimData(eqModel);
+        writer.writeZip(dir.resolve("all.zip").toString(), "all", "model", writer.getClassProfileMap());
+        assertEquals(1, readZip(dir.resolve("all.zip").toString()).size());
+        try (var stream = Files.list(dir)) {
+            assertEquals(RdfWriter.Compression.values().length + 1, stream.count());
+        }
+    }
+
+    private Map<CGMESProfile, String> write(RdfWriter.Compression compression, String stem) {
+        var writer = new RdfWriter();
+        writer.addCimData(model);
+        writer.setCompression(compression);
+        writer.setCompressionThreads(2);
+        // The same model ID for all, so the contents of the files are the same
+        return writer.write(dir.resolve(stem).toString(), "model", writer.getClassProfileMap());
+    }
+
+    private static Map<String, byte[]> readZip(String path) throws Exception {
+        var entries = new HashMap<String, byte[]>();
+        try (var stream = new ZipInputStream(new FileInputStream(path))) {
+            for (var entry = stream.getNextEntry(); entry != null; entry = stream.getNextEntry()) {
+                assertNull(entries.put(entry.getName(), stream.readAllBytes()));
+            }
+        }
+        return entries;
+    }
+
+    static byte[] readBytes(String path) {
+        try {
+            return Files.readAllBytes(Path.of(path));
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cim4j.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cim4j.utils.ModelDiff;
+import cim4j.utils.RdfReader;
+import cim4j.utils.SyntheticModelGenerator;
+
+class SyntheticModelGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writtenModelIsGeneratedModel() {
+        var generated = new SyntheticModelGenerator().generate(1000);
+        // Small batches, so the model is written in many batches
+        var files = new SyntheticModelGenerator().write(dir.resolve("gen").toString(), 1000, 50);
+        assertEquals(4, files.size());
+
+        var reader = new RdfReader();
+        var model = reader.read(new ArrayList<>(files.values()));
+        // All references are resolved: one connected model
+        assertEquals(0, reader.getDiagnostics().getTotalCount());
+        var diff = new ModelDiff();
+        diff.setVerifyHashMatches(true);
+        assertTrue(diff.compare(generated, model).isEmpty());
+    }
+
+    @Test
+    void noEmptyFiles() throws Exception {
+        // Only the regions and base voltages, all in EQ
+        var files = new SyntheticModelGenerator().write(dir.resolve("gen").toString(), 1, 10);
+        assertEquals(1, files.size());
+        try (var stream = Files.list(dir)) {
+            assertEquals(1, stream.count());
+        }
+    }
+
+    @Test
+    void sameSeedSameModel() {
+        var model1 = new SyntheticModelGenerator(7).generate(500);
+        var model2 = new SyntheticModelGenerator(7).generate(500);
+        assertEquals(model1.keySet(), model2.keySet());
+        assertTrue(new ModelDiff().compare(model1, model2).isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package cim4j.tests;
+
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cim4j.BaseClass;
+import cim4j.CimClassMap;
+import cim4j.utils.RdfWriter;
+
+/**
+ * Small hand-built CIM models used by the tests.
+ *
+ * Only attribute names are used which exist in all supported CGMES versions.
+ */
+public final class TestModels {
+
+    // Private dummy constructor - prevent to instantiate the class at all
+    private TestModels() {
+    }
+
+    /**
+     * Create a linked model of one BaseVoltage and a number of ACLineSegments
+     * with two Terminals, ConnectivityNodes, TopologicalNodes and SvVoltages
+     * each (rdfids: _BV, _L<line>, _T_L<line>_<side>, _CN_L<line>_<side>, ...).
+     *
+     * @param lines Number of lines
+     * @return      CIM data as map of rdfid to CIM object
+     */
+    public static Map<String, BaseClass> createLines(int lines) {
+        Map<String, BaseClass> model = new LinkedHashMap<>();
+        var baseVoltage = create(model, "BaseVoltage", "_BV");
+        baseVoltage.setAttribute("name", "110 kV");
+        baseVoltage.setAttribute("nominalVoltage", 110.0);
+
+        for (int idx = 0; idx < lines; ++idx) {
+            var line = create(model, "ACLineSegment", "_L" + idx);
+            line.setAttribute("name", "Line " + idx);
+            line.setAttribute("r", 0.5 + idx);
+            line.setAttribute("x", 2.5 + idx);
+            line.setAttribute("BaseVoltage", baseVoltage);
+
+            for (int side = 1; side <= 2; ++side) {
+                String id = "_L" + idx + "_" + side;
+                var node = create(model, "ConnectivityNode", "_CN" + id);
+                node.setAttribute("name", "Node " + idx + "_" + side);
+
+                var topoNode = create(model, "TopologicalNode", "_TN" + id);
+                topoNode.setAttribute("name", "Bus " + idx + "_" + side);
+                topoNode.setAttribute("BaseVoltage", baseVoltage);
+                node.setAttribute("TopologicalNode", topoNode);
+
+                var terminal = create(model, "Terminal", "_T" + id);
+                terminal.setAttribute("name", "Terminal " + side);
+                terminal.setAttribute("sequenceNumber", side);
+                terminal.setAttribute("connected", true);
+                terminal.setAttribute("ConductingEquipment", line);
+                terminal.setAttribute("ConnectivityNode", node);
+                terminal.setAttribute("TopologicalNode", topoNode);
+
+                var voltage = create(model, "SvVoltage", "_SV" + id);
+                voltage.setAttribute("v", 110.0 + side);
+                voltage.setAttribute("angle", -0.5 * side);
+                voltage.setAttribute("TopologicalNode", topoNode);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Create a CIM object and add it to a model.
+     *
+     * @param model     CIM data as map of rdfid to CIM object
+     * @param className The CIM class name
+     * @param rdfid     The RDF ID of the new object
+     * @return          The new CIM object
+     */
+    public static BaseClass create(Map<String, BaseClass> model, String className, String rdfid) {
+        var cimObj = CimClassMap.createCimObject(className, rdfid);
+        model.put(rdfid, cimObj);
+        return cimObj;
+    }
+
+    /**
+     * Write a model as RDF/XML (all profiles in one document).
+     *
+     * @param model CIM data as map of rdfid to CIM object
+     * @return      RDF/XML
+     */
+    public static String toRdf(Map<String, BaseClass> model) {
+        var writer = new RdfWriter();
+        writer.addCimData(model);
+        var stringWriter = new StringWriter();
+        writer.write(stringWriter);
+        return stringWriter.toString();
+    }
+}
@@ -0,0 +1,362 @@
+package cim4j.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import cim4j.BaseClass;
+
+/**
+ * Thread-safe container of a CIM model for long-running services, where
+ * updates (e.g. SSH values) arrive while many threads read the model.
+ *
+ * The objects are kept in a concurrent map of rdfid to CIM object. The access
+ * to the attributes of the objects is protected by striped read-write locks:
+ * each object belongs to one of a fixed number of locks selected by the hash of
+ * its rdfid. So readers never block each other, and readers and writers of
+ * objects of different stripes proceed in parallel.
+ *
+ * Setting a link also updates the inverse attribute of the linked object. A
+ * link which replaces another link (of a class attribute, e.g. the
+ * ConnectivityNode of a Terminal) also removes the stale inverse link of the
+ * previously linked object (e.g. the Terminal from the Terminals of the old
+ * ConnectivityNode). The locks of all these objects are held (acquired in
+ * stripe order to avoid deadlocks). Values of list attributes are returned as
+ * immutable snapshots.
+ *
+ * The CIM objects must only be accessed through this container while it is in
+ * use, e.g. a reference obtained by get must not be modified directly.
+ *
+ * The callbacks of read, update and readAll are called while holding locks, so
+ * they must not access the container again (except by get, size and asMap): a
+ * nested access would acquire further locks out of stripe order and could
+ * deadlock with setAttribute. Such a nested access throws an
+ * IllegalStateException.
+ */
+public final class ConcurrentModel {
+
+    /**
+     * Default number of lock stripes.
+     */
+    public static final int DEFAULT_STRIPES = 256;
+
+    private final Map<String, BaseClass> objects;
+    private final ReadWriteLock[] locks;
+    private final int mask;
+    private final ThreadLocal<Boolean> inCallback = new ThreadLocal<>();
+
+    /**
+     * Create a container with the default number of lock stripes.
+     *
+     * @param model CIM data as map of rdfid to CIM object (the objects are taken
+     *              over, the map is copied)
+     */
+    public ConcurrentModel(Map<String, BaseClass> model) {
+        this(model, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Create a container.
+     *
+     * @param model   CIM data as map of rdfid to CIM object (the objects are taken
+     *                over, the map is copied)
+     * @param stripes Number of lock stripes (rounded up to a power of two)
+     */
+    public ConcurrentModel(Map<String, BaseClass> model, int stripes) {
+        objects = new ConcurrentHashMap<>(model);
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReadWriteLock[count];
+        for (int idx = 0; idx < count; ++idx) {
+            locks[idx] = new ReentrantReadWriteLock();
+        }
+        mask = count - 1;
+    }
+
+    /**
+     * Get the number of objects.
+     *
+     * @return Number of objects
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    /**
+     * Get an object - only for identification (e.g. the type) or as link target,
+     * the attributes have to be accessed by the functions of this container.
+     *
+     * @param rdfid The RDF ID of the CIM object
+     * @return      The object or null
+     */
+    public BaseClass get(String rdfid) {
+        return objects.get(rdfid);
+    }
+
+    /**
+     * Get an unmodifiable view of the map of rdfid to CIM object.
+     *
+     * @return Map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> asMap() {
+        return Collections.unmodifiableMap(objects);
+    }
+
+    /**
+     * Add a new object.
+     *
+     * An object with the rdfid of another object of the container is refused,
+     * because the other objects would keep their links to the replaced object.
+     *
+     * @param object The CIM object
+     * @throws IllegalArgumentException if another object with the same rdfid exists
+     */
+    public void add(BaseClass object) {
+        checkNotInCallback();
+        var lock = lockOf(object.getRdfid()).writeLock();
+        lock.lock();
+        try {
+            var existing = objects.putIfAbsent(object.getRdfid(), object);
+            if (existing != null && existing != object) {
+                throw new IllegalArgumentException("Object with the same rdfid exists: " + existing);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get an attribute value.
+     *
+     * @param rdfid    The RDF ID of the CIM object
+     * @param attrName The attribute name
+     * @return         The attribute value (an immutable snapshot for list
+     *                 attributes) or null if the object is unknown
+     */
+    public Object getAttribute(String rdfid, String attrName) {
+        return read(rdfid, object -> {
+            var value = object.getAttribute(attrName);
+            return value instanceof Set<?> ? Set.copyOf((Set<?>) value) : value;
+        });
+    }
+
+    /**
+     * Read an object while holding its read lock, e.g. to read several attributes
+     * consistently.
+     *
+     * The function must not modify the object, must not keep references to the
+     * list attributes after returning and must not access the container (see
+     * class description).
+     *
+     * @param rdfid    The RDF ID of the CIM object
+     * @param function The function called with the object
+     * @return         The result of the function or null if the object is unknown
+     */
+    public <T> T read(String rdfid, Function<BaseClass, T> function) {
+        checkNotInCallback();
+        var object = objects.get(rdfid);
+        if (object == null) {
+            return null;
+        }
+        var lock = lockOf(rdfid).readLock();
+        lock.lock();
+        inCallback.set(Boolean.TRUE);
+        try {
+            return function.apply(object);
+        } finally {
+            inCallback.remove();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set an attribute value.
+     *
+     * If the value is a CIM object (a link), the inverse attribute of the linked
+     * object is updated too and the stale inverse links of replaced links are
+     * removed, all these objects are locked.
+     *
+     * @param rdfid    The RDF ID of the CIM object
+     * @param attrName The attribute name
+     * @param value    The attribute value
+     * @return         Was the object found?
+     */
+    public boolean setAttribute(String rdfid, String attrName, Object value) {
+        checkNotInCallback();
+        var object = objects.get(rdfid);
+        if (object == null) {
+            return false;
+        }
+        if (value instanceof BaseClass) {
+            setLink(object, attrName, (BaseClass) value);
+        } else {
+            var lock = locks[stripeOf(rdfid)].writeLock();
+            lock.lock();
+            try {
+                object.setAttribute(attrName, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Set a link to the object with an rdfid (including the inverse attribute).
+     *
+     * @param rdfid       The RDF ID of the CIM object
+     * @param attrName    The attribute name
+     * @param targetRdfid The RDF ID of the linked object
+     * @return            Were both objects found?
+     */
+    public boolean link(String rdfid, String attrName, String targetRdfid) {
+        var target = objects.get(targetRdfid);
+        return target != null && setAttribute(rdfid, attrName, target);
+    }
+
+    /**
+     * Modify an object while holding its write lock, e.g. to set several values
+     * of an SSH update at once.
+     *
+     * The function must only modify the object itself, links have to be set by
+     * setAttribute or link because of the inverse attributes. The function must
+     * not access the container (see class description).
+     *
+     * @param rdfid    The RDF ID of the CIM object
+     * @param function The function called with the object
+     * @return         Was the object found?
+     */
+    public boolean update(String rdfid, Consumer<BaseClass> function) {
+        checkNotInCallback();
+        var object = objects.get(rdfid);
+        if (object == null) {
+            return false;
+        }
+        var lock = lockOf(rdfid).writeLock();
+        lock.lock();
+        inCallback.set(Boolean.TRUE);
+        try {
+            function.accept(object);
+        } finally {
+            inCallback.remove();
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Read the whole model while holding all read locks, e.g. to write a
+     * consistent snapshot with RdfWriter. All updates wait until the function
+     * returns. The function must not access the container (see class
+     * description), it reads the objects from the map.
+     *
+     * @param function The function called with the map of rdfid to CIM object
+     * @return         The result of the function
+     */
+    public <T> T readAll(Function<Map<String, BaseClass>, T> function) {
+        checkNotInCallback();
+        int locked = 0;
+        try {
+            for (; locked < locks.length; ++locked) {
+                locks[locked].readLock().lock();
+            }
+            inCallback.set(Boolean.TRUE);
+            return function.apply(Collections.unmodifiableMap(objects));
+        } finally {
+            inCallback.remove();
+            for (int idx = locked - 1; idx >= 0; --idx) {
+                locks[idx].readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Set a link including the inverse link and remove the stale inverse links:
+     *
+     * - for a class attribute: the inverse link of the previously linked object,
+     * - for a class attribute as inverse attribute (one-to-one): the link of the
+     *   object previously linked by the new linked object.
+     *
+     * The previously linked objects are read before locking, so they are checked
+     * again while holding the locks (and the locking is repeated if they changed
+     * in the meantime).
+     */
+    private void setLink(BaseClass object, String attrName, BaseClass target) {
+        String inverseName = object.getInverseAttributeName(attrName);
+        boolean replacing = inverseName != null && !object.isListAttribute(attrName);
+        boolean oneToOne = inverseName != null && !target.isListAttribute(inverseName);
+        while (true) {
+            var oldTarget = replacing ? linkedObject(object, attrName) : null;
+            var oldPartner = oneToOne ? linkedObject(target, inverseName) : null;
+            int[] stripes = lockStripes(object, target, oldTarget, oldPartner);
+            try {
+                if ((replacing && linkedObject(object, attrName) != oldTarget)
+                        || (oneToOne && linkedObject(target, inverseName) != oldPartner)) {
+                    continue;
+                }
+                if (oldTarget != null && oldTarget != target) {
+                    oldTarget.removeAttributeLinkWithoutInverse(inverseName, object);
+                }
+                if (oldPartner != null && oldPartner != object) {
+                    oldPartner.removeAttributeLinkWithoutInverse(attrName, target);
+                }
+                object.setAttribute(attrName, target);
+                return;
+            } finally {
+                for (int idx = stripes.length - 1; idx >= 0; --idx) {
+                    locks[stripes[idx]].writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the object linked by a class attribute (null if not linked or only the
+     * rdfid is known).
+     */
+    private static BaseClass linkedObject(BaseClass object, String attrName) {
+        var value = object.getAttribute(attrName);
+        return value instanceof BaseClass ? (BaseClass) value : null;
+    }
+
+    /**
+     * Acquire the write locks of the objects (null objects are ignored) in stripe
+     * order.
+     *
+     * @return The locked stripes in locking order
+     */
+    private int[] lockStripes(BaseClass... lockedObjects) {
+        int[] stripes = new int[lockedObjects.length];
+        int count = 0;
+        for (var lockedObject : lockedObjects) {
+            if (lockedObject != null) {
+                stripes[count++] = stripeOf(lockedObject.getRdfid());
+            }
+        }
+        stripes = Arrays.stream(stripes, 0, count).sorted().distinct().toArray();
+        for (int stripe : stripes) {
+            locks[stripe].writeLock().lock();
+        }
+        return stripes;
+    }
+
+    private void checkNotInCallback() {
+        if (inCallback.get() != null) {
+            throw new IllegalStateException("Nested access to the model in a callback of read, update or readAll");
+        }
+    }
+
+    private int stripeOf(String rdfid) {
+        int hash = rdfid.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private ReadWriteLock lockOf(String rdfid) {
+        return locks[stripeOf(rdfid)];
+    }
+}
@@ -0,0 +1,349 @@
+package cim4j.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cim4j.BaseClass;
+import cim4j.Logging;
+
+/**
+ * Estimation of the heap memory retained by the objects of each CIM type of a
+ * model.
+ *
+ * The size of a CIM object is computed from the attribute metadata of its type:
+ * each primitive, datatype and enum attribute is one reference field, each
+ * class attribute is a field of the linked object and a field of its rdfid,
+ * each list attribute is a set of the linked objects and a set of their rdfids.
+ * The values are estimated for a sample of the objects of each type and
+ * extrapolated to all objects of the type:
+ *
+ * - boxed Double and Integer values (Boolean values and small Integer values
+ *   are shared constants),
+ * - strings: the rdfid and the string values (each string instance is counted
+ *   once, also if it is referenced by several objects of the sample),
+ * - the sets of the list attributes: a HashSet with its HashMap, table and
+ *   nodes, or the array-backed set of a frozen object.
+ *
+ * The linked objects and enum constants are not counted for the linking
+ * object, the rdfids of linked objects are shared with the linked objects.
+ * The estimates assume the usual layout of a 64-bit HotSpot JVM: 12 byte
+ * object headers, 8 byte alignment and (for heaps below 32 GB) compressed
+ * references of 4 bytes.
+ */
+public final class FootprintAnalyzer {
+
+    private static final Logging LOG = Logging.getLogger(FootprintAnalyzer.class);
+
+    /**
+     * Default number of sampled objects per CIM type.
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final long COMPRESSED_OOPS_LIMIT = 32L * 1024 * 1024 * 1024;
+
+    /**
+     * Estimated footprint of the objects of one CIM type.
+     */
+    public static final class TypeFootprint {
+        private final String cimType;
+        private final long count;
+        private final long sampledCount;
+        private final long objectBytes;
+        private final long boxedBytes;
+        private final long stringBytes;
+        private final long setBytes;
+
+        TypeFootprint(String cimType, long count, long sampledCount, long objectBytes, long boxedBytes,
+                long stringBytes, long setBytes) {
+            this.cimType = cimType;
+            this.count = count;
+            this.sampledCount = sampledCount;
+            this.objectBytes = objectBytes;
+            this.boxedBytes = boxedBytes;
+            this.stringBytes = stringBytes;
+            this.setBytes = setBytes;
+        }
+
+        public String getCimType() {
+            return cimType;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSampledCount() {
+            return sampledCount;
+        }
+
+        /**
+         * Get the bytes of the CIM objects themselves (headers and fields).
+         *
+         * @return The estimated bytes
+         */
+        public long getObjectBytes() {
+            return objectBytes;
+        }
+
+        public long getBoxedBytes() {
+            return boxedBytes;
+        }
+
+        public long getStringBytes() {
+            return stringBytes;
+        }
+
+        /**
+         * Get the bytes of the sets of the list attributes (linked objects and
+         * rdfids).
+         *
+         * @return The estimated bytes
+         */
+        public long getSetBytes() {
+            return setBytes;
+        }
+
+        public long getTotalBytes() {
+            return objectBytes + boxedBytes + stringBytes + setBytes;
+        }
+    }
+
+    /**
+     * Estimated footprint of a model.
+     */
+    public static final class Report {
+        private final List<TypeFootprint> types;
+
+        Report(List<TypeFootprint> types) {
+            this.types = Collections.unmodifiableList(types);
+        }
+
+        /**
+         * Get the footprints of the CIM types.
+         *
+         * @return The footprints sorted by total bytes (largest first)
+         */
+        public List<TypeFootprint> getTypes() {
+            return types;
+        }
+
+        public long getTotalBytes() {
+            long total = 0;
+            for (var type : types) {
+                total += type.getTotalBytes();
+            }
+            return total;
+        }
+
+        /**
+         * Get a table of the footprints (in KByte).
+         *
+         * @return One line per CIM type and one line with the totals
+         */
+        public String getSummary() {
+            var sb = new StringBuilder();
+            sb.append(String.format("%-40s %10s %10s %10s %10s %10s %10s%n", "CIM type", "Count", "Objects",
+                    "Boxed", "Strings", "Sets", "Total"));
+            long count = 0;
+            long objects = 0;
+            long boxed = 0;
+            long strings = 0;
+            long sets = 0;
+            for (var type : types) {
+                appendLine(sb, type.cimType, type.count, type.objectBytes, type.boxedBytes, type.stringBytes,
+                        type.setBytes);
+                count += type.count;
+                objects += type.objectBytes;
+                boxed += type.boxedBytes;
+                strings += type.stringBytes;
+                sets += type.setBytes;
+            }
+            appendLine(sb, "Total (KByte)", count, objects, boxed, strings, sets);
+            return sb.toString();
+        }
+
+        private static void appendLine(StringBuilder sb, String name, long count, long objects, long boxed,
+                long strings, long sets) {
+            sb.append(String.format("%-40s %10d %10d %10d %10d %10d %10d%n", name, count, objects / 1024,
+                    boxed / 1024, strings / 1024, sets / 1024, (objects + boxed + strings + sets) / 1024));
+        }
+    }
+
+    private int sampleSize = DEFAULT_SAMPLE_SIZE;
+    private boolean compressedOops = Runtime.getRuntime().maxMemory() < COMPRESSED_OOPS_LIMIT;
+
+    /**
+     * Set the number of sampled objects per CIM type.
+     *
+     * @param sampleSize Number of objects (0: all objects)
+     */
+    public void setSampleSize(int sampleSize) {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("Invalid sample size: " + sampleSize);
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Set the size of references (default: compressed references if the maximum
+     * heap is below 32 GB).
+     *
+     * @param compressedOops Are the references compressed (4 bytes)?
+     */
+    public void setCompressedOops(boolean compressedOops) {
+        this.compressedOops = compressedOops;
+    }
+
+    /**
+     * Estimate the footprint of a model.
+     *
+     * @param cimData CIM data as map of rdfid to CIM object
+     * @return        The report of the footprints per CIM type
+     */
+    public Report analyze(Map<String, BaseClass> cimData) {
+        Map<String, List<BaseClass>> typeObjects = new LinkedHashMap<>();
+        for (var cimObj : cimData.values()) {
+            typeObjects.computeIfAbsent(cimObj.getCimType(), k -> new ArrayList<>()).add(cimObj);
+        }
+        var types = new ArrayList<TypeFootprint>();
+        for (var entry : typeObjects.entrySet()) {
+            types.add(analyzeType(entry.getKey(), entry.getValue()));
+        }
+        types.sort((type1, type2) -> Long.compare(type2.getTotalBytes(), type1.getTotalBytes()));
+        var report = new Report(types);
+        LOG.info("Estimated footprint of %d CIM objects: %d KByte", cimData.size(), report.getTotalBytes() / 1024);
+        return report;
+    }
+
+    private TypeFootprint analyzeType(String cimType, List<BaseClass> objects) {
+        int refSize = compressedOops ? 4 : 8;
+        var prototype = objects.get(0);
+        var attrNames = prototype.getAttributeNames();
+
+        // Fields of BaseClass: cimType, rdfid, frozen
+        long fieldBytes = 2L * refSize + 1;
+        for (String attrName : attrNames) {
+            boolean link = !prototype.isPrimitiveAttribute(attrName) && !prototype.isEnumAttribute(attrName);
+            fieldBytes += link ? 2L * refSize : refSize;
+        }
+        long objectSize = align(OBJECT_HEADER + fieldBytes);
+
+        int count = objects.size();
+        int sampled = sampleSize == 0 ? count : Math.min(sampleSize, count);
+        // Every n-th object, so the sample is spread over the model
+        double step = (double) count / sampled;
+        Set<Object> seenStrings = Collections.newSetFromMap(new IdentityHashMap<>());
+        long boxed = 0;
+        long strings = 0;
+        long sets = 0;
+        for (int idx = 0; idx < sampled; ++idx) {
+            var cimObj = objects.get((int) (idx * step));
+            strings += stringSize(cimObj.getRdfid(), seenStrings);
+            for (String attrName : attrNames) {
+                Object value = cimObj.getAttribute(attrName);
+                if (prototype.isListAttribute(attrName)) {
+                    sets += listSize(cimObj, (Collection<?>) value, refSize, seenStrings);
+                } else if (value instanceof String) {
+                    strings += stringSize((String) value, seenStrings);
+                } else if (value instanceof Double) {
+                    boxed += align(OBJECT_HEADER + 8);
+                } else if (value instanceof Integer) {
+                    int intValue = (Integer) value;
+                    if (intValue < -128 || intValue > 127) {
+                        boxed += align(OBJECT_HEADER + 4);
+                    }
+                }
+            }
+        }
+        double factor = sampled > 0 ? (double) count / sampled : 0;
+        return new TypeFootprint(cimType, count, sampled, objectSize * count, Math.round(boxed * factor),
+                Math.round(strings * factor), Math.round(sets * factor));
+    }
+
+    /**
+     * Get the size of a list attribute: the set of the linked objects and the set
+     * of their rdfids.
+     */
+    private long listSize(BaseClass cimObj, Collection<?> value, int refSize, Set<Object> seenStrings) {
+        boolean resolved = value.isEmpty() || value.iterator().next() instanceof BaseClass;
+        long size = 0;
+        if (!resolved) {
+            // Unresolved links: the returned set contains the own rdfid strings
+            for (Object element : value) {
+                size += stringSize((String) element, seenStrings);
+            }
+        }
+        if (value instanceof HashSet) {
+            size += hashSetSize(value.size(), refSize);
+            // The other set: the rdfids of the linked objects or the resolved objects
+            size += hashSetSize(resolved ? value.size() : 0, refSize);
+        } else {
+            size += setSize(value, refSize);
+            if (!cimObj.isFrozen()) {
+                size += hashSetSize(resolved ? value.size() : 0, refSize);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the size of a HashSet: the set, its HashMap, the table and the nodes.
+     */
+    private static long hashSetSize(int elements, int refSize) {
+        long size = align(OBJECT_HEADER + refSize);
+        size += align(OBJECT_HEADER + 4L * refSize + 3 * 4 + 4);
+        if (elements > 0) {
+            int capacity = 16;
+            while (elements > capacity * 3 / 4) {
+                capacity *= 2;
+            }
+            size += align(ARRAY_HEADER + (long) capacity * refSize);
+            size += elements * align(OBJECT_HEADER + 4 + 3L * refSize);
+        }
+        return size;
+    }
+
+    /**
+     * Get the size of another set: shared empty sets or the array-backed sets of
+     * frozen objects (with the sorted hash index for more than 8 elements).
+     */
+    private static long setSize(Collection<?> value, int refSize) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        long size = align(OBJECT_HEADER + 2L * refSize);
+        size += align(ARRAY_HEADER + (long) value.size() * refSize);
+        if (value.size() > 8) {
+            size += align(ARRAY_HEADER + 4L * value.size());
+        }
+        return size;
+    }
+
+    /**
+     * Get the size of a string (if not seen before): the String object and its
+     * byte array (Latin-1 or UTF-16).
+     */
+    private static long stringSize(String value, Set<Object> seenStrings) {
+        if (value == null || !seenStrings.add(value)) {
+            return 0;
+        }
+        boolean latin1 = true;
+        for (int idx = 0; idx < value.length() && latin1; ++idx) {
+            latin1 = value.charAt(idx) < 256;
+        }
+        return align(OBJECT_HEADER + 4 + 1 + 1 + 4) + align(ARRAY_HEADER + (long) value.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,74 @@
+package cim4j.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cim4j.BaseClass;
+import cim4j.Logging;
+
+/**
+ * Immutable, read-optimized snapshot of a CIM model.
+ *
+ * All objects are frozen (see BaseClass.freeze): the list attributes are
+ * stored in compact array-backed unmodifiable sets, the rdfids of resolved
+ * links are dropped and all setters throw an UnsupportedOperationException.
+ *
+ * The snapshot is published safely by its final fields, so it can be shared
+ * with any number of threads which read the model in parallel without locks.
+ */
+public final class FrozenModel {
+
+    private static final Logging LOG = Logging.getLogger(FrozenModel.class);
+
+    private final Map<String, BaseClass> objects;
+
+    private FrozenModel(Map<String, BaseClass> objects) {
+        this.objects = objects;
+    }
+
+    /**
+     * Freeze a loaded model.
+     *
+     * The objects are frozen in place (in parallel), so the model must not be
+     * modified any more, e.g. by an RdfReader which reads additional files.
+     *
+     * @param model CIM data as map of rdfid to CIM object
+     * @return      The frozen snapshot
+     */
+    public static FrozenModel freeze(Map<String, BaseClass> model) {
+        long start = System.nanoTime();
+        model.values().parallelStream().forEach(BaseClass::freeze);
+        var frozenModel = new FrozenModel(Collections.unmodifiableMap(new LinkedHashMap<>(model)));
+        LOG.info("Froze %d objects in %d ms", model.size(), (System.nanoTime() - start) / 1000000);
+        return frozenModel;
+    }
+
+    /**
+     * Get the number of objects.
+     *
+     * @return Number of objects
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    /**
+     * Get an object.
+     *
+     * @param rdfid The RDF ID of the CIM object
+     * @return      The frozen object or null
+     */
+    public BaseClass get(String rdfid) {
+        return objects.get(rdfid);
+    }
+
+    /**
+     * Get the model in the order of the original model, e.g. for RdfWriter.
+     *
+     * @return Unmodifiable map of rdfid to frozen CIM object
+     */
+    public Map<String, BaseClass> asMap() {
+        return objects;
+    }
+}
@@ -0,0 +1,115 @@
+package cim4j.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.Logging;
+
+/**
+ * On-demand loading of the models of a ModelIndex.
+ *
+ * The files of a model are only read when its data is first needed, e.g. when
+ * a profile is required. All models the required models depend on are loaded
+ * first (dependency order). All loaded models are added to one CIM model, the
+ * objects of the later loaded models are linked to the objects of the already
+ * loaded models.
+ *
+ * A loader is not thread-safe.
+ */
+public final class LazyModelLoader {
+
+    private static final Logging LOG = Logging.getLogger(LazyModelLoader.class);
+
+    private final ModelIndex index;
+    private final RdfReader reader;
+    private final Set<String> loadedModelIds = new LinkedHashSet<>();
+    private Map<String, BaseClass> model = Collections.emptyMap();
+
+    /**
+     * Create a loader.
+     *
+     * @param index  Index of the models which can be loaded
+     * @param reader Reader used for loading (with the options of the reader, e.g.
+     *               a string pool or a projection)
+     */
+    public LazyModelLoader(ModelIndex index, RdfReader reader) {
+        this.index = index;
+        this.reader = reader;
+    }
+
+    /**
+     * Load all models with one of the profiles (and the models they depend on)
+     * which are not yet loaded.
+     *
+     * @param profiles The required profiles
+     * @return         CIM data of all loaded models as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> require(CGMESProfile... profiles) {
+        var modelIds = new ArrayList<String>();
+        for (CGMESProfile profile : profiles) {
+            for (var header : index.getHeaders(profile)) {
+                modelIds.add(header.getModelId());
+            }
+        }
+        return requireModels(modelIds);
+    }
+
+    /**
+     * Load the models (and the models they depend on) which are not yet loaded.
+     *
+     * @param modelIds The ids of the required models
+     * @return         CIM data of all loaded models as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> requireModels(Collection<String> modelIds) {
+        List<String> pathList = new ArrayList<>();
+        List<String> newModelIds = new ArrayList<>();
+        for (var header : index.getLoadOrder(modelIds)) {
+            if (!loadedModelIds.contains(header.getModelId())) {
+                pathList.add(header.getPath());
+                newModelIds.add(header.getModelId());
+            }
+        }
+        if (pathList.isEmpty()) {
+            return model;
+        }
+        LOG.info("Loading %d models: %s", newModelIds.size(), newModelIds);
+        model = loadedModelIds.isEmpty() ? reader.read(pathList) : reader.readAdditional(pathList);
+        loadedModelIds.addAll(newModelIds);
+        return model;
+    }
+
+    /**
+     * Is the model loaded?
+     *
+     * @param modelId The model id
+     * @return        Is the model loaded?
+     */
+    public boolean isLoaded(String modelId) {
+        return loadedModelIds.contains(modelId);
+    }
+
+    /**
+     * Get the ids of the loaded models in load order.
+     *
+     * @return Set of model ids
+     */
+    public Set<String> getLoadedModelIds() {
+        return Collections.unmodifiableSet(loadedModelIds);
+    }
+
+    /**
+     * Get the CIM data of all loaded models.
+     *
+     * @return CIM data as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> getModel() {
+        return model;
+    }
+}
@@ -0,0 +1,541 @@
+package cim4j.utils;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import cim4j.BaseClass;
+import cim4j.CimConstants;
+import cim4j.CimEnum;
+import cim4j.Logging;
+
+/**
+ * Structural diff between two versions of a CIM model.
+ *
+ * The objects are compared by rdfid and by the values of the used attributes
+ * (the attributes written to RDF). Links are compared by the rdfids of the
+ * linked objects, so a resolved and an unresolved link to the same rdfid are
+ * equal. The objects are split into partitions which are compared in parallel.
+ * The same object instance in both models (e.g. the shared objects of an
+ * overlay model) is unchanged without comparison. For the other objects found
+ * in both models a 64-bit content hash of the type and the attribute values is
+ * computed once per object. Objects with the same hash are unchanged, only
+ * objects with different hashes are compared attribute by attribute. With
+ * setVerifyHashMatches(true) objects with the same hash are compared as well,
+ * so that even a hash collision (probability about 2^-64 per object) cannot
+ * hide a change.
+ *
+ * The result can be written as CGMES difference model (IEC 61970-552): the
+ * forward differences contain the added objects and the new values of the
+ * changed attributes, the reverse differences contain the removed objects and
+ * the old values of the changed attributes.
+ *
+ * The models must not be modified during the comparison.
+ */
+public final class ModelDiff {
+
+    private static final Logging LOG = Logging.getLogger(ModelDiff.class);
+
+    /**
+     * Namespace of the difference model.
+     */
+    public static final String DM_NAMESPACE = "http://iec.ch/TC57/61970-552/DifferenceModel/1#";
+
+    private static final int MIN_PARTITION_SIZE = 1024;
+
+    /**
+     * Kind of change of an object.
+     */
+    public enum ChangeKind {
+        /** Object only in the new model */
+        ADDED,
+        /** Object only in the old model */
+        REMOVED,
+        /** Object with the same type and different attribute values */
+        CHANGED,
+        /** Object with a different type */
+        TYPE_CHANGED
+    }
+
+    /**
+     * Change of one object.
+     */
+    public static final class ObjectChange {
+        private final ChangeKind kind;
+        private final String rdfid;
+        private final BaseClass oldObject;
+        private final BaseClass newObject;
+        private final List<String> changedAttributes;
+
+        ObjectChange(ChangeKind kind, String rdfid, BaseClass oldObject, BaseClass newObject,
+                List<String> changedAttributes) {
+            this.kind = kind;
+            this.rdfid = rdfid;
+            this.oldObject = oldObject;
+            this.newObject = newObject;
+            this.changedAttributes = changedAttributes;
+        }
+
+        public ChangeKind getKind() {
+            return kind;
+        }
+
+        public String getRdfid() {
+            return rdfid;
+        }
+
+        /**
+         * Get the object of the old model.
+         *
+         * @return The old object (null for added objects)
+         */
+        public BaseClass getOldObject() {
+            return oldObject;
+        }
+
+        /**
+         * Get the object of the new model.
+         *
+         * @return The new object (null for removed objects)
+         */
+        public BaseClass getNewObject() {
+            return newObject;
+        }
+
+        /**
+         * Get the names of the changed attributes.
+         *
+         * @return The attribute names (all attributes with a value in one of the
+         *         objects for added, removed or retyped objects)
+         */
+        public List<String> getChangedAttributes() {
+            return changedAttributes;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + rdfid + (kind == ChangeKind.CHANGED ? " " + changedAttributes : "");
+        }
+    }
+
+    /**
+     * Result of a comparison.
+     */
+    public static final class Result {
+        private final List<ObjectChange> changes;
+        private final long unchangedCount;
+        private final long hashMatchCount;
+
+        Result(List<ObjectChange> changes, long unchangedCount, long hashMatchCount) {
+            this.changes = Collections.unmodifiableList(changes);
+            this.unchangedCount = unchangedCount;
+            this.hashMatchCount = hashMatchCount;
+        }
+
+        /**
+         * Get the changes: first the added and changed objects in the order of the
+         * new model, then the removed objects in the order of the old model.
+         *
+         * @return The changes of all objects
+         */
+        public List<ObjectChange> getChanges() {
+            return changes;
+        }
+
+        /**
+         * Get the number of changes of a kind.
+         *
+         * @param kind The kind of change
+         * @return     The number of changed objects
+         */
+        public long getCount(ChangeKind kind) {
+            return changes.stream().filter(change -> change.kind == kind).count();
+        }
+
+        public long getUnchangedCount() {
+            return unchangedCount;
+        }
+
+        /**
+         * Get the number of objects found unchanged by the content hash.
+         *
+         * @return The number of objects with the same content hash in both models
+         */
+        public long getHashMatchCount() {
+            return hashMatchCount;
+        }
+
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+    }
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean verifyHashMatches = false;
+
+    /**
+     * Set the number of threads for the comparison.
+     *
+     * @param parallelism Number of threads (default: number of processors)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Compare the attributes of objects with the same content hash as well.
+     *
+     * @param verifyHashMatches Compare objects with the same content hash? (default: false)
+     */
+    public void setVerifyHashMatches(boolean verifyHashMatches) {
+        this.verifyHashMatches = verifyHashMatches;
+    }
+
+    /**
+     * Compare two versions of a model.
+     *
+     * @param oldModel The old model as map of rdfid to CIM object
+     * @param newModel The new model as map of rdfid to CIM object
+     * @return         The changes
+     */
+    public Result compare(Map<String, BaseClass> oldModel, Map<String, BaseClass> newModel) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            var thread = new Thread(runnable, "cim4j-diff");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long start = System.nanoTime();
+            var newIds = new ArrayList<>(newModel.keySet());
+            var oldIds = new ArrayList<>(oldModel.keySet());
+            int partitionSize = Math.max(MIN_PARTITION_SIZE, newIds.size() / (parallelism * 4) + 1);
+
+            var tasks = new ArrayList<Callable<Partition>>();
+            for (int from = 0; from < newIds.size(); from += partitionSize) {
+                var ids = newIds.subList(from, Math.min(from + partitionSize, newIds.size()));
+                tasks.add(() -> compareNewObjects(ids, oldModel, newModel, verifyHashMatches));
+            }
+            for (int from = 0; from < oldIds.size(); from += partitionSize) {
+                var ids = oldIds.subList(from, Math.min(from + partitionSize, oldIds.size()));
+                tasks.add(() -> findRemovedObjects(ids, oldModel, newModel));
+            }
+
+            var changes = new ArrayList<ObjectChange>();
+            long unchangedCount = 0;
+            long hashMatchCount = 0;
+            for (Future<Partition> future : executor.invokeAll(tasks)) {
+                var partition = getResult(future);
+                changes.addAll(partition.changes);
+                unchangedCount += partition.unchangedCount;
+                hashMatchCount += partition.hashMatchCount;
+            }
+            var result = new Result(changes, unchangedCount, hashMatchCount);
+            LOG.info("Compared %d with %d objects: %d added, %d removed, %d changed, %d retyped, %d unchanged (%d ms)",
+                    oldModel.size(), newModel.size(), result.getCount(ChangeKind.ADDED),
+                    result.getCount(ChangeKind.REMOVED), result.getCount(ChangeKind.CHANGED),
+                    result.getCount(ChangeKind.TYPE_CHANGED), unchangedCount, (System.nanoTime() - start) / 1000000);
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            String txt = "Interrupted while comparing models";
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Write the changes as CGMES difference model.
+     *
+     * @param result  The result of a comparison
+     * @param path    The file to write
+     * @param modelId The ID of the difference model
+     */
+    public void writeDifferenceModel(Result result, String path, String modelId) {
+        try (var writer = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8))) {
+            writeDifferenceModel(result, writer, modelId);
+        } catch (Exception ex) {
+            String txt = "Failed to write difference model: " + path;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+    }
+
+    /**
+     * Write the changes as CGMES difference model.
+     *
+     * @param result       The result of a comparison
+     * @param streamWriter The writer of the difference model
+     * @param modelId      The ID of the difference model
+     */
+    public void writeDifferenceModel(Result result, Writer streamWriter, String modelId) {
+        final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
+        try {
+            var writer = XMLOutputFactory.newInstance().createXMLStreamWriter(streamWriter);
+            writer.writeStartDocument("utf-8", "1.0");
+            writer.writeCharacters("\n");
+
+            var namespaces = new TreeMap<>(CimConstants.NAMESPACES_MAP);
+            namespaces.put("dm", DM_NAMESPACE);
+            for (var entry : namespaces.entrySet()) {
+                writer.setPrefix(entry.getKey(), entry.getValue());
+            }
+            writer.writeStartElement(RDF, "RDF");
+            for (var entry : namespaces.entrySet()) {
+                writer.writeNamespace(entry.getKey(), entry.getValue());
+            }
+            writer.writeCharacters("\n  ");
+            writer.writeStartElement(DM_NAMESPACE, "DifferenceModel");
+            writer.writeAttribute(RDF, "about", "#" + modelId);
+
+            writeDifferences(writer, "forwardDifferences", result, true);
+            writeDifferences(writer, "reverseDifferences", result, false);
+
+            writer.writeCharacters("\n  ");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException ex) {
+            String txt = "Error while writing difference model";
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+    }
+
+    /**
+     * Compute the content hash of an object: a 64-bit hash of the type and the
+     * values of the used attributes (links by the rdfids of the linked objects,
+     * lists independent of the order).
+     *
+     * Objects with equal attribute values have the same content hash.
+     *
+     * @param cimObj The CIM object
+     * @return       The content hash
+     */
+    public static long contentHash(BaseClass cimObj) {
+        long hash = hash64(cimObj.getCimType());
+        for (String attrName : cimObj.getAttributeNames()) {
+            if (cimObj.isUsedAttribute(attrName)) {
+                Object value = cimObj.getAttribute(attrName);
+                if (value != null && !(value instanceof Collection<?> && ((Collection<?>) value).isEmpty())) {
+                    hash = mix(hash ^ attrName.hashCode()) + valueHash(value);
+                }
+            }
+        }
+        return mix(hash);
+    }
+
+    private static Partition compareNewObjects(List<String> ids, Map<String, BaseClass> oldModel,
+            Map<String, BaseClass> newModel, boolean verifyHashMatches) {
+        var partition = new Partition();
+        for (String rdfid : ids) {
+            var newObject = newModel.get(rdfid);
+            var oldObject = oldModel.get(rdfid);
+            if (oldObject == null) {
+                partition.changes.add(new ObjectChange(ChangeKind.ADDED, rdfid, null, newObject,
+                        usedAttributes(newObject)));
+            } else if (!oldObject.getCimType().equals(newObject.getCimType())) {
+                var attrNames = new ArrayList<>(usedAttributes(oldObject));
+                for (String attrName : usedAttributes(newObject)) {
+                    if (!attrNames.contains(attrName)) {
+                        attrNames.add(attrName);
+                    }
+                }
+                partition.changes.add(new ObjectChange(ChangeKind.TYPE_CHANGED, rdfid, oldObject, newObject,
+                        attrNames));
+            } else if (oldObject == newObject) {
+                ++partition.unchangedCount;
+            } else {
+                boolean hashMatch = contentHash(oldObject) == contentHash(newObject);
+                List<String> attrNames = hashMatch && !verifyHashMatches ? List.of()
+                        : changedAttributes(oldObject, newObject);
+                if (attrNames.isEmpty()) {
+                    ++partition.unchangedCount;
+                    if (hashMatch) {
+                        ++partition.hashMatchCount;
+                    }
+                } else {
+                    partition.changes.add(new ObjectChange(ChangeKind.CHANGED, rdfid, oldObject, newObject,
+                            attrNames));
+                }
+            }
+        }
+        return partition;
+    }
+
+    private static Partition findRemovedObjects(List<String> ids, Map<String, BaseClass> oldModel,
+            Map<String, BaseClass> newModel) {
+        var partition = new Partition();
+        for (String rdfid : ids) {
+            if (!newModel.containsKey(rdfid)) {
+                var oldObject = oldModel.get(rdfid);
+                partition.changes.add(new ObjectChange(ChangeKind.REMOVED, rdfid, oldObject, null,
+                        usedAttributes(oldObject)));
+            }
+        }
+        return partition;
+    }
+
+    private static List<String> changedAttributes(BaseClass oldObject, BaseClass newObject) {
+        var attrNames = new ArrayList<String>();
+        for (String attrName : newObject.getAttributeNames()) {
+            if (newObject.isUsedAttribute(attrName)
+                    && !sameValue(oldObject.getAttribute(attrName), newObject.getAttribute(attrName))) {
+                attrNames.add(attrName);
+            }
+        }
+        return attrNames;
+    }
+
+    private static List<String> usedAttributes(BaseClass cimObj) {
+        var attrNames = new ArrayList<String>();
+        for (String attrName : cimObj.getAttributeNames()) {
+            if (cimObj.isUsedAttribute(attrName) && cimObj.getAttribute(attrName) != null) {
+                attrNames.add(attrName);
+            }
+        }
+        return attrNames;
+    }
+
+    static boolean sameValue(Object oldValue, Object newValue) {
+        return oldValue == newValue || Objects.equals(normalize(oldValue), normalize(newValue));
+    }
+
+    /**
+     * Get a comparable value: rdfids for links, resource names for enums.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof BaseClass) {
+            return ((BaseClass) value).getRdfid();
+        } else if (value instanceof CimEnum) {
+            return ((CimEnum) value).getResourceName();
+        } else if (value instanceof Collection<?>) {
+            var ids = new HashSet<Object>();
+            for (Object element : (Collection<?>) value) {
+                ids.add(normalize(element));
+            }
+            return ids.isEmpty() ? null : ids;
+        }
+        return value;
+    }
+
+    private static long valueHash(Object value) {
+        if (value instanceof BaseClass) {
+            return hash64(((BaseClass) value).getRdfid());
+        } else if (value instanceof String) {
+            return hash64((String) value);
+        } else if (value instanceof CimEnum) {
+            return hash64(((CimEnum) value).getResourceName());
+        } else if (value instanceof Double) {
+            return mix(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Collection<?>) {
+            // Sum of the element hashes: independent of the order
+            long hash = 0;
+            for (Object element : (Collection<?>) value) {
+                hash += mix(valueHash(element));
+            }
+            return hash;
+        }
+        return mix(value.hashCode());
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the chars of a string.
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int idx = 0; idx < value.length(); ++idx) {
+            hash ^= value.charAt(idx);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalizer of SplitMix64: spreads the bits of a hash.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static void writeDifferences(XMLStreamWriter writer, String name, Result result, boolean forward)
+            throws XMLStreamException {
+        final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
+
+        writer.writeCharacters("\n    ");
+        writer.writeStartElement(DM_NAMESPACE, name);
+        writer.writeAttribute(RDF, "parseType", "Statements");
+        for (var change : result.getChanges()) {
+            var cimObj = forward ? change.newObject : change.oldObject;
+            if (cimObj == null) {
+                continue;
+            }
+            writer.writeCharacters("\n      ");
+            if (change.kind == ChangeKind.CHANGED) {
+                writer.writeStartElement(RDF, "Description");
+            } else {
+                writer.writeStartElement(cimObj.getClassNamespaceUrl(), cimObj.getCimType());
+            }
+            writer.writeAttribute(RDF, "about", "#" + change.rdfid);
+            for (String attrName : change.changedAttributes) {
+                if (cimObj.getAttributeNames().contains(attrName)) {
+                    Object attr = cimObj.getAttribute(attrName);
+                    if (attr != null && !(attr instanceof Collection<?> && ((Collection<?>) attr).isEmpty())) {
+                        RdfWriter.writeAttribute(writer, "\n        ", cimObj, attrName, attr);
+                    }
+                }
+            }
+            writer.writeCharacters("\n      ");
+            writer.writeEndElement();
+        }
+        writer.writeCharacters("\n    ");
+        writer.writeEndElement();
+    }
+
+    private static Partition getResult(Future<Partition> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            String txt = "Error while comparing models";
+            LOG.error(txt, ex.getCause());
+            throw new RuntimeException(txt, ex.getCause());
+        }
+    }
+
+    /**
+     * Changes found in a partition of the objects.
+     */
+    private static final class Partition {
+        private final List<ObjectChange> changes = new ArrayList<>();
+        private long unchangedCount = 0;
+        private long hashMatchCount = 0;
+    }
+}
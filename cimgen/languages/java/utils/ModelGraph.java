@@ -0,0 +1,360 @@
+package cim4j.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import cim4j.BaseClass;
+import cim4j.Logging;
+
+/**
+ * Reference graph of a CIM model as plain arrays.
+ *
+ * Every CIM object of the model gets a dense int id. The ids are grouped by CIM
+ * type: all objects of one type have consecutive ids, the types are sorted by
+ * name and the objects of a type keep the order of the model.
+ *
+ * All class and list attributes (links to other CIM objects) are exported as
+ * edges in CSR (compressed sparse row) format: the edges of object i are stored
+ * at the positions getEdgeOffsets()[i] to getEdgeOffsets()[i + 1] - 1 of the
+ * arrays getEdgeTargets() and getEdgeLabels(). The label of an edge is the
+ * ordinal of the attribute full name (e.g. "Terminal.ConductingEquipment") in
+ * getAttributeNames().
+ *
+ * Links to rdfids which are not part of the model are not exported.
+ */
+public final class ModelGraph {
+
+    private static final Logging LOG = Logging.getLogger(ModelGraph.class);
+
+    private final BaseClass[] objects;
+    private final int[] typeOfObject;
+    private final List<String> types;
+    private final int[] typeOffsets;
+    private final List<String> attributeNames;
+    private final Map<String, Integer> attributeOrdinals;
+    private final IdIndex idIndex;
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final int[] edgeLabels;
+
+    /**
+     * Build the reference graph of a CIM model.
+     *
+     * The edge arrays are built in parallel, the model must not be modified during
+     * the build.
+     *
+     * @param model CIM data as map of rdfid to CIM object
+     * @return      The reference graph
+     */
+    public static ModelGraph build(Map<String, BaseClass> model) {
+        return new ModelGraph(model);
+    }
+
+    private ModelGraph(Map<String, BaseClass> model) {
+        // Group the objects by CIM type
+        Map<String, List<BaseClass>> objectsByType = new TreeMap<>();
+        for (BaseClass cimObj : model.values()) {
+            objectsByType.computeIfAbsent(cimObj.getCimType(), k -> new ArrayList<>()).add(cimObj);
+        }
+
+        // Number the objects and collect the link attributes of all types
+        int count = model.size();
+        objects = new BaseClass[count];
+        typeOfObject = new int[count];
+        typeOffsets = new int[objectsByType.size() + 1];
+        idIndex = new IdIndex(count);
+        var typeList = new ArrayList<String>(objectsByType.size());
+        var typeLinkAttrs = new ArrayList<String[]>(objectsByType.size());
+        Set<String> allAttrFullNames = new TreeSet<>();
+        int id = 0;
+        for (var entry : objectsByType.entrySet()) {
+            int typeIdx = typeList.size();
+            typeList.add(entry.getKey());
+            typeOffsets[typeIdx] = id;
+            for (BaseClass cimObj : entry.getValue()) {
+                objects[id] = cimObj;
+                typeOfObject[id] = typeIdx;
+                idIndex.put(cimObj.getRdfid(), id);
+                ++id;
+            }
+            String[] linkAttrs = getLinkAttributes(entry.getValue().get(0));
+            typeLinkAttrs.add(linkAttrs);
+            for (String attrName : linkAttrs) {
+                allAttrFullNames.add(entry.getValue().get(0).getAttributeFullName(attrName));
+            }
+        }
+        typeOffsets[typeList.size()] = id;
+        types = Collections.unmodifiableList(typeList);
+
+        // Number the attributes
+        attributeNames = List.copyOf(allAttrFullNames);
+        Map<String, Integer> ordinals = new LinkedHashMap<>();
+        for (String fullName : attributeNames) {
+            ordinals.put(fullName, ordinals.size());
+        }
+        attributeOrdinals = Collections.unmodifiableMap(ordinals);
+
+        // Attribute labels per type (same order as the link attributes of the type)
+        var typeLinkLabels = new ArrayList<int[]>(typeList.size());
+        for (int typeIdx = 0; typeIdx < typeList.size(); ++typeIdx) {
+            String[] linkAttrs = typeLinkAttrs.get(typeIdx);
+            BaseClass sample = objects[typeOffsets[typeIdx]];
+            int[] labels = new int[linkAttrs.length];
+            for (int idx = 0; idx < linkAttrs.length; ++idx) {
+                labels[idx] = attributeOrdinals.get(sample.getAttributeFullName(linkAttrs[idx]));
+            }
+            typeLinkLabels.add(labels);
+        }
+
+        // First pass: count the edges of each object
+        edgeOffsets = new int[count + 1];
+        IntStream.range(0, count).parallel().forEach(obj -> edgeOffsets[obj + 1] = visitEdges(obj,
+                typeLinkAttrs.get(typeOfObject[obj]), null, null, null, 0));
+        for (int obj = 0; obj < count; ++obj) {
+            edgeOffsets[obj + 1] += edgeOffsets[obj];
+        }
+
+        // Second pass: fill the edge arrays
+        edgeTargets = new int[edgeOffsets[count]];
+        edgeLabels = new int[edgeOffsets[count]];
+        IntStream.range(0, count).parallel().forEach(obj -> {
+            int typeIdx = typeOfObject[obj];
+            visitEdges(obj, typeLinkAttrs.get(typeIdx), typeLinkLabels.get(typeIdx), edgeTargets, edgeLabels,
+                    edgeOffsets[obj]);
+        });
+
+        LOG.info("Built reference graph with %d objects of %d types and %d edges", count,
+                types.size(), edgeTargets.length);
+    }
+
+    /**
+     * Count the edges of an object and store them if the target and label arrays are given.
+     *
+     * @return Number of edges
+     */
+    private int visitEdges(int obj, String[] linkAttrs, int[] labels, int[] targets, int[] targetLabels,
+            int offset) {
+        BaseClass cimObj = objects[obj];
+        int pos = offset;
+        for (int idx = 0; idx < linkAttrs.length; ++idx) {
+            Object attr = cimObj.getAttribute(linkAttrs[idx]);
+            if (attr instanceof Set<?>) {
+                for (var attrItem : (Set<?>) attr) {
+                    int target = getTargetId(attrItem);
+                    if (target >= 0) {
+                        if (targets != null) {
+                            targets[pos] = target;
+                            targetLabels[pos] = labels[idx];
+                        }
+                        ++pos;
+                    }
+                }
+            } else {
+                int target = getTargetId(attr);
+                if (target >= 0) {
+                    if (targets != null) {
+                        targets[pos] = target;
+                        targetLabels[pos] = labels[idx];
+                    }
+                    ++pos;
+                }
+            }
+        }
+        return pos - offset;
+    }
+
+    private int getTargetId(Object attr) {
+        if (attr instanceof BaseClass) {
+            return idIndex.get(((BaseClass) attr).getRdfid());
+        } else if (attr instanceof String) {
+            return idIndex.get((String) attr);
+        }
+        return -1;
+    }
+
+    private static String[] getLinkAttributes(BaseClass sample) {
+        var linkAttrs = new ArrayList<String>();
+        for (String attrName : sample.getAttributeNames()) {
+            if (!sample.isPrimitiveAttribute(attrName) && !sample.isEnumAttribute(attrName)) {
+                linkAttrs.add(attrName);
+            }
+        }
+        return linkAttrs.toArray(new String[0]);
+    }
+
+    /**
+     * Get the number of objects (nodes) of the graph.
+     *
+     * @return Number of objects
+     */
+    public int getObjectCount() {
+        return objects.length;
+    }
+
+    /**
+     * Get the number of edges of the graph.
+     *
+     * @return Number of edges
+     */
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * Get the dense id of an object.
+     *
+     * @param rdfid The RDF ID of the CIM object
+     * @return      The dense id or -1 if the object is not part of the graph
+     */
+    public int getId(String rdfid) {
+        return idIndex.get(rdfid);
+    }
+
+    /**
+     * Get the object with a dense id.
+     *
+     * @param id The dense id
+     * @return   The CIM object
+     */
+    public BaseClass getObject(int id) {
+        return objects[id];
+    }
+
+    /**
+     * Get the RDF ID of the object with a dense id.
+     *
+     * @param id The dense id
+     * @return   The RDF ID
+     */
+    public String getRdfid(int id) {
+        return objects[id].getRdfid();
+    }
+
+    /**
+     * Get the sorted list of CIM types of the graph.
+     *
+     * @return List of CIM types
+     */
+    public List<String> getTypes() {
+        return types;
+    }
+
+    /**
+     * Get the index of the CIM type (in getTypes()) of an object.
+     *
+     * @param id The dense id
+     * @return   The type index
+     */
+    public int getTypeIndex(int id) {
+        return typeOfObject[id];
+    }
+
+    /**
+     * Get the ranges of dense ids per CIM type.
+     *
+     * The objects of the type with index t have the ids getTypeOffsets()[t] to
+     * getTypeOffsets()[t + 1] - 1. The returned array must not be modified.
+     *
+     * @return Array of size getTypes().size() + 1
+     */
+    public int[] getTypeOffsets() {
+        return typeOffsets;
+    }
+
+    /**
+     * Get the sorted list of full names of all attributes used as edge labels.
+     *
+     * @return List of attribute full names
+     */
+    public List<String> getAttributeNames() {
+        return attributeNames;
+    }
+
+    /**
+     * Get the ordinal (edge label) of an attribute.
+     *
+     * @param attrFullName The attribute full name, e.g. "Terminal.ConductingEquipment"
+     * @return             The ordinal or -1 if the attribute is not used in the graph
+     */
+    public int getAttributeOrdinal(String attrFullName) {
+        return attributeOrdinals.getOrDefault(attrFullName, -1);
+    }
+
+    /**
+     * Get the CSR row offsets: the edges of object i are stored at the positions
+     * getEdgeOffsets()[i] to getEdgeOffsets()[i + 1] - 1. The returned array must
+     * not be modified.
+     *
+     * @return Array of size getObjectCount() + 1
+     */
+    public int[] getEdgeOffsets() {
+        return edgeOffsets;
+    }
+
+    /**
+     * Get the dense ids of the edge targets. The returned array must not be
+     * modified.
+     *
+     * @return Array of size getEdgeCount()
+     */
+    public int[] getEdgeTargets() {
+        return edgeTargets;
+    }
+
+    /**
+     * Get the attribute ordinals of the edges. The returned array must not be
+     * modified.
+     *
+     * @return Array of size getEdgeCount()
+     */
+    public int[] getEdgeLabels() {
+        return edgeLabels;
+    }
+
+    /**
+     * Open addressing hash index of rdfid to dense id.
+     */
+    private static final class IdIndex {
+        private final String[] keys;
+        private final int[] values;
+        private final int mask;
+
+        IdIndex(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+            keys = new String[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(String key, int value) {
+            int pos = mix(key.hashCode()) & mask;
+            while (keys[pos] != null && !keys[pos].equals(key)) {
+                pos = (pos + 1) & mask;
+            }
+            keys[pos] = key;
+            values[pos] = value;
+        }
+
+        int get(String key) {
+            int pos = mix(key.hashCode()) & mask;
+            while (keys[pos] != null) {
+                if (keys[pos].equals(key)) {
+                    return values[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+            return -1;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
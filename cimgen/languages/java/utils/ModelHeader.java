@@ -0,0 +1,183 @@
+package cim4j.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cim4j.CGMESProfile;
+
+/**
+ * Header of an RDF file with CIM data: the md:FullModel element with the model
+ * id, the profiles, the dependencies and the scenario time of the model.
+ */
+public final class ModelHeader {
+
+    private final String path;
+    private final String modelId;
+    private final Map<String, List<String>> values;
+    private final Set<CGMESProfile> profiles;
+
+    /**
+     * Create a header.
+     *
+     * @param path    The path of the file (or null if not read from a file)
+     * @param modelId The model id (rdf:about of the FullModel without leading #)
+     * @param values  Map of the local name of the header attributes (e.g.
+     *                "Model.profile") to their values or resources
+     */
+    public ModelHeader(String path, String modelId, Map<String, List<String>> values) {
+        this.path = path;
+        this.modelId = modelId;
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (var entry : values.entrySet()) {
+            map.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        this.values = Collections.unmodifiableMap(map);
+        Set<CGMESProfile> profileSet = EnumSet.noneOf(CGMESProfile.class);
+        for (String uri : getValues("Model.profile")) {
+            var profile = CGMESProfile.fromUri(uri);
+            if (profile != null) {
+                profileSet.add(profile);
+            }
+        }
+        this.profiles = Collections.unmodifiableSet(profileSet);
+    }
+
+    /**
+     * Get the path of the file.
+     *
+     * @return The path or null if the header is not read from a file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the model id (rdf:about of the FullModel without leading #).
+     *
+     * @return The model id
+     */
+    public String getModelId() {
+        return modelId;
+    }
+
+    /**
+     * Get the values of a header attribute.
+     *
+     * @param name The local name of the header attribute, e.g. "Model.created"
+     * @return     List of values (empty if the attribute is not in the header)
+     */
+    public List<String> getValues(String name) {
+        return values.getOrDefault(name, List.of());
+    }
+
+    /**
+     * Get the first value of a header attribute.
+     *
+     * @param name The local name of the header attribute, e.g. "Model.created"
+     * @return     The value or null if the attribute is not in the header
+     */
+    public String getValue(String name) {
+        var list = getValues(name);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Get all values of the header as map of the local name of the header
+     * attributes to their values.
+     *
+     * @return Map of header attribute to values
+     */
+    public Map<String, List<String>> getValues() {
+        return values;
+    }
+
+    /**
+     * Get the profile uris of the model (md:Model.profile).
+     *
+     * @return List of profile uris
+     */
+    public List<String> getProfileUris() {
+        return getValues("Model.profile");
+    }
+
+    /**
+     * Get the known profiles of the model (the profiles of the profile uris).
+     *
+     * @return Set of profiles
+     */
+    public Set<CGMESProfile> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Get the model ids of the models this model depends on
+     * (md:Model.DependentOn).
+     *
+     * @return List of model ids
+     */
+    public List<String> getDependentOn() {
+        return getValues("Model.DependentOn");
+    }
+
+    /**
+     * Get the model ids of the models superseded by this model
+     * (md:Model.Supersedes).
+     *
+     * @return List of model ids
+     */
+    public List<String> getSupersedes() {
+        return getValues("Model.Supersedes");
+    }
+
+    /**
+     * Get the scenario time of the model (md:Model.scenarioTime).
+     *
+     * @return The scenario time as in the file or null
+     */
+    public String getScenarioTime() {
+        return getValue("Model.scenarioTime");
+    }
+
+    /**
+     * Get the creation time of the model (md:Model.created).
+     *
+     * @return The creation time as in the file or null
+     */
+    public String getCreated() {
+        return getValue("Model.created");
+    }
+
+    /**
+     * Get the modeling authority set of the model (md:Model.modelingAuthoritySet).
+     *
+     * @return The modeling authority set or null
+     */
+    public String getModelingAuthoritySet() {
+        return getValue("Model.modelingAuthoritySet");
+    }
+
+    /**
+     * Get the version of the model (md:Model.version).
+     *
+     * @return The version or null
+     */
+    public String getVersion() {
+        return getValue("Model.version");
+    }
+
+    @Override
+    public String toString() {
+        var text = new ArrayList<String>();
+        text.add("id=" + modelId);
+        text.add("path=" + path);
+        for (var entry : values.entrySet()) {
+            text.add(entry.getKey() + "=" + String.join(",", entry.getValue()));
+        }
+        return "ModelHeader(" + String.join(", ", text) + ")";
+    }
+}
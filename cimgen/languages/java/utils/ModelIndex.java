@@ -0,0 +1,181 @@
+package cim4j.utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import cim4j.CGMESProfile;
+import cim4j.Logging;
+
+/**
+ * Index of the FullModel headers of RDF files: model id to profiles,
+ * dependencies and scenario time.
+ *
+ * Only the headers are parsed, i.e. the beginning of each file, so a directory
+ * with thousands of exchanged models is indexed in seconds. The files are
+ * scanned in parallel. The data of the models can be loaded later on demand,
+ * see LazyModelLoader.
+ */
+public final class ModelIndex {
+
+    private static final Logging LOG = Logging.getLogger(ModelIndex.class);
+
+    private final Map<String, ModelHeader> headers;
+    private final List<String> filesWithoutHeader;
+
+    private ModelIndex(List<String> pathList) {
+        var scanned = pathList.parallelStream().map(ModelIndex::scanFile).collect(Collectors.toList());
+        Map<String, ModelHeader> map = new LinkedHashMap<>();
+        var withoutHeader = new ArrayList<String>();
+        for (int idx = 0; idx < pathList.size(); ++idx) {
+            var header = scanned.get(idx);
+            if (header == null || header.getModelId() == null) {
+                withoutHeader.add(pathList.get(idx));
+            } else if (map.containsKey(header.getModelId())) {
+                LOG.warn("Model %s found in %s and %s, using the first one", header.getModelId(),
+                        map.get(header.getModelId()).getPath(), header.getPath());
+            } else {
+                map.put(header.getModelId(), header);
+            }
+        }
+        headers = Collections.unmodifiableMap(map);
+        filesWithoutHeader = Collections.unmodifiableList(withoutHeader);
+        LOG.info("Indexed %d models, %d files without header", headers.size(), filesWithoutHeader.size());
+    }
+
+    /**
+     * Scan the headers of a list of RDF files.
+     *
+     * @param pathList List of files to scan
+     * @return         The index
+     */
+    public static ModelIndex scan(List<String> pathList) {
+        return new ModelIndex(pathList);
+    }
+
+    /**
+     * Scan the headers of all XML files (*.xml) in a directory.
+     *
+     * @param directory The directory to scan (not recursive)
+     * @return          The index
+     */
+    public static ModelIndex scanDirectory(String directory) {
+        try (var files = Files.list(Path.of(directory))) {
+            var pathList = files.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(".xml"))
+                    .map(Path::toString).sorted().collect(Collectors.toList());
+            return scan(pathList);
+        } catch (IOException ex) {
+            String txt = "Error while listing directory: " + directory;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+    }
+
+    /**
+     * Read the header of a file - files which cannot be parsed are handled like
+     * files without header.
+     */
+    private static ModelHeader scanFile(String path) {
+        try (var stream = new FileInputStream(path)) {
+            return RdfParser.parseHeader(stream, path);
+        } catch (Exception ex) {
+            LOG.warn("Cannot read header of rdf file: %s", path);
+            return null;
+        }
+    }
+
+    /**
+     * Get the headers of all indexed models in the order of the scanned files.
+     *
+     * @return Collection of headers
+     */
+    public Collection<ModelHeader> getHeaders() {
+        return headers.values();
+    }
+
+    /**
+     * Get the header of a model.
+     *
+     * @param modelId The model id
+     * @return        The header or null if the model is not indexed
+     */
+    public ModelHeader getHeader(String modelId) {
+        return headers.get(modelId);
+    }
+
+    /**
+     * Get the headers of all models with a profile.
+     *
+     * @param profile The profile
+     * @return        List of headers
+     */
+    public List<ModelHeader> getHeaders(CGMESProfile profile) {
+        var list = new ArrayList<ModelHeader>();
+        for (var header : headers.values()) {
+            if (header.getProfiles().contains(profile)) {
+                list.add(header);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the files without FullModel header (or with a header which cannot be
+     * parsed).
+     *
+     * @return List of paths
+     */
+    public List<String> getFilesWithoutHeader() {
+        return filesWithoutHeader;
+    }
+
+    /**
+     * Get the models and all models they depend on (directly or indirectly) in
+     * dependency order: each model follows the models it depends on.
+     *
+     * Dependencies which are not indexed (e.g. a boundary set which is not in
+     * the scanned directory) are skipped.
+     *
+     * @param modelIds The model ids
+     * @return         List of headers in dependency order
+     */
+    public List<ModelHeader> getLoadOrder(Collection<String> modelIds) {
+        var order = new ArrayList<ModelHeader>();
+        Set<String> visited = new HashSet<>();
+        for (String modelId : modelIds) {
+            addWithDependencies(modelId, null, visited, order);
+        }
+        return order;
+    }
+
+    private void addWithDependencies(String modelId, String dependentModelId, Set<String> visited,
+            List<ModelHeader> order) {
+        if (!visited.add(modelId)) {
+            return;
+        }
+        var header = headers.get(modelId);
+        if (header == null) {
+            if (dependentModelId != null) {
+                LOG.warn("Model %s (dependency of %s) not found in index", modelId, dependentModelId);
+            } else {
+                LOG.warn("Model %s not found in index", modelId);
+            }
+            return;
+        }
+        for (String dependency : header.getDependentOn()) {
+            addWithDependencies(dependency, modelId, visited, order);
+        }
+        order.add(header);
+    }
+}
@@ -0,0 +1,416 @@
+package cim4j.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import cim4j.BaseClass;
+import cim4j.CimClassMap;
+import cim4j.Logging;
+
+/**
+ * Merge of several models (e.g. the individual grid models of the TSOs and the
+ * boundary set) into one common grid model.
+ *
+ * The models are read in parallel without linking. Then the objects are split
+ * into hash partitions of the rdfids, which are merged in parallel: an rdfid
+ * found in more than one model is a conflict, the object of the first model
+ * (in the order the models were added) is kept. If the types of the objects
+ * are compatible, the attributes of the later objects are merged into the kept
+ * object: attributes without value get the value of the later object, list
+ * attributes are joined, and attributes with different values (the value of
+ * the first model is kept) are reported with the conflict. Finally the merged
+ * model is linked once, so references between the models (e.g. to the nodes of
+ * the boundary set) are resolved in one pass.
+ *
+ * A merger is not thread-safe.
+ */
+public final class ModelMerger {
+
+    private static final Logging LOG = Logging.getLogger(ModelMerger.class);
+
+    /**
+     * Kind of a merge conflict.
+     */
+    public enum ConflictKind {
+        /** The rdfid is used by objects of compatible types in more than one model. */
+        DUPLICATE_ID,
+        /** The rdfid is used by objects of incompatible types in more than one model. */
+        INCOMPATIBLE_TYPE
+    }
+
+    /**
+     * Conflict of an object which is found in more than one model.
+     */
+    public static final class Conflict {
+        private final ConflictKind kind;
+        private final String rdfid;
+        private final String keptModel;
+        private final String keptType;
+        private final String droppedModel;
+        private final String droppedType;
+        private final int droppedModelIndex;
+        private final List<String> conflictingAttributes;
+
+        Conflict(ConflictKind kind, String rdfid, String keptModel, String keptType, String droppedModel,
+                String droppedType, int droppedModelIndex, List<String> conflictingAttributes) {
+            this.kind = kind;
+            this.rdfid = rdfid;
+            this.keptModel = keptModel;
+            this.keptType = keptType;
+            this.droppedModel = droppedModel;
+            this.droppedType = droppedType;
+            this.droppedModelIndex = droppedModelIndex;
+            this.conflictingAttributes = Collections.unmodifiableList(conflictingAttributes);
+        }
+
+        public ConflictKind getKind() {
+            return kind;
+        }
+
+        public String getRdfid() {
+            return rdfid;
+        }
+
+        /**
+         * Get the name of the model whose object is kept in the merged model.
+         *
+         * @return Model name
+         */
+        public String getKeptModel() {
+            return keptModel;
+        }
+
+        public String getKeptType() {
+            return keptType;
+        }
+
+        /**
+         * Get the name of the model whose object is dropped (after its attributes
+         * are merged into the kept object for a DUPLICATE_ID).
+         *
+         * @return Model name
+         */
+        public String getDroppedModel() {
+            return droppedModel;
+        }
+
+        public String getDroppedType() {
+            return droppedType;
+        }
+
+        /**
+         * Get the attributes of a DUPLICATE_ID whose values in the dropped object
+         * differ from the values in the kept object, or which the type of the
+         * kept object does not have. These values are not merged.
+         *
+         * @return List of attribute names (empty for an INCOMPATIBLE_TYPE)
+         */
+        public List<String> getConflictingAttributes() {
+            return conflictingAttributes;
+        }
+
+        @Override
+        public String toString() {
+            String txt = String.format("%s %s: %s (%s) kept, %s (%s) dropped", kind, rdfid, keptType, keptModel,
+                    droppedType, droppedModel);
+            return conflictingAttributes.isEmpty() ? txt : txt + ", conflicting values: " + conflictingAttributes;
+        }
+    }
+
+    /**
+     * Result of a merge.
+     */
+    public static final class Result {
+        private final Map<String, BaseClass> model;
+        private final List<Conflict> conflicts;
+        private final ReadDiagnostics diagnostics;
+
+        Result(Map<String, BaseClass> model, List<Conflict> conflicts, ReadDiagnostics diagnostics) {
+            this.model = model;
+            this.conflicts = Collections.unmodifiableList(conflicts);
+            this.diagnostics = diagnostics;
+        }
+
+        /**
+         * Get the merged and linked model.
+         *
+         * @return CIM data as map of rdfid to CIM object
+         */
+        public Map<String, BaseClass> getModel() {
+            return model;
+        }
+
+        /**
+         * Get the conflicts sorted by the model of the dropped object and rdfid.
+         *
+         * @return List of conflicts
+         */
+        public List<Conflict> getConflicts() {
+            return conflicts;
+        }
+
+        /**
+         * Get the data quality issues found while linking the merged model, e.g.
+         * references which cannot be resolved in any model.
+         *
+         * @return Diagnostics with the counted issues
+         */
+        public ReadDiagnostics getDiagnostics() {
+            return diagnostics;
+        }
+    }
+
+    private final List<String> modelNames = new ArrayList<>();
+    private final List<List<String>> modelPaths = new ArrayList<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Supplier<RdfReader> readerFactory = RdfReader::new;
+
+    /**
+     * Add a model to merge.
+     *
+     * @param name     The name of the model (e.g. the TSO), used in the conflicts
+     * @param pathList The files of the model (e.g. EQ, SSH, TP and SV)
+     */
+    public void addModel(String name, List<String> pathList) {
+        modelNames.add(name);
+        modelPaths.add(List.copyOf(pathList));
+    }
+
+    /**
+     * Set the number of threads for reading and merging.
+     *
+     * @param parallelism Number of threads (default: number of processors)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Set the factory of the readers, e.g. to read with a string pool or a
+     * projection. Each model is read by its own reader, the linking of the
+     * merged model is done by one more reader.
+     *
+     * @param readerFactory Factory of the readers
+     */
+    public void setReaderFactory(Supplier<RdfReader> readerFactory) {
+        this.readerFactory = readerFactory;
+    }
+
+    /**
+     * Read and merge all added models.
+     *
+     * @return The merge result
+     */
+    public Result merge() {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            var thread = new Thread(runnable, "cim4j-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long start = System.nanoTime();
+            var models = readModels(executor);
+            long read = System.nanoTime();
+
+            int partitionCount = parallelism * 4;
+            var partitions = splitModels(executor, models, partitionCount);
+            var segments = new ArrayList<Map<String, Winner>>(partitionCount);
+            var conflicts = new ArrayList<Conflict>();
+            mergePartitions(executor, partitions, segments, conflicts);
+            conflicts.sort(Comparator.comparingInt((Conflict c) -> c.droppedModelIndex)
+                    .thenComparing(Conflict::getRdfid));
+            long merged = System.nanoTime();
+
+            // Collect the kept objects in the order of the models
+            int size = 0;
+            for (var segment : segments) {
+                size += segment.size();
+            }
+            Map<String, BaseClass> cimData = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (var model : models) {
+                for (var entry : model.entrySet()) {
+                    var winner = segments.get(partitionOf(entry.getKey(), partitionCount)).get(entry.getKey());
+                    if (winner.object == entry.getValue()) {
+                        cimData.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            var linker = readerFactory.get();
+            var model = linker.link(cimData);
+            long linked = System.nanoTime();
+            LOG.info("Merged %d models with %d objects and %d conflicts (read: %d ms, merge: %d ms, link: %d ms)",
+                    models.size(), model.size(), conflicts.size(), (read - start) / 1000000,
+                    (merged - read) / 1000000, (linked - merged) / 1000000);
+            return new Result(model, conflicts, linker.getDiagnostics());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Map<String, BaseClass>> readModels(ExecutorService executor) {
+        var tasks = new ArrayList<Callable<Map<String, BaseClass>>>();
+        for (var pathList : modelPaths) {
+            tasks.add(() -> {
+                var reader = readerFactory.get();
+                reader.setLinkingEnabled(false);
+                return reader.read(pathList);
+            });
+        }
+        return invokeAll(executor, tasks);
+    }
+
+    /**
+     * Split the objects of each model into the hash partitions.
+     *
+     * @return Array [model][partition] of object lists
+     */
+    private List<List<List<BaseClass>>> splitModels(ExecutorService executor, List<Map<String, BaseClass>> models,
+            int partitionCount) {
+        var tasks = new ArrayList<Callable<List<List<BaseClass>>>>();
+        for (var model : models) {
+            tasks.add(() -> {
+                var buckets = new ArrayList<List<BaseClass>>(partitionCount);
+                int expectedSize = model.size() / partitionCount + 16;
+                for (int idx = 0; idx < partitionCount; ++idx) {
+                    buckets.add(new ArrayList<>(expectedSize));
+                }
+                for (var entry : model.entrySet()) {
+                    buckets.get(partitionOf(entry.getKey(), partitionCount)).add(entry.getValue());
+                }
+                return buckets;
+            });
+        }
+        return invokeAll(executor, tasks);
+    }
+
+    /**
+     * Merge each partition (in parallel) and collect the conflicts.
+     */
+    private void mergePartitions(ExecutorService executor, List<List<List<BaseClass>>> buckets,
+            List<Map<String, Winner>> segments, List<Conflict> conflicts) {
+        int partitionCount = buckets.isEmpty() ? 0 : buckets.get(0).size();
+        var tasks = new ArrayList<Callable<List<Conflict>>>();
+        for (int partition = 0; partition < partitionCount; ++partition) {
+            var segment = new HashMap<String, Winner>();
+            segments.add(segment);
+            int part = partition;
+            tasks.add(() -> {
+                var partConflicts = new ArrayList<Conflict>();
+                for (int modelIdx = 0; modelIdx < buckets.size(); ++modelIdx) {
+                    for (var object : buckets.get(modelIdx).get(part)) {
+                        var winner = segment.putIfAbsent(object.getRdfid(), new Winner(object, modelIdx));
+                        if (winner != null) {
+                            partConflicts.add(createConflict(winner, object, modelIdx));
+                        }
+                    }
+                }
+                return partConflicts;
+            });
+        }
+        for (var partConflicts : invokeAll(executor, tasks)) {
+            conflicts.addAll(partConflicts);
+        }
+    }
+
+    /**
+     * Create the conflict of an object found in a later model. If the types are
+     * compatible, the attributes of the object are merged into the kept object.
+     */
+    private Conflict createConflict(Winner winner, BaseClass object, int modelIdx) {
+        var keptClass = CimClassMap.getCimClass(winner.object.getCimType());
+        var droppedClass = CimClassMap.getCimClass(object.getCimType());
+        boolean compatible = keptClass.isAssignableFrom(droppedClass) || droppedClass.isAssignableFrom(keptClass);
+        List<String> conflictingAttributes = compatible ? mergeAttributes(winner.object, object) : List.of();
+        return new Conflict(compatible ? ConflictKind.DUPLICATE_ID : ConflictKind.INCOMPATIBLE_TYPE,
+                object.getRdfid(), modelNames.get(winner.modelIdx), winner.object.getCimType(),
+                modelNames.get(modelIdx), object.getCimType(), modelIdx, conflictingAttributes);
+    }
+
+    /**
+     * Merge the used attributes of an unlinked object into the kept object of
+     * the same rdfid: attributes without value are set, list attributes are
+     * joined. The values of the kept object are not changed.
+     *
+     * @return The attributes whose values cannot be merged
+     */
+    private static List<String> mergeAttributes(BaseClass kept, BaseClass object) {
+        var conflictingAttributes = new ArrayList<String>();
+        var keptAttrNames = kept.getAttributeNames();
+        for (String attrName : object.getAttributeNames()) {
+            Object value = object.getAttribute(attrName);
+            if (!object.isUsedAttribute(attrName) || value == null
+                    || value instanceof Collection<?> && ((Collection<?>) value).isEmpty()) {
+                continue;
+            }
+            if (!keptAttrNames.contains(attrName)) {
+                conflictingAttributes.add(attrName);
+            } else if (value instanceof Collection<?>) {
+                // Unlinked list attributes contain the rdfids
+                for (Object item : (Collection<?>) value) {
+                    kept.setAttribute(attrName, item);
+                }
+            } else {
+                Object keptValue = kept.getAttribute(attrName);
+                if (keptValue == null) {
+                    kept.setAttribute(attrName, value);
+                } else if (!ModelDiff.sameValue(keptValue, value)) {
+                    conflictingAttributes.add(attrName);
+                }
+            }
+        }
+        return conflictingAttributes;
+    }
+
+    private static int partitionOf(String rdfid, int partitionCount) {
+        int hash = rdfid.hashCode();
+        return ((hash ^ (hash >>> 16)) & 0x7fffffff) % partitionCount;
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+        try {
+            var results = new ArrayList<T>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            String txt = "Interrupted while merging models";
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        } catch (ExecutionException ex) {
+            String txt = "Error while merging models";
+            LOG.error(txt, ex.getCause());
+            throw new RuntimeException(txt, ex.getCause());
+        }
+    }
+
+    /**
+     * Object kept for an rdfid and the index of its model.
+     */
+    private static final class Winner {
+        private final BaseClass object;
+        private final int modelIdx;
+
+        Winner(BaseClass object, int modelIdx) {
+            this.object = object;
+            this.modelIdx = modelIdx;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package cim4j.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import cim4j.BaseClass;
+import cim4j.CimClassMap;
+
+/**
+ * CIM model as overlay over a shared base model, e.g. a boundary set which is
+ * referenced by many individual grid models.
+ *
+ * The base model is loaded once and shared read-only by any number of overlays,
+ * also by overlays used in parallel threads. The objects of an overlay are
+ * linked to the base objects without modifying them: the links are set without
+ * the inverse attribute of the base object (see
+ * BaseClass.setAttributeWithoutInverse). An object of the base model which has
+ * to be modified is copied into the overlay first (copy-on-write), the copy
+ * replaces the base object in this overlay: the objects of the overlay which
+ * are linked to the base object are linked to the copy instead, now with the
+ * inverse attribute of the copy.
+ *
+ * An overlay is read by an RdfReader with the base model set (see
+ * RdfReader.setBaseModel), which links and copies the objects in this way. Only
+ * the objects of the overlay (new and copied objects) can be written by
+ * RdfWriter.addOverlayData.
+ *
+ * Base objects keep their links to the base version of copied objects. Links
+ * from overlay objects to base objects have to be set by link (or by the
+ * RdfReader), links which are set directly with setAttributeWithoutInverse
+ * after the first copy-on-write are not relinked to later copies. An overlay
+ * is not thread-safe, the base model must not be modified while it is shared.
+ */
+public final class OverlayModel {
+
+    private final Map<String, BaseClass> base;
+    private final Map<String, BaseClass> overlay;
+    private final Map<String, BaseClass> view = new CombinedView();
+
+    // Links of overlay objects to shared base objects by rdfid of the base
+    // object - built on the first copy-on-write
+    private Map<String, List<Referrer>> sharedReferrers = null;
+
+    /**
+     * Create an empty overlay.
+     *
+     * @param base The shared base model as map of rdfid to CIM object
+     */
+    public OverlayModel(Map<String, BaseClass> base) {
+        this(base, new LinkedHashMap<>());
+    }
+
+    /**
+     * Create an overlay with objects read by an RdfReader with the base model set.
+     *
+     * @param base    The shared base model as map of rdfid to CIM object
+     * @param overlay The objects of the overlay as map of rdfid to CIM object
+     */
+    public OverlayModel(Map<String, BaseClass> base, Map<String, BaseClass> overlay) {
+        this.base = Collections.unmodifiableMap(base);
+        this.overlay = overlay;
+    }
+
+    /**
+     * Get the shared base model.
+     *
+     * @return Unmodifiable map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> getBase() {
+        return base;
+    }
+
+    /**
+     * Get the objects of the overlay: the new objects and the copied base objects.
+     *
+     * @return Map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> getOverlayObjects() {
+        return Collections.unmodifiableMap(overlay);
+    }
+
+    /**
+     * Get the whole model: the objects of the overlay and the base objects which
+     * are not replaced by a copy.
+     *
+     * @return Unmodifiable map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> asMap() {
+        return view;
+    }
+
+    /**
+     * Get an object for reading - the object must not be modified.
+     *
+     * @param rdfid The RDF ID of the CIM object
+     * @return      The object of the overlay, or else of the base model (or null)
+     */
+    public BaseClass get(String rdfid) {
+        var object = overlay.get(rdfid);
+        return object != null ? object : base.get(rdfid);
+    }
+
+    /**
+     * Is the object shared with the base model, i.e. is it not part of the overlay?
+     *
+     * @param object The CIM object
+     * @return       Is it a shared base object?
+     */
+    public boolean isShared(BaseClass object) {
+        return overlay.get(object.getRdfid()) != object && base.get(object.getRdfid()) == object;
+    }
+
+    /**
+     * Get an object for modification.
+     *
+     * A base object is copied into the overlay on the first call. The links of
+     * the copy point to the objects of the overlay or else of the base model.
+     * The objects of the overlay which are linked to the base object are linked
+     * to the copy instead.
+     *
+     * @param rdfid The RDF ID of the CIM object
+     * @return      The object of the overlay (or null if the object is unknown)
+     */
+    public BaseClass getForUpdate(String rdfid) {
+        var object = overlay.get(rdfid);
+        if (object == null) {
+            var baseObject = base.get(rdfid);
+            if (baseObject != null) {
+                var referrers = getSharedReferrers().remove(rdfid);
+                object = copyObject(baseObject);
+                overlay.put(rdfid, object);
+                if (referrers != null) {
+                    for (var referrer : referrers) {
+                        // The link to the base object is replaced by a link with inverse to the copy
+                        if (referrer.object.removeAttributeLinkWithoutInverse(referrer.attrName, baseObject)) {
+                            referrer.object.setAttribute(referrer.attrName, object);
+                        }
+                    }
+                }
+                linkObject(object);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Add a new object to the overlay.
+     *
+     * @param object The new CIM object
+     */
+    public void add(BaseClass object) {
+        overlay.put(object.getRdfid(), object);
+        if (sharedReferrers != null) {
+            addSharedReferrers(object);
+        }
+    }
+
+    /**
+     * Set a class or list attribute of an object of the overlay to a link.
+     *
+     * Links to shared base objects are set without the inverse attribute, so the
+     * base object is not modified.
+     *
+     * @param object   The CIM object of the overlay
+     * @param attrName The attribute name
+     * @param target   The linked object (of the overlay or the base model)
+     */
+    public void link(BaseClass object, String attrName, BaseClass target) {
+        if (isShared(object)) {
+            throw new IllegalArgumentException("Object is shared, use getForUpdate: " + object);
+        }
+        if (isShared(target)) {
+            if (!object.setAttributeWithoutInverse(attrName, target)) {
+                throw new IllegalArgumentException("No class or list attribute: " + attrName);
+            }
+            if (sharedReferrers != null) {
+                addSharedReferrer(object, attrName, target);
+            }
+        } else {
+            object.setAttribute(attrName, target);
+        }
+    }
+
+    /**
+     * Copy an object of the base model for the overlay.
+     *
+     * All attribute values are copied, links are copied as rdfids and have to be
+     * linked again (to the copies in the overlay or to the base objects).
+     */
+    static BaseClass copyObject(BaseClass baseObject) {
+        var copy = CimClassMap.createCimObject(baseObject.getCimType(), baseObject.getRdfid());
+        for (String attrName : baseObject.getAttributeNames()) {
+            Object attr = baseObject.getAttribute(attrName);
+            if (attr == null) {
+                continue;
+            }
+            if (baseObject.isPrimitiveAttribute(attrName) || baseObject.isEnumAttribute(attrName)
+                    || attr instanceof String) {
+                copy.setAttribute(attrName, attr);
+            } else if (attr instanceof BaseClass) {
+                copy.setAttribute(attrName, ((BaseClass) attr).getRdfid());
+            } else if (attr instanceof Set<?>) {
+                for (var attrItem : (Set<?>) attr) {
+                    if (attrItem instanceof BaseClass) {
+                        copy.setAttribute(attrName, ((BaseClass) attrItem).getRdfid());
+                    } else if (attrItem instanceof String) {
+                        copy.setAttribute(attrName, attrItem);
+                    }
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Link the rdfids of the class and list attributes of a copied object.
+     */
+    private void linkObject(BaseClass object) {
+        for (String attrName : object.getAttributeNames()) {
+            if (object.isPrimitiveAttribute(attrName) || object.isEnumAttribute(attrName)) {
+                continue;
+            }
+            Object attr = object.getAttribute(attrName);
+            if (attr instanceof String) {
+                linkRdfid(object, attrName, (String) attr);
+            } else if (attr instanceof Set<?>) {
+                for (var attrItem : Set.copyOf((Set<?>) attr)) {
+                    if (attrItem instanceof String) {
+                        linkRdfid(object, attrName, (String) attrItem);
+                    }
+                }
+            }
+        }
+    }
+
+    private void linkRdfid(BaseClass object, String attrName, String rdfid) {
+        var target = get(rdfid);
+        if (target != null) {
+            link(object, attrName, target);
+        }
+    }
+
+    /**
+     * Get the links of overlay objects to shared base objects, on the first call
+     * collected from all objects of the overlay.
+     */
+    private Map<String, List<Referrer>> getSharedReferrers() {
+        if (sharedReferrers == null) {
+            sharedReferrers = new HashMap<>();
+            for (var object : overlay.values()) {
+                addSharedReferrers(object);
+            }
+        }
+        return sharedReferrers;
+    }
+
+    private void addSharedReferrers(BaseClass object) {
+        for (String attrName : object.getAttributeNames()) {
+            if (object.isPrimitiveAttribute(attrName) || object.isEnumAttribute(attrName)) {
+                continue;
+            }
+            Object attr = object.getAttribute(attrName);
+            if (attr instanceof BaseClass) {
+                addSharedReferrer(object, attrName, (BaseClass) attr);
+            } else if (attr instanceof Set<?>) {
+                for (var attrItem : (Set<?>) attr) {
+                    if (attrItem instanceof BaseClass) {
+                        addSharedReferrer(object, attrName, (BaseClass) attrItem);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addSharedReferrer(BaseClass object, String attrName, BaseClass target) {
+        if (isShared(target)) {
+            sharedReferrers.computeIfAbsent(target.getRdfid(), k -> new ArrayList<>())
+                    .add(new Referrer(object, attrName));
+        }
+    }
+
+    /**
+     * Class or list attribute of an overlay object linked to a shared base object.
+     */
+    private static final class Referrer {
+        final BaseClass object;
+        final String attrName;
+
+        Referrer(BaseClass object, String attrName) {
+            this.object = object;
+            this.attrName = attrName;
+        }
+    }
+
+    /**
+     * Read-only view of the overlay objects followed by the base objects which
+     * are not replaced by the overlay.
+     */
+    private final class CombinedView extends AbstractMap<String, BaseClass> {
+
+        @Override
+        public BaseClass get(Object key) {
+            var object = overlay.get(key);
+            return object != null ? object : base.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return overlay.containsKey(key) || base.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            int size = base.size();
+            for (String rdfid : overlay.keySet()) {
+                if (!base.containsKey(rdfid)) {
+                    ++size;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, BaseClass>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, BaseClass>> iterator() {
+                    return new CombinedIterator();
+                }
+
+                @Override
+                public int size() {
+                    return CombinedView.this.size();
+                }
+            };
+        }
+    }
+
+    private final class CombinedIterator implements Iterator<Map.Entry<String, BaseClass>> {
+        private final Iterator<Map.Entry<String, BaseClass>> overlayIterator = overlay.entrySet().iterator();
+        private final Iterator<Map.Entry<String, BaseClass>> baseIterator = base.entrySet().iterator();
+        private Map.Entry<String, BaseClass> next = null;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (overlayIterator.hasNext()) {
+                    var entry = overlayIterator.next();
+                    next = Map.entry(entry.getKey(), entry.getValue());
+                } else if (baseIterator.hasNext()) {
+                    var entry = baseIterator.next();
+                    if (!overlay.containsKey(entry.getKey())) {
+                        next = entry;
+                    }
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Map.Entry<String, BaseClass> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package cim4j.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream which compresses the data in parallel blocks (deflate or gzip
+ * format).
+ *
+ * The data is split into blocks which are compressed by the threads of an
+ * executor. Each block is compressed with the last 32 KB of the previous block
+ * as dictionary and ends at a byte boundary (sync flush), so the compressed
+ * blocks are concatenated in order to one valid deflate stream. The compression
+ * ratio is nearly the same as compressing the data at once. The number of
+ * blocks in progress is limited, so the memory is bounded.
+ *
+ * The underlying stream is not closed by finish, e.g. for the entries of a zip
+ * archive (see ParallelZipOutputStream).
+ *
+ * A stream is not thread-safe.
+ */
+public final class ParallelDeflateOutputStream extends OutputStream {
+
+    /**
+     * Size of the uncompressed blocks.
+     */
+    public static final int BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int maxPendingBlocks;
+    private final boolean gzip;
+    private final ArrayDeque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength = 0;
+    private byte[] dictionary = null;
+    private long uncompressedSize = 0;
+    private long compressedSize = 0;
+    private boolean finished = false;
+
+    /**
+     * Create a stream.
+     *
+     * @param out         The underlying stream of the compressed data
+     * @param executor    The executor which compresses the blocks
+     * @param parallelism Number of threads of the executor (limits the blocks in
+     *                    progress)
+     * @param gzip        Write gzip format (else raw deflate data)?
+     * @throws IOException if the gzip header cannot be written
+     */
+    public ParallelDeflateOutputStream(OutputStream out, ExecutorService executor, int parallelism, boolean gzip)
+            throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.out = out;
+        this.executor = executor;
+        this.maxPendingBlocks = parallelism * 2;
+        this.gzip = gzip;
+        if (gzip) {
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkNotFinished();
+        block[blockLength++] = (byte) b;
+        if (blockLength == block.length) {
+            submitBlock(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkNotFinished();
+        while (len > 0) {
+            int count = Math.min(len, block.length - blockLength);
+            System.arraycopy(b, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+            if (blockLength == block.length) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Compress the remaining data and write all compressed blocks (and the gzip
+     * trailer) without closing the underlying stream.
+     *
+     * @throws IOException if the compressed data cannot be written
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        submitBlock(true);
+        while (!pendingBlocks.isEmpty()) {
+            writeBlock(pendingBlocks.poll());
+        }
+        if (gzip) {
+            writeIntLE(crc.getValue());
+            writeIntLE(uncompressedSize);
+            compressedSize += 8;
+        }
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Get the CRC-32 of the uncompressed data (complete after finish).
+     *
+     * @return The CRC-32 value
+     */
+    public long getCrc() {
+        return crc.getValue();
+    }
+
+    public long getUncompressedSize() {
+        return uncompressedSize;
+    }
+
+    /**
+     * Get the number of bytes written to the underlying stream (complete after
+     * finish).
+     *
+     * @return The compressed size
+     */
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    private void checkNotFinished() throws IOException {
+        if (finished) {
+            throw new IOException("Stream is already finished");
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] data = block;
+        int length = blockLength;
+        byte[] dict = dictionary;
+        crc.update(data, 0, length);
+        uncompressedSize += length;
+        if (!last) {
+            dictionary = Arrays.copyOfRange(data, Math.max(0, length - DICTIONARY_SIZE), length);
+            block = new byte[BLOCK_SIZE];
+        }
+        blockLength = 0;
+        pendingBlocks.add(executor.submit(() -> compress(data, length, dict, last)));
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeBlock(pendingBlocks.poll());
+        }
+    }
+
+    private void writeBlock(Future<byte[]> pendingBlock) throws IOException {
+        try {
+            byte[] compressed = pendingBlock.get();
+            out.write(compressed);
+            compressedSize += compressed.length;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException ex) {
+            cancel();
+            throw new IOException("Error while compressing", ex.getCause());
+        }
+    }
+
+    private void cancel() {
+        for (var pendingBlock : pendingBlocks) {
+            pendingBlock.cancel(true);
+        }
+        pendingBlocks.clear();
+        finished = true;
+    }
+
+    private void writeIntLE(long value) throws IOException {
+        out.write((int) value & 0xff);
+        out.write((int) (value >>> 8) & 0xff);
+        out.write((int) (value >>> 16) & 0xff);
+        out.write((int) (value >>> 24) & 0xff);
+    }
+
+    /**
+     * Compress a block to raw deflate data: the last block is finished, all other
+     * blocks end with a sync flush.
+     */
+    private static byte[] compress(byte[] data, int length, byte[] dictionary, boolean last) {
+        var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+            var result = new ByteArrayOutputStream(length / 4 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            while (true) {
+                int count = deflater.deflate(buffer, 0, buffer.length, flush);
+                result.write(buffer, 0, count);
+                if (last ? deflater.finished() : count < buffer.length) {
+                    break;
+                }
+            }
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package cim4j.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Output stream which writes a zip archive with entries compressed in parallel
+ * blocks (see ParallelDeflateOutputStream).
+ *
+ * The entries are written like by java.util.zip.ZipOutputStream with the sizes
+ * and the CRC-32 in a data descriptor after the compressed data, and Zip64
+ * records for entries or archives larger than 4 GB.
+ *
+ * A stream is not thread-safe.
+ */
+public final class ParallelZipOutputStream extends OutputStream {
+
+    private static final long LOCAL_HEADER_SIGNATURE = 0x04034b50L;
+    private static final long DATA_DESCRIPTOR_SIGNATURE = 0x08074b50L;
+    private static final long CENTRAL_HEADER_SIGNATURE = 0x02014b50L;
+    private static final long END_SIGNATURE = 0x06054b50L;
+    private static final long ZIP64_END_SIGNATURE = 0x06064b50L;
+    private static final long ZIP64_LOCATOR_SIGNATURE = 0x07064b50L;
+    private static final long ZIP64_LIMIT = 0xffffffffL;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    // Data descriptor (bit 3) and UTF-8 names (bit 11)
+    private static final int FLAGS = 0x0808;
+    private static final int METHOD_DEFLATED = 8;
+
+    private final CountingOutputStream out;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private Entry currentEntry = null;
+    private ParallelDeflateOutputStream currentStream = null;
+    private boolean closed = false;
+
+    /**
+     * Create a stream.
+     *
+     * @param out         The underlying stream of the archive
+     * @param executor    The executor which compresses the blocks
+     * @param parallelism Number of threads of the executor
+     */
+    public ParallelZipOutputStream(OutputStream out, ExecutorService executor, int parallelism) {
+        this.out = new CountingOutputStream(out);
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Start a new entry (and close the current entry).
+     *
+     * @param name The name of the entry
+     * @throws IOException if the entry cannot be written
+     */
+    public void putNextEntry(String name) throws IOException {
+        closeEntry();
+        if (!names.add(name)) {
+            throw new IOException("Duplicate zip entry: " + name);
+        }
+        var entry = new Entry(name);
+        entry.offset = out.count;
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(VERSION);
+        writeShort(FLAGS);
+        writeShort(METHOD_DEFLATED);
+        writeInt(entry.dosTime);
+        writeInt(0); // CRC-32 in data descriptor
+        writeInt(0); // compressed size in data descriptor
+        writeInt(0); // uncompressed size in data descriptor
+        writeShort(entry.nameBytes.length);
+        writeShort(0);
+        out.write(entry.nameBytes);
+        currentEntry = entry;
+        currentStream = new ParallelDeflateOutputStream(out, executor, parallelism, false);
+    }
+
+    /**
+     * Finish the current entry (if any).
+     *
+     * @throws IOException if the entry cannot be written
+     */
+    public void closeEntry() throws IOException {
+        if (currentEntry == null) {
+            return;
+        }
+        var entry = currentEntry;
+        currentEntry = null;
+        currentStream.finish();
+        entry.crc = currentStream.getCrc();
+        entry.compressedSize = currentStream.getCompressedSize();
+        entry.size = currentStream.getUncompressedSize();
+        currentStream = null;
+        writeInt(DATA_DESCRIPTOR_SIGNATURE);
+        writeInt(entry.crc);
+        if (entry.compressedSize >= ZIP64_LIMIT || entry.size >= ZIP64_LIMIT) {
+            writeLong(entry.compressedSize);
+            writeLong(entry.size);
+        } else {
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+        }
+        entries.add(entry);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkEntry();
+        currentStream.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkEntry();
+        currentStream.write(b, off, len);
+    }
+
+    /**
+     * Finish the current entry, write the central directory and close the
+     * underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeEntry();
+            writeCentralDirectory();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void checkEntry() throws IOException {
+        if (currentEntry == null) {
+            throw new IOException("No current zip entry");
+        }
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long start = out.count;
+        for (var entry : entries) {
+            boolean zip64Size = entry.size >= ZIP64_LIMIT;
+            boolean zip64CompressedSize = entry.compressedSize >= ZIP64_LIMIT;
+            boolean zip64Offset = entry.offset >= ZIP64_LIMIT;
+            int extraLength = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+            int version = extraLength > 0 ? VERSION_ZIP64 : VERSION;
+
+            writeInt(CENTRAL_HEADER_SIGNATURE);
+            writeShort(version); // made by
+            writeShort(version); // needed to extract
+            writeShort(FLAGS);
+            writeShort(METHOD_DEFLATED);
+            writeInt(entry.dosTime);
+            writeInt(entry.crc);
+            writeInt(zip64CompressedSize ? ZIP64_LIMIT : entry.compressedSize);
+            writeInt(zip64Size ? ZIP64_LIMIT : entry.size);
+            writeShort(entry.nameBytes.length);
+            writeShort(extraLength > 0 ? extraLength + 4 : 0);
+            writeShort(0); // comment length
+            writeShort(0); // disk number
+            writeShort(0); // internal attributes
+            writeInt(0); // external attributes
+            writeInt(zip64Offset ? ZIP64_LIMIT : entry.offset);
+            out.write(entry.nameBytes);
+            if (extraLength > 0) {
+                writeShort(0x0001); // Zip64 extended information
+                writeShort(extraLength);
+                if (zip64Size) {
+                    writeLong(entry.size);
+                }
+                if (zip64CompressedSize) {
+                    writeLong(entry.compressedSize);
+                }
+                if (zip64Offset) {
+                    writeLong(entry.offset);
+                }
+            }
+        }
+        long size = out.count - start;
+
+        boolean zip64 = entries.size() >= 0xffff || start >= ZIP64_LIMIT || size >= ZIP64_LIMIT;
+        if (zip64) {
+            long zip64End = out.count;
+            writeInt(ZIP64_END_SIGNATURE);
+            writeLong(44); // size of the remaining record
+            writeShort(VERSION_ZIP64);
+            writeShort(VERSION_ZIP64);
+            writeInt(0); // number of this disk
+            writeInt(0); // disk with the central directory
+            writeLong(entries.size());
+            writeLong(entries.size());
+            writeLong(size);
+            writeLong(start);
+
+            writeInt(ZIP64_LOCATOR_SIGNATURE);
+            writeInt(0); // disk with the Zip64 end record
+            writeLong(zip64End);
+            writeInt(1); // total number of disks
+        }
+        writeInt(END_SIGNATURE);
+        writeShort(0); // number of this disk
+        writeShort(0); // disk with the central directory
+        writeShort(Math.min(entries.size(), 0xffff));
+        writeShort(Math.min(entries.size(), 0xffff));
+        writeInt(Math.min(size, ZIP64_LIMIT));
+        writeInt(Math.min(start, ZIP64_LIMIT));
+        writeShort(0); // comment length
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+    }
+
+    private void writeInt(long value) throws IOException {
+        writeShort((int) value & 0xffff);
+        writeShort((int) (value >>> 16) & 0xffff);
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt(value & ZIP64_LIMIT);
+        writeInt(value >>> 32);
+    }
+
+    /**
+     * Zip entry with the values for the central directory.
+     */
+    private static final class Entry {
+        private final byte[] nameBytes;
+        private final int dosTime;
+        private long offset;
+        private long crc;
+        private long compressedSize;
+        private long size;
+
+        Entry(String name) {
+            nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            var now = LocalDateTime.now();
+            int time = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+            int date = ((now.getYear() - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+            dosTime = (date << 16) | time;
+        }
+    }
+
+    /**
+     * Stream which counts the written bytes (the offsets in the archive).
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
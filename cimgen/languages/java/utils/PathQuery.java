@@ -0,0 +1,366 @@
+package cim4j.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import cim4j.BaseClass;
+import cim4j.CimClassMap;
+
+/**
+ * Compiled navigation path over the CIM object graph, e.g.
+ * "SvVoltage.TopologicalNode.BaseVoltage.nominalVoltage".
+ *
+ * The first segment of a path is the CIM type of the start objects, the other
+ * segments are attribute names. All segments except the last must be class or
+ * list attributes (links to other objects). A path is validated and compiled
+ * once against the attribute metadata: each step holds the attribute getters
+ * of the classes which declare the attribute, so the evaluation needs no
+ * lookup of attribute names.
+ *
+ * An attribute which is not declared by the type of a step is searched in the
+ * subclasses of the type, e.g. the attribute Substation of VoltageLevel in
+ * "Terminal.ConductingEquipment.EquipmentContainer.Substation": linked objects
+ * of other classes (e.g. Bay) have no value. A segment can restrict the linked
+ * objects to a subclass by a type filter in brackets, e.g.
+ * "Terminal.ConductingEquipment[ACLineSegment].length".
+ *
+ * A path has several values for one start object if it contains list
+ * attributes. Unresolved links (rdfids of objects which are not in the model)
+ * end the navigation, only as the value of the last segment the rdfid is
+ * returned.
+ *
+ * A compiled path is immutable and can be evaluated by several threads.
+ */
+public final class PathQuery {
+
+    private final String path;
+    private final Class<? extends BaseClass> startType;
+    private final Step[] steps;
+    private final boolean multiValued;
+
+    private PathQuery(String path, Class<? extends BaseClass> startType, Step[] steps) {
+        this.path = path;
+        this.startType = startType;
+        this.steps = steps;
+        boolean list = false;
+        for (var step : steps) {
+            list |= step.list;
+        }
+        this.multiValued = list;
+    }
+
+    /**
+     * Validate and compile a path.
+     *
+     * @param path The path: CIM type and attribute names separated by dots
+     * @return     The compiled path
+     * @throws IllegalArgumentException if the path is invalid
+     */
+    public static PathQuery compile(String path) {
+        String[] segments = path.split("\\.", -1);
+        if (segments.length < 2) {
+            throw new IllegalArgumentException("Path without attribute: " + path);
+        }
+        var startType = CimClassMap.getCimClass(segments[0]);
+        if (startType == null) {
+            throw new IllegalArgumentException("Unknown CIM class " + segments[0] + " in path: " + path);
+        }
+        var steps = new Step[segments.length - 1];
+        Class<? extends BaseClass> type = startType;
+        for (int idx = 1; idx < segments.length; ++idx) {
+            if (type == null) {
+                throw new IllegalArgumentException("Attribute " + segments[idx - 1]
+                        + " is no class or list attribute in path: " + path);
+            }
+            var step = compileStep(type, segments[idx], path);
+            steps[idx - 1] = step;
+            type = step.linkedType;
+        }
+        return new PathQuery(path, startType, steps);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the CIM type of the start objects.
+     *
+     * @return The class of the first segment
+     */
+    public Class<? extends BaseClass> getStartType() {
+        return startType;
+    }
+
+    /**
+     * Get the type of the values: String, Double, Integer, Boolean, an enum
+     * class or a CIM class (for paths which end with a link).
+     *
+     * @return The type of the values of the last segment
+     */
+    public Class<?> getResultType() {
+        return steps[steps.length - 1].valueType;
+    }
+
+    /**
+     * Check if the path can have several values for one start object (because
+     * it contains list attributes).
+     *
+     * @return Can there be several values?
+     */
+    public boolean isMultiValued() {
+        return multiValued;
+    }
+
+    /**
+     * Evaluate the path for one start object.
+     *
+     * @param start The start object
+     * @return      All values of the path (empty if the object is not of the start
+     *              type or no value is found)
+     */
+    public List<Object> evaluate(BaseClass start) {
+        var values = new ArrayList<Object>();
+        if (startType.isInstance(start)) {
+            collect(start, 0, values);
+        }
+        return values;
+    }
+
+    /**
+     * Evaluate the path for one start object and get the first value.
+     *
+     * @param start The start object
+     * @return      The first value of the path or null
+     */
+    public Object evaluateFirst(BaseClass start) {
+        if (!startType.isInstance(start)) {
+            return null;
+        }
+        if (multiValued) {
+            var values = evaluate(start);
+            return values.isEmpty() ? null : values.get(0);
+        }
+        Object value = start;
+        for (int idx = 0; idx < steps.length; ++idx) {
+            var step = steps[idx];
+            value = step.get((BaseClass) value);
+            if (value == null) {
+                return null;
+            }
+            if (step.linkedType != null) {
+                if (value instanceof BaseClass) {
+                    if (step.filter != null && !step.filter.isInstance(value)) {
+                        return null;
+                    }
+                } else if (idx < steps.length - 1 || step.filter != null) {
+                    // Unresolved link
+                    return null;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Evaluate the path for all objects of the start type (including subclasses).
+     *
+     * @param objects  The objects, e.g. the values of a model
+     * @param parallel Evaluate in parallel threads?
+     * @return         Mapping of rdfid of the start objects with at least one value
+     *                 to the values (in the order of the objects)
+     */
+    public Map<String, List<Object>> evaluateAll(Collection<BaseClass> objects, boolean parallel) {
+        var starts = new ArrayList<BaseClass>();
+        for (var object : objects) {
+            if (startType.isInstance(object)) {
+                starts.add(object);
+            }
+        }
+        var results = new ArrayList<List<Object>>(Collections.nCopies(starts.size(), null));
+        var range = IntStream.range(0, starts.size());
+        (parallel ? range.parallel() : range).forEach(idx -> {
+            var values = new ArrayList<Object>(1);
+            collect(starts.get(idx), 0, values);
+            results.set(idx, values);
+        });
+        Map<String, List<Object>> valueMap = new LinkedHashMap<>();
+        for (int idx = 0; idx < results.size(); ++idx) {
+            if (!results.get(idx).isEmpty()) {
+                valueMap.put(starts.get(idx).getRdfid(), results.get(idx));
+            }
+        }
+        return valueMap;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private void collect(BaseClass object, int stepIdx, List<Object> values) {
+        var step = steps[stepIdx];
+        Object value = step.get(object);
+        if (value == null) {
+            return;
+        }
+        boolean last = stepIdx == steps.length - 1;
+        if (step.list) {
+            for (Object element : (Collection<?>) value) {
+                collectLinked(step, element, stepIdx, last, values);
+            }
+        } else if (step.linkedType != null) {
+            collectLinked(step, value, stepIdx, last, values);
+        } else {
+            values.add(value);
+        }
+    }
+
+    private void collectLinked(Step step, Object linked, int stepIdx, boolean last, List<Object> values) {
+        if (linked instanceof BaseClass) {
+            if (step.filter == null || step.filter.isInstance(linked)) {
+                if (last) {
+                    values.add(linked);
+                } else {
+                    collect((BaseClass) linked, stepIdx + 1, values);
+                }
+            }
+        } else if (last && step.filter == null) {
+            // Unresolved link: the rdfid
+            values.add(linked);
+        }
+    }
+
+    private static Step compileStep(Class<? extends BaseClass> type, String segment, String path) {
+        String attrName = segment;
+        Class<? extends BaseClass> filter = null;
+        int bracket = segment.indexOf('[');
+        if (bracket >= 0) {
+            if (!segment.endsWith("]")) {
+                throw new IllegalArgumentException("Invalid segment " + segment + " in path: " + path);
+            }
+            attrName = segment.substring(0, bracket);
+            String filterName = segment.substring(bracket + 1, segment.length() - 1);
+            filter = CimClassMap.getCimClass(filterName);
+            if (filter == null) {
+                throw new IllegalArgumentException("Unknown CIM class " + filterName + " in path: " + path);
+            }
+        }
+
+        // Classes declaring the attribute: the type itself or subclasses
+        var declaringClasses = new LinkedHashSet<Class<? extends BaseClass>>();
+        var prototype = CimClassMap.createCimObject(type, "");
+        if (prototype.getAttributeNames().contains(attrName)) {
+            declaringClasses.add(type);
+        } else {
+            for (String className : CimClassMap.getCimClassNames()) {
+                var cimClass = CimClassMap.getCimClass(className);
+                if (cimClass != type && type.isAssignableFrom(cimClass)) {
+                    var object = CimClassMap.createCimObject(cimClass, "");
+                    if (object.getAttributeNames().contains(attrName)) {
+                        String fullName = object.getAttributeFullName(attrName);
+                        declaringClasses.add(CimClassMap.getCimClass(fullName.substring(0, fullName.indexOf('.'))));
+                    }
+                }
+            }
+        }
+        if (declaringClasses.isEmpty()) {
+            throw new IllegalArgumentException("Unknown attribute " + attrName + " of " + type.getSimpleName()
+                    + " in path: " + path);
+        }
+
+        var classes = new ArrayList<Class<? extends BaseClass>>();
+        var getters = new ArrayList<BaseClass.AttributeGetter>();
+        Class<?> valueType = null;
+        Boolean list = null;
+        Boolean link = null;
+        for (var cimClass : declaringClasses) {
+            var object = CimClassMap.createCimObject(cimClass, "");
+            boolean isLink = !object.isPrimitiveAttribute(attrName) && !object.isEnumAttribute(attrName);
+            if (list != null && (list != object.isListAttribute(attrName) || link != isLink)) {
+                throw new IllegalArgumentException("Ambiguous attribute " + attrName + " of " + type.getSimpleName()
+                        + " in path: " + path);
+            }
+            list = object.isListAttribute(attrName);
+            link = isLink;
+            valueType = commonType(valueType, object.getAttributeType(attrName));
+            classes.add(cimClass);
+            getters.add(object.getAttributeGetter(attrName));
+        }
+
+        Class<? extends BaseClass> linkedType = null;
+        if (link) {
+            linkedType = valueType.asSubclass(BaseClass.class);
+            if (filter != null) {
+                if (!linkedType.isAssignableFrom(filter)) {
+                    throw new IllegalArgumentException("Type filter " + filter.getSimpleName() + " is no subclass of "
+                            + linkedType.getSimpleName() + " in path: " + path);
+                }
+                linkedType = filter;
+                valueType = filter;
+            }
+        } else if (filter != null) {
+            throw new IllegalArgumentException("Type filter of attribute " + attrName
+                    + " which is no class or list attribute in path: " + path);
+        }
+        return new Step(classes, getters, list, linkedType, filter, valueType);
+    }
+
+    /**
+     * Get the nearest common superclass of two types (for an attribute declared by
+     * several subclasses with different types).
+     */
+    private static Class<?> commonType(Class<?> type1, Class<?> type2) {
+        if (type1 == null || type1.isAssignableFrom(type2)) {
+            return type1 != null ? type1 : type2;
+        }
+        Class<?> type = type2;
+        while (!type.isAssignableFrom(type1)) {
+            type = type.getSuperclass();
+        }
+        return type;
+    }
+
+    /**
+     * Compiled step of a path: the getters of the classes which declare the
+     * attribute.
+     */
+    private static final class Step {
+        private final Class<?>[] classes;
+        private final BaseClass.AttributeGetter[] getters;
+        private final boolean list;
+        // Type of the linked objects (null for primitive and enum attributes)
+        private final Class<? extends BaseClass> linkedType;
+        private final Class<? extends BaseClass> filter;
+        private final Class<?> valueType;
+
+        Step(List<Class<? extends BaseClass>> classes, List<BaseClass.AttributeGetter> getters, boolean list,
+                Class<? extends BaseClass> linkedType, Class<? extends BaseClass> filter, Class<?> valueType) {
+            this.classes = classes.toArray(new Class<?>[0]);
+            this.getters = getters.toArray(new BaseClass.AttributeGetter[0]);
+            this.list = list;
+            this.linkedType = linkedType;
+            this.filter = filter;
+            this.valueType = valueType;
+        }
+
+        /**
+         * Get the attribute value of an object (null if the class of the object
+         * does not have the attribute).
+         */
+        Object get(BaseClass object) {
+            for (int idx = 0; idx < classes.length; ++idx) {
+                if (classes[idx].isInstance(object)) {
+                    return getters[idx].get(object);
+                }
+            }
+            return null;
+        }
+    }
+}
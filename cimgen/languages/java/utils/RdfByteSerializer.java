@@ -0,0 +1,422 @@
+package cim4j.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.CimConstants;
+import cim4j.CimEnum;
+
+/**
+ * Serializer of RDF files which encodes the output directly to UTF-8 bytes.
+ *
+ * The output has the same bytes as the output of RdfWriter by the
+ * XMLStreamWriter, but the fixed RDF/XML shape is written without the
+ * namespace bookkeeping of the XMLStreamWriter: the tags of the classes and
+ * attributes are encoded once and cached, text is escaped by a fast path for
+ * ASCII. The bytes are written to reusable direct byte buffers, the filled
+ * buffers are written to the file channel by a separate I/O thread, so the
+ * serialization and the disk writes overlap.
+ *
+ * A serializer writes one file and is not thread-safe.
+ */
+final class RdfByteSerializer implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int BUFFER_COUNT = 4;
+    // Maximum number of bytes of an escaped char (&quot;)
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final ByteBuffer END_OF_OUTPUT = ByteBuffer.allocate(0);
+
+    private static final byte[] XML_DECLARATION = bytes("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+    private static final byte[] OBJECT_INDENT = bytes("\n  <");
+    private static final byte[] ATTRIBUTE_INDENT = bytes("\n    <");
+    private static final byte[] OBJECT_END_INDENT = bytes("\n  </");
+    private static final byte[] START_TAG_END = bytes("\">");
+    private static final byte[] EMPTY_TAG_END = bytes("\"/>");
+    private static final byte[] AMP = bytes("&amp;");
+    private static final byte[] LT = bytes("&lt;");
+    private static final byte[] GT = bytes("&gt;");
+    private static final byte[] QUOT = bytes("&quot;");
+
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final BlockingQueue<ByteBuffer> filledBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final Thread ioThread;
+    private volatile Throwable ioError = null;
+    private ByteBuffer buffer;
+    private boolean finished = false;
+
+    private final Map<String, String> prefixes = new HashMap<>();
+    private final Map<String, byte[]> classTags = new HashMap<>();
+    private final Map<String, AttributeTags> attributeTags = new HashMap<>();
+    private byte[] rdfId;
+    private byte[] rdfAbout;
+    private byte[] rdfResource;
+
+    /**
+     * Create the file and start the I/O thread.
+     *
+     * @param path The file to write
+     * @throws IOException if the file cannot be created
+     */
+    RdfByteSerializer(String path) throws IOException {
+        channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        for (int idx = 0; idx < BUFFER_COUNT; ++idx) {
+            freeBuffers.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        buffer = freeBuffers.poll();
+        ioThread = new Thread(this::writeBuffers, "cim4j-rdf-writer");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Write the start of an RDF document like RdfWriter.startDocument.
+     *
+     * @param usedNamespaces Mapping of namespace key to URL of the namespaces to
+     *                       declare (md is added for a profile)
+     * @param profile        The profile of the document (or null)
+     * @param modelId        The model ID written to the header
+     */
+    void startDocument(Map<String, String> usedNamespaces, CGMESProfile profile, String modelId)
+            throws IOException {
+        if (profile != null) {
+            usedNamespaces.put("md", CimConstants.NAMESPACES_MAP.get("md"));
+        }
+        var nsList = new ArrayList<>(usedNamespaces.keySet());
+        Collections.sort(nsList);
+        for (var ns : nsList) {
+            prefixes.put(usedNamespaces.get(ns), ns);
+        }
+        String rdf = getPrefix(CimConstants.NAMESPACES_MAP.get("rdf"));
+        rdfId = bytes(" " + rdf + ":ID=\"");
+        rdfAbout = bytes(" " + rdf + ":about=\"#");
+        rdfResource = bytes(" " + rdf + ":resource=\"");
+
+        put(XML_DECLARATION);
+        put(bytes("<" + rdf + ":RDF"));
+        for (var ns : nsList) {
+            put(bytes(" xmlns:" + ns + "=\""));
+            putEscaped(usedNamespaces.get(ns), true);
+            put(bytes("\""));
+        }
+        put(bytes(">"));
+
+        if (profile != null) {
+            String md = getPrefix(CimConstants.NAMESPACES_MAP.get("md"));
+            put(OBJECT_INDENT);
+            put(bytes(md + ":FullModel"));
+            put(rdfAbout);
+            putEscaped(modelId, true);
+            put(START_TAG_END);
+            var attrTags = new AttributeTags(md + ":Model.profile");
+            for (var uri : profile.getUris()) {
+                put(attrTags.start);
+                putEscaped(uri, false);
+                put(attrTags.end);
+            }
+            put(OBJECT_END_INDENT);
+            put(bytes(md + ":FullModel>"));
+        }
+    }
+
+    /**
+     * Write a CIM object like RdfWriter.writeObject.
+     *
+     * @param rdfid             The RDF ID of the CIM object
+     * @param cimObj            The CIM object
+     * @param profile           Only attributes of this profile are written (if
+     *                          specified)
+     * @param classProfile      Main profile of the CIM type (null without profile)
+     * @param mainEntryOfObject Write the object with rdf:ID (else with rdf:about)?
+     */
+    void writeObject(String rdfid, BaseClass cimObj, CGMESProfile profile, CGMESProfile classProfile,
+            boolean mainEntryOfObject) throws IOException {
+        byte[] classTag = classTags.get(cimObj.getCimType());
+        if (classTag == null) {
+            classTag = bytes(getPrefix(cimObj.getClassNamespaceUrl()) + ":" + cimObj.getCimType());
+            classTags.put(cimObj.getCimType(), classTag);
+        }
+        put(OBJECT_INDENT);
+        put(classTag);
+        if (mainEntryOfObject) {
+            put(rdfId);
+        } else {
+            put(rdfAbout);
+        }
+        putEscaped(rdfid, true);
+        put(START_TAG_END);
+
+        for (String attrName : cimObj.getAttributeNames()) {
+            if (cimObj.isUsedAttribute(attrName) && (profile == null
+                    || RdfWriter.getAttributeProfile(cimObj, attrName, classProfile) == profile)) {
+                Object attr = cimObj.getAttribute(attrName);
+                if (attr != null) {
+                    var tags = getAttributeTags(cimObj, attrName);
+                    if (cimObj.isPrimitiveAttribute(attrName)) {
+                        put(tags.start);
+                        putEscaped(attr.toString(), false);
+                        put(tags.end);
+                    } else if (attr instanceof CimEnum) {
+                        put(tags.emptyStart);
+                        putEscaped(cimObj.getAttributeNamespaceUrl(attrName), true);
+                        putEscaped(((CimEnum) attr).getResourceName(), true);
+                        put(EMPTY_TAG_END);
+                    } else if (cimObj.isEnumAttribute(attrName)) {
+                        put(tags.emptyStart);
+                        putEscaped(RdfWriter.getEnumResource(cimObj.getAttributeNamespaceUrl(attrName), attr), true);
+                        put(EMPTY_TAG_END);
+                    } else if (attr instanceof BaseClass) {
+                        writeResource(tags, ((BaseClass) attr).getRdfid());
+                    } else if (attr instanceof Set<?>) {
+                        var resources = new TreeSet<String>(); // automatically sorted
+                        for (var attrItem : ((Set<?>) attr)) {
+                            if (attrItem instanceof BaseClass) {
+                                resources.add(((BaseClass) attrItem).getRdfid());
+                            } else {
+                                resources.add((String) attrItem);
+                            }
+                        }
+                        for (String resource : resources) {
+                            writeResource(tags, resource);
+                        }
+                    } else if (attr instanceof String) {
+                        writeResource(tags, (String) attr);
+                    }
+                }
+            }
+        }
+        put(OBJECT_END_INDENT);
+        put(classTag);
+        put((byte) '>');
+    }
+
+    /**
+     * Write the end of the RDF document like RdfWriter.endDocument, write the
+     * remaining data and close the file.
+     */
+    void endDocument() throws IOException {
+        put(bytes("\n</" + getPrefix(CimConstants.NAMESPACES_MAP.get("rdf")) + ":RDF>\n"));
+        finish();
+    }
+
+    /**
+     * Stop the I/O thread and close the file (also after an error).
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            finished = true;
+            filledBuffers.offer(END_OF_OUTPUT);
+            ioThread.interrupt();
+            channel.close();
+        }
+    }
+
+    private void finish() throws IOException {
+        handOff();
+        finished = true;
+        try {
+            filledBuffers.put(END_OF_OUTPUT);
+            ioThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing rdf file");
+        } finally {
+            channel.close();
+        }
+        checkIoError();
+    }
+
+    private void writeResource(AttributeTags tags, String rdfid) throws IOException {
+        put(tags.emptyStart);
+        put((byte) '#');
+        putEscaped(rdfid, true);
+        put(EMPTY_TAG_END);
+    }
+
+    private AttributeTags getAttributeTags(BaseClass cimObj, String attrName) throws IOException {
+        String namespaceUrl = cimObj.getAttributeNamespaceUrl(attrName);
+        String attrFullName = cimObj.getAttributeFullName(attrName);
+        String key = namespaceUrl + attrFullName;
+        var tags = attributeTags.get(key);
+        if (tags == null) {
+            tags = new AttributeTags(getPrefix(namespaceUrl) + ":" + attrFullName);
+            attributeTags.put(key, tags);
+        }
+        return tags;
+    }
+
+    private String getPrefix(String namespaceUrl) throws IOException {
+        var prefix = prefixes.get(namespaceUrl);
+        if (prefix == null) {
+            throw new IOException("No prefix for namespace: " + namespaceUrl);
+        }
+        return prefix;
+    }
+
+    private void put(byte value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            handOff();
+        }
+        buffer.put(value);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            handOff();
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Encode a string to UTF-8 with escaping of &amp;, &lt; and &gt; (and &quot;
+     * in attribute values) like the XMLStreamWriter.
+     */
+    private void putEscaped(String value, boolean attribute) throws IOException {
+        int length = value.length();
+        int idx = 0;
+        while (idx < length) {
+            if (buffer.remaining() < MAX_CHAR_BYTES) {
+                handOff();
+            }
+            // Fast path: as many chars as fit into the buffer without checking the space
+            int end = Math.min(length, idx + buffer.remaining() / MAX_CHAR_BYTES);
+            for (; idx < end; ++idx) {
+                char c = value.charAt(idx);
+                if (c < 0x80) {
+                    if (c == '&') {
+                        buffer.put(AMP);
+                    } else if (c == '<') {
+                        buffer.put(LT);
+                    } else if (c == '>') {
+                        buffer.put(GT);
+                    } else if (c == '"' && attribute) {
+                        buffer.put(QUOT);
+                    } else {
+                        buffer.put((byte) c);
+                    }
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xc0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3f)));
+                } else if (Character.isHighSurrogate(c) && idx + 1 < length
+                        && Character.isLowSurrogate(value.charAt(idx + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++idx));
+                    buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogate: replaced like by the UTF-8 encoder of a Writer
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xe0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                    buffer.put((byte) (0x80 | (c & 0x3f)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Pass the current buffer to the I/O thread and continue with a free buffer.
+     */
+    private void handOff() throws IOException {
+        checkIoError();
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            filledBuffers.put(buffer);
+            ByteBuffer next = null;
+            while (next == null) {
+                next = freeBuffers.poll(100, TimeUnit.MILLISECONDS);
+                checkIoError();
+            }
+            buffer = next;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing rdf file");
+        }
+    }
+
+    private void checkIoError() throws IOException {
+        var error = ioError;
+        if (error != null) {
+            throw new IOException("Error while writing rdf file", error);
+        }
+    }
+
+    /**
+     * Loop of the I/O thread: write the filled buffers to the file channel.
+     */
+    private void writeBuffers() {
+        try {
+            while (true) {
+                var filled = filledBuffers.take();
+                if (filled == END_OF_OUTPUT) {
+                    return;
+                }
+                while (filled.hasRemaining()) {
+                    channel.write(filled);
+                }
+                filled.clear();
+                freeBuffers.put(filled);
+            }
+        } catch (Throwable ex) {
+            ioError = ex;
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encoded tags of an attribute.
+     */
+    private final class AttributeTags {
+        private final byte[] start;
+        private final byte[] end;
+        private final byte[] emptyStart;
+
+        AttributeTags(String qualifiedName) {
+            var name = bytes(qualifiedName);
+            start = concat(ATTRIBUTE_INDENT, name, bytes(">"));
+            end = concat(bytes("</"), name, bytes(">"));
+            emptyStart = concat(ATTRIBUTE_INDENT, name, rdfResource);
+        }
+
+        private byte[] concat(byte[]... parts) {
+            int length = 0;
+            for (var part : parts) {
+                length += part.length;
+            }
+            byte[] result = new byte[length];
+            int pos = 0;
+            for (var part : parts) {
+                System.arraycopy(part, 0, result, pos, part.length);
+                pos += part.length;
+            }
+            return result;
+        }
+    }
+}
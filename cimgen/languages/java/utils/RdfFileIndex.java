@@ -0,0 +1,1051 @@
+package cim4j.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import cim4j.BaseClass;
+import cim4j.CimClassMap;
+import cim4j.CimConstants;
+import cim4j.Logging;
+
+/**
+ * Random-access index of the elements of a large RDF file: rdfid to byte
+ * offset, length and CIM type of the element.
+ *
+ * The index is built by one scan over the bytes of the file without XML
+ * parsing: only the markup of the top-level elements (the children of the
+ * rdf:RDF root element) is examined. The index is stored in a sidecar file
+ * next to the RDF file (file name with the suffix ".idx"), which is reused as
+ * long as the size and modification time of the RDF file do not change.
+ *
+ * Lookups memory-map the RDF file and parse only the elements of the requested
+ * objects, so single objects of multi-GB files are available in milliseconds
+ * without reading the whole file. The referenced objects are loaded on demand:
+ * up to a depth of references by load or for one attribute by resolve. Objects
+ * which are described by several elements of the file (rdf:ID and rdf:about)
+ * get the attributes of all elements.
+ *
+ * Only the references of the loaded objects can be followed, objects which
+ * reference a loaded object (e.g. the equipment of a substation) can be found
+ * by their CIM type (see getRdfids).
+ *
+ * Java has no API to unmap a file: close closes the file channel and drops the
+ * mapped windows, but the mapping itself is only released when the windows are
+ * garbage collected. Until then the RDF file stays mapped (and on Windows it
+ * cannot be deleted or replaced).
+ *
+ * An index is not thread-safe.
+ */
+public final class RdfFileIndex implements Closeable {
+
+    private static final Logging LOG = Logging.getLogger(RdfFileIndex.class);
+
+    private static final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
+    private static final String MD = CimConstants.NAMESPACES_MAP.get("md"); // ModelDescription
+
+    /**
+     * Suffix of the index file.
+     */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private static final byte[] MAGIC = "CIMIDX01".getBytes(StandardCharsets.US_ASCII);
+    private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final String path;
+    private final byte[] prologue;
+    private final byte[] epilogue;
+    private final String[] types;
+    private final byte[] idBytes;
+    private final int[] idStarts;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] typeFlags;
+    private final int maxLength;
+    private final RdfReader reader = new RdfReader();
+    private FileChannel channel;
+    private MappedByteBuffer[] windows;
+
+    private RdfFileIndex(String path, Content content) {
+        this.path = path;
+        this.prologue = content.prologue;
+        this.epilogue = ("</" + content.rootName + ">").getBytes(StandardCharsets.UTF_8);
+        this.types = content.types;
+        this.idBytes = content.idBytes;
+        this.idStarts = content.idStarts;
+        this.offsets = content.offsets;
+        this.lengths = content.lengths;
+        this.typeFlags = content.typeFlags;
+        int max = 0;
+        for (int length : lengths) {
+            max = Math.max(max, length);
+        }
+        this.maxLength = max;
+    }
+
+    /**
+     * Open the index of an RDF file. The index file is created (or recreated) if
+     * it does not exist, does not match the RDF file or cannot be read (e.g. a
+     * corrupt file).
+     *
+     * @param path Path of the RDF file
+     * @return     The index
+     */
+    public static RdfFileIndex open(String path) {
+        var file = new File(path);
+        var indexFile = new File(getIndexPath(path));
+        if (indexFile.isFile()) {
+            try (var in = new BufferedInputStream(new FileInputStream(indexFile))) {
+                var content = Content.read(in, indexFile.length(), file.length(), file.lastModified());
+                if (content != null) {
+                    LOG.info("Opened index of %s with %d elements", path, content.offsets.length);
+                    return new RdfFileIndex(path, content);
+                }
+                LOG.info("Index of %s is outdated", path);
+            } catch (Exception ex) {
+                LOG.warn("Cannot read index file %s, rebuilding it: %s", indexFile, ex);
+            }
+        }
+        return build(path);
+    }
+
+    /**
+     * Build the index of an RDF file by scanning the file and write the index
+     * file.
+     *
+     * The index file is written to a temporary file which is then moved to the
+     * index path, so an interrupted build never leaves a partial index file.
+     *
+     * @param path Path of the RDF file
+     * @return     The index
+     */
+    public static RdfFileIndex build(String path) {
+        var file = new File(path);
+        long start = System.nanoTime();
+        Content content;
+        try (var stream = new FileInputStream(file)) {
+            // Size and modification time before the scan: a file modified while
+            // scanning gets an outdated index
+            long size = file.length();
+            long lastModified = file.lastModified();
+            content = new Scanner().scan(stream).toContent();
+            content.fileSize = size;
+            content.lastModified = lastModified;
+        } catch (Exception ex) {
+            String txt = "Error while scanning RDF file: " + path;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+        var indexPath = Path.of(getIndexPath(path)).toAbsolutePath();
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+            try (var out = new BufferedOutputStream(Files.newOutputStream(tempPath))) {
+                content.write(out);
+            }
+            Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception ex) {
+            deleteQuietly(tempPath);
+            String txt = "Error while writing index file: " + indexPath;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+        LOG.info("Indexed %d elements of %s in %d ms", content.offsets.length, path,
+                (System.nanoTime() - start) / 1000000);
+        return new RdfFileIndex(path, content);
+    }
+
+    /**
+     * Get the path of the index file of an RDF file.
+     *
+     * @param path Path of the RDF file
+     * @return     Path of the index file
+     */
+    public static String getIndexPath(String path) {
+        return path + INDEX_SUFFIX;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the number of indexed elements (an object described by several
+     * elements is counted once per element).
+     *
+     * @return The number of elements
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Check if the file contains an element of an rdfid.
+     *
+     * @param rdfid The rdfid
+     * @return      Is the rdfid indexed?
+     */
+    public boolean contains(String rdfid) {
+        return find(rdfid) >= 0;
+    }
+
+    /**
+     * Get the CIM type of an rdfid, i.e. the type of the element with rdf:ID (or
+     * of the first element with rdf:about).
+     *
+     * @param rdfid The rdfid
+     * @return      The CIM type or null if the rdfid is not indexed
+     */
+    public String getCimType(String rdfid) {
+        int first = find(rdfid);
+        return first >= 0 ? types[typeFlags[mainEntry(first)] >>> 1] : null;
+    }
+
+    /**
+     * Get the rdfids of the objects of a CIM type (without subclasses).
+     *
+     * @param cimType The CIM type
+     * @return        The rdfids of the elements with the type (sorted)
+     */
+    public List<String> getRdfids(String cimType) {
+        int typeIdx = Arrays.asList(types).indexOf(cimType);
+        var rdfids = new ArrayList<String>();
+        if (typeIdx >= 0) {
+            for (int idx = 0; idx < typeFlags.length; ++idx) {
+                // First entry of each rdfid
+                if ((idx == 0 || compareIds(idx - 1, idx) != 0) && typeFlags[mainEntry(idx)] >>> 1 == typeIdx) {
+                    rdfids.add(getId(idx));
+                }
+            }
+        }
+        return rdfids;
+    }
+
+    /**
+     * Get one object. Class and list attributes are not linked (they hold the
+     * rdfids of the referenced objects).
+     *
+     * @param rdfid The rdfid
+     * @return      The object or null if the rdfid is not indexed or has no known
+     *              CIM type
+     */
+    public BaseClass get(String rdfid) {
+        return parseObjects(List.of(rdfid)).get(rdfid);
+    }
+
+    /**
+     * Load objects and the objects they reference up to a depth of references.
+     * The references between the loaded objects are linked, references to
+     * objects which are not loaded remain rdfids.
+     *
+     * @param rdfids The rdfids of the objects
+     * @param depth  Depth of references to follow (0: only the objects,
+     *               Integer.MAX_VALUE: all reachable objects)
+     * @return       CIM data as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> load(Collection<String> rdfids, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Invalid depth: " + depth);
+        }
+        Map<String, BaseClass> model = new LinkedHashMap<>();
+        List<String> pending = new ArrayList<>(rdfids);
+        for (int level = 0; !pending.isEmpty(); ++level) {
+            var objects = parseObjects(pending);
+            model.putAll(objects);
+            pending = new ArrayList<>();
+            if (level < depth) {
+                for (var cimObj : objects.values()) {
+                    for (String attrName : cimObj.getAttributeNames()) {
+                        for (String reference : getReferences(cimObj, attrName)) {
+                            if (!model.containsKey(reference) && contains(reference)) {
+                                pending.add(reference);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (var cimObj : model.values()) {
+            for (String attrName : cimObj.getAttributeNames()) {
+                for (String reference : getReferences(cimObj, attrName)) {
+                    var target = model.get(reference);
+                    if (target != null) {
+                        link(cimObj, attrName, target);
+                    }
+                }
+            }
+        }
+        LOG.debug("Loaded %d objects from %s", model.size(), path);
+        return model;
+    }
+
+    /**
+     * Load the objects referenced by a class or list attribute of an object
+     * and link them to the object.
+     *
+     * @param cimObj   The object
+     * @param attrName The attribute name
+     * @return         The referenced objects (already linked or loaded)
+     */
+    public List<BaseClass> resolve(BaseClass cimObj, String attrName) {
+        if (!cimObj.getAttributeNames().contains(attrName) || cimObj.isPrimitiveAttribute(attrName)
+                || cimObj.isEnumAttribute(attrName)) {
+            throw new IllegalArgumentException("No class or list attribute: " + cimObj.getCimType() + "."
+                    + attrName);
+        }
+        var linked = new ArrayList<BaseClass>();
+        Object value = cimObj.getAttribute(attrName);
+        if (value instanceof BaseClass) {
+            linked.add((BaseClass) value);
+        } else if (value instanceof Collection<?>) {
+            for (Object element : (Collection<?>) value) {
+                if (element instanceof BaseClass) {
+                    linked.add((BaseClass) element);
+                }
+            }
+        }
+        var references = getReferences(cimObj, attrName);
+        var objects = parseObjects(references);
+        for (String reference : references) {
+            var target = objects.get(reference);
+            if (target != null && link(cimObj, attrName, target)) {
+                linked.add(target);
+            }
+        }
+        return linked;
+    }
+
+    /**
+     * Close the file channel and drop the references to the mapped windows.
+     *
+     * The elements are copied out of the windows while reading, so nothing
+     * refers to the windows after close and the mapping is released by the
+     * next garbage collection. The index can still be used after close, the
+     * file is opened and mapped again if needed.
+     */
+    @Override
+    public void close() {
+        windows = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                LOG.warn("Cannot close %s: %s", path, ex.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private static void deleteQuietly(Path tempPath) {
+        if (tempPath != null) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException ex) {
+                LOG.warn("Cannot delete %s: %s", tempPath, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the rdfids of the unresolved references of a class or list attribute.
+     */
+    private static List<String> getReferences(BaseClass cimObj, String attrName) {
+        if (cimObj.isPrimitiveAttribute(attrName) || cimObj.isEnumAttribute(attrName)) {
+            return List.of();
+        }
+        Object value = cimObj.getAttribute(attrName);
+        if (value instanceof String) {
+            return List.of((String) value);
+        }
+        var references = new ArrayList<String>();
+        if (value instanceof Set<?>) {
+            for (Object element : (Set<?>) value) {
+                if (element instanceof String) {
+                    references.add((String) element);
+                }
+            }
+        }
+        return references;
+    }
+
+    private boolean link(BaseClass cimObj, String attrName, BaseClass target) {
+        try {
+            cimObj.setAttribute(attrName, target);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            LOG.debug("Cannot set attribute %s with attribute object: %s", attrName, target);
+            return false;
+        }
+    }
+
+    /**
+     * Parse the elements of the objects (in one XML document) and create the
+     * objects without linking.
+     */
+    private Map<String, BaseClass> parseObjects(Collection<String> rdfids) {
+        var document = new ByteArrayOutputStream();
+        document.write(prologue, 0, prologue.length);
+        Map<String, String> classNames = new HashMap<>();
+        for (String rdfid : rdfids) {
+            int first = find(rdfid);
+            if (first < 0 || classNames.containsKey(rdfid)) {
+                continue;
+            }
+            classNames.put(rdfid, types[typeFlags[mainEntry(first)] >>> 1]);
+            for (int idx = first; idx < offsets.length && (idx == first || compareIds(first, idx) == 0); ++idx) {
+                byte[] element = readElement(offsets[idx], lengths[idx]);
+                document.write(element, 0, element.length);
+                document.write('\n');
+            }
+        }
+        document.write(epilogue, 0, epilogue.length);
+
+        Map<String, BaseClass> objects = new LinkedHashMap<>();
+        RdfParser.parse(new ByteArrayInputStream(document.toByteArray()), element -> {
+            var cimObj = objects.get(element.id);
+            if (cimObj == null) {
+                String className = classNames.get(element.id);
+                if (className == null || !CimClassMap.isCimClass(className)) {
+                    LOG.debug("Unknown CIM class %s of %s", className, element.id);
+                    return;
+                }
+                cimObj = CimClassMap.createCimObject(className, element.id);
+                objects.put(element.id, cimObj);
+            }
+            reader.setAttributes(cimObj, element);
+        });
+        return objects;
+    }
+
+    /**
+     * Read the bytes of an element from the memory-mapped file.
+     *
+     * The file is mapped in windows of 1 GB which overlap by the length of the
+     * longest element, so each element is contained in the window of its
+     * offset.
+     */
+    private byte[] readElement(long offset, int length) {
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+                long windowCount = (channel.size() + WINDOW_SIZE - 1) / WINDOW_SIZE;
+                windows = new MappedByteBuffer[(int) Math.max(windowCount, 1)];
+            }
+            int windowIdx = (int) (offset / WINDOW_SIZE);
+            var window = windows[windowIdx];
+            if (window == null) {
+                long start = windowIdx * WINDOW_SIZE;
+                long size = Math.min(WINDOW_SIZE + maxLength, channel.size() - start);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                windows[windowIdx] = window;
+            }
+            var element = new byte[length];
+            window.get((int) (offset - windowIdx * WINDOW_SIZE), element);
+            return element;
+        } catch (Exception ex) {
+            String txt = "Error while reading element at offset " + offset + " of " + path;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+    }
+
+    /**
+     * Find the first entry of an rdfid (binary search over the sorted rdfids).
+     */
+    private int find(String rdfid) {
+        byte[] key = rdfid.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = offsets.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareBytes(idBytes, idStarts[mid], idStarts[mid + 1], key, 0, key.length);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                if (cmp == 0) {
+                    found = mid;
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get the entry of the element with rdf:ID of an rdfid (or the first entry).
+     */
+    private int mainEntry(int first) {
+        for (int idx = first; idx < offsets.length && (idx == first || compareIds(first, idx) == 0); ++idx) {
+            if ((typeFlags[idx] & 1) == 0) {
+                return idx;
+            }
+        }
+        return first;
+    }
+
+    private String getId(int idx) {
+        return new String(idBytes, idStarts[idx], idStarts[idx + 1] - idStarts[idx], StandardCharsets.UTF_8);
+    }
+
+    private int compareIds(int idx1, int idx2) {
+        return compareBytes(idBytes, idStarts[idx1], idStarts[idx1 + 1], idBytes, idStarts[idx2], idStarts[idx2 + 1]);
+    }
+
+    private static int compareBytes(byte[] bytes1, int start1, int end1, byte[] bytes2, int start2, int end2) {
+        return Arrays.compareUnsigned(bytes1, start1, end1, bytes2, start2, end2);
+    }
+
+    /**
+     * Content of an index: the prologue of the RDF file (up to the end of the
+     * root start tag), the CIM types and the entries sorted by rdfid.
+     *
+     * Index file: magic, size and modification time of the RDF file, prologue,
+     * root element name, CIM types, number of entries, the rdfids (UTF-8), for
+     * each entry the variable-length encoded rdfid length, offset, element length
+     * and CIM type index (shifted left by one, the lowest bit is set for
+     * rdf:about) and the CRC32 checksum of all preceding bytes.
+     */
+    private static final class Content {
+        long fileSize;
+        long lastModified;
+        byte[] prologue;
+        String rootName;
+        String[] types;
+        byte[] idBytes;
+        int[] idStarts;
+        long[] offsets;
+        int[] lengths;
+        int[] typeFlags;
+
+        void write(OutputStream stream) throws IOException {
+            var checked = new CheckedOutputStream(stream, new CRC32());
+            var out = new DataOutputStream(checked);
+            out.write(MAGIC);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeInt(prologue.length);
+            out.write(prologue);
+            out.writeUTF(rootName);
+            out.writeInt(types.length);
+            for (String type : types) {
+                out.writeUTF(type);
+            }
+            int count = offsets.length;
+            out.writeInt(count);
+            out.writeInt(idBytes.length);
+            out.write(idBytes);
+            for (int idx = 0; idx < count; ++idx) {
+                writeVarLong(out, idStarts[idx + 1] - idStarts[idx]);
+                writeVarLong(out, offsets[idx]);
+                writeVarLong(out, lengths[idx]);
+                writeVarLong(out, typeFlags[idx]);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+        }
+
+        /**
+         * Read an index file.
+         *
+         * @return The content or null if the index file does not match the RDF file
+         */
+        static Content read(InputStream stream, long indexLength, long fileSize, long lastModified)
+                throws IOException {
+            var checked = new CheckedInputStream(stream, new CRC32());
+            var in = new DataInputStream(checked);
+            var magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("No index file");
+            }
+            var content = new Content();
+            content.fileSize = in.readLong();
+            content.lastModified = in.readLong();
+            if (content.fileSize != fileSize || content.lastModified != lastModified) {
+                return null;
+            }
+            content.prologue = new byte[checkSize(in.readInt(), indexLength)];
+            in.readFully(content.prologue);
+            content.rootName = in.readUTF();
+            content.types = new String[checkSize(in.readInt(), indexLength)];
+            for (int idx = 0; idx < content.types.length; ++idx) {
+                content.types[idx] = in.readUTF();
+            }
+            int count = checkSize(in.readInt(), indexLength);
+            content.idBytes = new byte[checkSize(in.readInt(), indexLength)];
+            in.readFully(content.idBytes);
+            content.idStarts = new int[count + 1];
+            content.offsets = new long[count];
+            content.lengths = new int[count];
+            content.typeFlags = new int[count];
+            for (int idx = 0; idx < count; ++idx) {
+                content.idStarts[idx + 1] = content.idStarts[idx] + (int) readVarLong(in);
+                content.offsets[idx] = readVarLong(in);
+                content.lengths[idx] = (int) readVarLong(in);
+                content.typeFlags[idx] = (int) readVarLong(in);
+            }
+            long checksum = checked.getChecksum().getValue();
+            if (content.idStarts[count] != content.idBytes.length || in.readLong() != checksum || in.read() >= 0) {
+                throw new IOException("Corrupt index file");
+            }
+            return content;
+        }
+
+        /**
+         * Check a size read from the index file: no size can exceed the length of
+         * the index file.
+         */
+        private static int checkSize(int size, long indexLength) throws IOException {
+            if (size < 0 || size > indexLength) {
+                throw new IOException("Corrupt index file");
+            }
+            return size;
+        }
+
+        private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static long readVarLong(DataInputStream in) throws IOException {
+            long value = 0;
+            for (int shift = 0;; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Scanner of the markup of an RDF file: finds the start and end of each
+     * child element of the root element and its CIM type and rdfid.
+     *
+     * Only start tags of the root element and its children are collected and
+     * parsed, nested elements are counted. Quoted attribute values, comments,
+     * CDATA sections, processing instructions and declarations are skipped.
+     */
+    private static final class Scanner {
+        private static final int TEXT = 0;
+        private static final int MARKUP = 1;
+        private static final int START_TAG = 2;
+        private static final int END_TAG = 3;
+        private static final int BANG = 4;
+        private static final int COMMENT = 5;
+        private static final int CDATA = 6;
+        private static final int PROCESSING_INSTRUCTION = 7;
+        private static final int DECLARATION = 8;
+
+        private final ByteArrayOutputStream prologue = new ByteArrayOutputStream();
+        private byte[] prologueBytes;
+        private String rootName;
+        private String rdfPrefix;
+        private String mdPrefix;
+        private final Map<String, Integer> typeIndexMap = new LinkedHashMap<>();
+
+        // Start tag of the root element or of a child element
+        private byte[] tag = new byte[256];
+        private int tagLength;
+
+        // Entries in file order
+        private final ByteArrayOutputStream idBytes = new ByteArrayOutputStream();
+        private int[] idStarts = new int[1025];
+        private long[] offsets = new long[1024];
+        private int[] lengths = new int[1024];
+        private int[] typeFlags = new int[1024];
+        private int count;
+
+        // Element of the current entry
+        private long elementStart;
+        private String elementId;
+        private int elementTypeFlags;
+
+        Scanner scan(InputStream stream) throws IOException {
+            var buffer = new byte[SCAN_BUFFER_SIZE];
+            int state = TEXT;
+            int depth = 0;
+            int quote = 0;
+            int previous = 0;
+            int last3 = 0; // last three bytes of comments and CDATA sections
+            int brackets = 0;
+            long markupStart = 0;
+            boolean done = false;
+            long position = 0;
+            int read;
+            while (!done && (read = stream.read(buffer)) > 0) {
+                if (rootName == null) {
+                    prologue.write(buffer, 0, read);
+                }
+                for (int idx = 0; idx < read && !done; ++idx) {
+                    if (state == TEXT) {
+                        // Fast path: skip the text up to the next markup
+                        while (idx < read && buffer[idx] != '<') {
+                            ++idx;
+                        }
+                        if (idx < read) {
+                            markupStart = position + idx;
+                            state = MARKUP;
+                        }
+                        continue;
+                    }
+                    int b = buffer[idx] & 0xFF;
+                    switch (state) {
+                        case MARKUP:
+                            if (b == '/') {
+                                state = END_TAG;
+                            } else if (b == '!') {
+                                state = BANG;
+                            } else if (b == '?') {
+                                previous = 0;
+                                state = PROCESSING_INSTRUCTION;
+                            } else {
+                                tagLength = 0;
+                                if (depth <= 1) {
+                                    appendTag('<');
+                                    appendTag(b);
+                                }
+                                quote = 0;
+                                previous = b;
+                                state = START_TAG;
+                            }
+                            break;
+                        case START_TAG:
+                            // Up to the next quote (or the end of the quoted value) or the end of the tag
+                            int end = idx;
+                            if (quote != 0) {
+                                while (end < read && buffer[end] != quote) {
+                                    ++end;
+                                }
+                            } else {
+                                while (end < read && buffer[end] != '>' && buffer[end] != '"' && buffer[end] != '\'') {
+                                    ++end;
+                                }
+                            }
+                            if (depth <= 1) {
+                                appendTag(buffer, idx, Math.min(end + 1, read));
+                            }
+                            if (end > idx) {
+                                previous = buffer[end - 1] & 0xFF;
+                            }
+                            idx = end;
+                            if (end == read) {
+                                break;
+                            }
+                            b = buffer[end] & 0xFF;
+                            if (quote != 0) {
+                                quote = 0;
+                            } else if (b == '"' || b == '\'') {
+                                quote = b;
+                            } else {
+                                boolean empty = previous == '/';
+                                if (depth == 0) {
+                                    startRoot();
+                                    prologueBytes = Arrays.copyOf(prologue.toByteArray(), (int) (position + idx + 1));
+                                    done = empty;
+                                } else if (depth == 1) {
+                                    startElement(markupStart);
+                                    if (empty) {
+                                        endElement(position + idx + 1);
+                                    }
+                                }
+                                if (!empty) {
+                                    ++depth;
+                                }
+                                state = TEXT;
+                            }
+                            previous = b;
+                            break;
+                        case END_TAG:
+                            while (idx < read && buffer[idx] != '>') {
+                                ++idx;
+                            }
+                            if (idx < read) {
+                                --depth;
+                                if (depth == 1) {
+                                    endElement(position + idx + 1);
+                                }
+                                done = depth == 0;
+                                state = TEXT;
+                            }
+                            break;
+                        case BANG:
+                            last3 = 0;
+                            brackets = 0;
+                            state = b == '-' ? COMMENT : b == '[' ? CDATA : DECLARATION;
+                            break;
+                        case COMMENT:
+                            last3 = (last3 << 8 | b) & 0xFFFFFF;
+                            if (last3 == ('-' << 16 | '-' << 8 | '>') && markupStart + 6 <= position + idx) {
+                                state = TEXT;
+                            }
+                            break;
+                        case CDATA:
+                            last3 = (last3 << 8 | b) & 0xFFFFFF;
+                            if (last3 == (']' << 16 | ']' << 8 | '>')) {
+                                state = TEXT;
+                            }
+                            break;
+                        case PROCESSING_INSTRUCTION:
+                            if (b == '>' && previous == '?') {
+                                state = TEXT;
+                            }
+                            previous = b;
+                            break;
+                        case DECLARATION:
+                            if (b == '[') {
+                                ++brackets;
+                            } else if (b == ']') {
+                                --brackets;
+                            } else if (b == '>' && brackets == 0) {
+                                state = TEXT;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                position += read;
+            }
+            if (rootName == null) {
+                throw new IOException("No root element found");
+            }
+            return this;
+        }
+
+        Content toContent() {
+            var content = new Content();
+            content.prologue = prologueBytes;
+            content.rootName = rootName;
+            content.types = typeIndexMap.keySet().toArray(new String[0]);
+            byte[] ids = idBytes.toByteArray();
+
+            // Sort the entries by rdfid (stable, so the elements of one rdfid stay in file order)
+            var order = new int[count];
+            for (int idx = 0; idx < count; ++idx) {
+                order[idx] = idx;
+            }
+            mergeSort(order, new int[count], 0, count, ids);
+
+            content.idBytes = new byte[ids.length];
+            content.idStarts = new int[count + 1];
+            content.offsets = new long[count];
+            content.lengths = new int[count];
+            content.typeFlags = new int[count];
+            int start = 0;
+            for (int idx = 0; idx < count; ++idx) {
+                int entry = order[idx];
+                int length = idStarts[entry + 1] - idStarts[entry];
+                System.arraycopy(ids, idStarts[entry], content.idBytes, start, length);
+                start += length;
+                content.idStarts[idx + 1] = start;
+                content.offsets[idx] = offsets[entry];
+                content.lengths[idx] = lengths[entry];
+                content.typeFlags[idx] = typeFlags[entry];
+            }
+            return content;
+        }
+
+        private void appendTag(int b) {
+            if (tagLength == tag.length) {
+                tag = Arrays.copyOf(tag, tag.length * 2);
+            }
+            tag[tagLength++] = (byte) b;
+        }
+
+        private void appendTag(byte[] bytes, int from, int to) {
+            if (tagLength + to - from > tag.length) {
+                tag = Arrays.copyOf(tag, Math.max(tag.length * 2, tagLength + to - from));
+            }
+            System.arraycopy(bytes, from, tag, tagLength, to - from);
+            tagLength += to - from;
+        }
+
+        private void startRoot() throws IOException {
+            var names = new ArrayList<String>();
+            var values = new ArrayList<String>();
+            rootName = parseTag(names, values);
+            for (int idx = 0; idx < names.size(); ++idx) {
+                String name = names.get(idx);
+                if (name.startsWith("xmlns:")) {
+                    if (values.get(idx).equals(RDF)) {
+                        rdfPrefix = name.substring(6);
+                    } else if (values.get(idx).equals(MD)) {
+                        mdPrefix = name.substring(6);
+                    }
+                }
+            }
+            if (rdfPrefix == null || !rootName.equals(rdfPrefix + ":RDF")) {
+                throw new IOException("No RDF data");
+            }
+        }
+
+        private void startElement(long start) {
+            var names = new ArrayList<String>();
+            var values = new ArrayList<String>();
+            String name = parseTag(names, values);
+            elementId = null;
+            int colon = name.indexOf(':');
+            if (mdPrefix != null && colon > 0 && name.substring(0, colon).equals(mdPrefix)) {
+                return;
+            }
+            for (int idx = 0; idx < names.size() && elementId == null; ++idx) {
+                String attrName = names.get(idx);
+                if (attrName.equals(rdfPrefix + ":ID")) {
+                    elementId = values.get(idx);
+                    elementTypeFlags = 0;
+                } else if (attrName.equals(rdfPrefix + ":about")) {
+                    String value = values.get(idx);
+                    elementId = value.startsWith("#") ? value.substring(1) : value;
+                    elementTypeFlags = 1;
+                }
+            }
+            if (elementId != null) {
+                String type = name.substring(colon + 1);
+                Integer typeIdx = typeIndexMap.get(type);
+                if (typeIdx == null) {
+                    typeIdx = typeIndexMap.size();
+                    typeIndexMap.put(type, typeIdx);
+                }
+                elementTypeFlags |= typeIdx << 1;
+                elementStart = start;
+            }
+        }
+
+        private void endElement(long end) {
+            if (elementId == null) {
+                return;
+            }
+            if (count == offsets.length) {
+                idStarts = Arrays.copyOf(idStarts, count * 2 + 1);
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+                typeFlags = Arrays.copyOf(typeFlags, count * 2);
+            }
+            byte[] id = elementId.getBytes(StandardCharsets.UTF_8);
+            idBytes.write(id, 0, id.length);
+            idStarts[count + 1] = idStarts[count] + id.length;
+            offsets[count] = elementStart;
+            lengths[count] = Math.toIntExact(end - elementStart);
+            typeFlags[count] = elementTypeFlags;
+            ++count;
+            elementId = null;
+        }
+
+        /**
+         * Parse the collected start tag.
+         *
+         * @return The qualified element name
+         */
+        private String parseTag(List<String> names, List<String> values) {
+            int pos = 1;
+            int nameEnd = pos;
+            while (nameEnd < tagLength && !isSeparator(tag[nameEnd])) {
+                ++nameEnd;
+            }
+            String name = new String(tag, pos, nameEnd - pos, StandardCharsets.UTF_8);
+            pos = nameEnd;
+            while (pos < tagLength) {
+                while (pos < tagLength && isSeparator(tag[pos])) {
+                    ++pos;
+                }
+                int attrStart = pos;
+                while (pos < tagLength && tag[pos] != '=' && !isSeparator(tag[pos])) {
+                    ++pos;
+                }
+                int attrEnd = pos;
+                while (pos < tagLength && tag[pos] != '"' && tag[pos] != '\'') {
+                    ++pos;
+                }
+                if (pos >= tagLength || attrEnd == attrStart) {
+                    break;
+                }
+                byte quote = tag[pos++];
+                int valueStart = pos;
+                while (pos < tagLength && tag[pos] != quote) {
+                    ++pos;
+                }
+                names.add(new String(tag, attrStart, attrEnd - attrStart, StandardCharsets.UTF_8));
+                values.add(unescape(new String(tag, valueStart, pos - valueStart, StandardCharsets.UTF_8)));
+                ++pos;
+            }
+            return name;
+        }
+
+        private static boolean isSeparator(byte b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '/' || b == '>';
+        }
+
+        private static String unescape(String value) {
+            if (value.indexOf('&') < 0) {
+                return value;
+            }
+            return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'")
+                    .replace("&amp;", "&");
+        }
+
+        private void mergeSort(int[] order, int[] temp, int from, int to, byte[] ids) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(order, temp, from, mid, ids);
+            mergeSort(order, temp, mid, to, ids);
+            int left = from;
+            int right = mid;
+            int out = from;
+            while (left < mid && right < to) {
+                if (compareId(ids, order[right], order[left]) < 0) {
+                    temp[out++] = order[right++];
+                } else {
+                    temp[out++] = order[left++];
+                }
+            }
+            while (left < mid) {
+                temp[out++] = order[left++];
+            }
+            while (right < to) {
+                temp[out++] = order[right++];
+            }
+            System.arraycopy(temp, from, order, from, to - from);
+        }
+
+        private int compareId(byte[] ids, int entry1, int entry2) {
+            return compareBytes(ids, idStarts[entry1], idStarts[entry1 + 1], ids, idStarts[entry2],
+                    idStarts[entry2 + 1]);
+        }
+    }
+}
@@ -2,7 +2,14 @@ package cim4j.utils;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import javax.xml.namespace.QName;
@@ -24,6 +31,29 @@ public final class RdfParser {
     private static final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
     private static final String MD = CimConstants.NAMESPACES_MAP.get("md"); // ModelDescription
 
+    /**
+     * Default number of elements handed over at once by the pipelined parser.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Default number of batches the pipelined parser can parse in advance.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * Default factory of the parser threads of the pipelined parser: daemon
+     * platform threads.
+     */
+    public static final ThreadFactory DEFAULT_THREAD_FACTORY = runnable -> {
+        var thread = new Thread(runnable, "cim4j-rdf-parser");
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    // Marker for the end of the input in the queue of the pipelined parser
+    private static final List<Element> END_OF_INPUT = new ArrayList<>(0);
+
     /**
      * Parse the CIM data from a stream.
      *
@@ -34,64 +64,264 @@ public final class RdfParser {
      * @param createCimObject Consumer function
      */
     public static void parse(InputStream stream, Consumer<Element> createCimObjectFunction) {
+        parse(stream, createCimObjectFunction, null);
+    }
+
+    /**
+     * Parse the CIM data from a stream with a filter.
+     *
+     * Like parse without filter, but the elements and attributes rejected by the
+     * filter are skipped without creating objects or strings for them.
+     *
+     * @param stream          Input stream to parse
+     * @param createCimObject Consumer function
+     * @param filter          Filter of the elements and attributes (null: no filter)
+     */
+    public static void parse(InputStream stream, Consumer<Element> createCimObjectFunction, ElementFilter filter) {
         try {
-            var factory = XMLInputFactory.newInstance();
-            factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
-            var parser = factory.createXMLStreamReader(stream);
+            parseElements(stream, createCimObjectFunction, filter);
+        } catch (Exception ex) {
+            String txt = "Error while parsing RDF/XML data";
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+    }
+
+    /**
+     * Parse the CIM data from a stream in a pipeline of two threads.
+     *
+     * The XML data is parsed in a new thread created by the thread factory. The
+     * parsed elements are handed over in batches to the calling thread, which
+     * calls the consumer createCimObjectFunction for each element in the order of
+     * the input. So the XML parsing and the processing of the elements (e.g. the
+     * creation of the CIM objects) overlap, while the consumer itself needs not
+     * to be thread-safe.
+     *
+     * The batches are handed over by a bounded queue: if the consumer is slower
+     * than the parser, the parser waits until a batch is taken from the queue,
+     * so at most (queueCapacity + 2) * batchSize parsed elements are kept in
+     * memory. If the consumer throws an exception, the parser thread is stopped.
+     *
+     * Any thread factory can be used, e.g. Thread.ofVirtual().factory() for a
+     * virtual parser thread (Java 21 or newer).
+     *
+     * @param stream          Input stream to parse
+     * @param createCimObject Consumer function
+     * @param batchSize       Number of elements handed over at once
+     * @param queueCapacity   Number of batches the parser can parse in advance
+     * @param threadFactory   Factory of the parser thread
+     */
+    public static void parsePipelined(InputStream stream, Consumer<Element> createCimObjectFunction, int batchSize,
+            int queueCapacity, ThreadFactory threadFactory) {
+        parsePipelined(stream, createCimObjectFunction, null, batchSize, queueCapacity, threadFactory);
+    }
 
-            // Check if root element has RDF namespace
-            parser.nextTag();
-            if (!parser.getName().getNamespaceURI().equals(RDF)) {
-                throw new RuntimeException("No RDF data");
+    /**
+     * Parse the CIM data from a stream with a filter in a pipeline of two threads.
+     *
+     * Like parsePipelined without filter, but the elements and attributes
+     * rejected by the filter are skipped by the parser thread. The filter is
+     * called in the parser thread.
+     *
+     * @param stream          Input stream to parse
+     * @param createCimObject Consumer function
+     * @param filter          Filter of the elements and attributes (null: no filter)
+     * @param batchSize       Number of elements handed over at once
+     * @param queueCapacity   Number of batches the parser can parse in advance
+     * @param threadFactory   Factory of the parser thread
+     */
+    public static void parsePipelined(InputStream stream, Consumer<Element> createCimObjectFunction,
+            ElementFilter filter, int batchSize, int queueCapacity, ThreadFactory threadFactory) {
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid batch size %d or queue capacity %d", batchSize, queueCapacity));
+        }
+        BlockingQueue<List<Element>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        var failure = new AtomicReference<Throwable>();
+        Thread parserThread = threadFactory.newThread(() -> {
+            try {
+                var batches = new BatchSender(queue, batchSize);
+                parseElements(stream, batches, filter);
+                batches.flush();
+            } catch (PipelineCancelledException ex) {
+                return;
+            } catch (Throwable ex) {
+                // Also errors (e.g. OutOfMemoryError): the consumer must not wait forever
+                failure.set(ex);
+            }
+            try {
+                queue.put(END_OF_INPUT);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
+        });
+        parserThread.start();
 
-            // Parse over all elements
-            while (parser.hasNext()) {
-                int eventType = parser.next();
-                if (eventType == XMLStreamConstants.START_ELEMENT && !parser.getName().getNamespaceURI().equals(MD)) {
-                    var element = new Element();
-                    element.name = parser.getName();
-                    element.id = getIdOrAbout(parser);
+        try {
+            while (true) {
+                List<Element> batch = queue.take();
+                if (batch == END_OF_INPUT) {
+                    break;
+                }
+                for (var element : batch) {
+                    createCimObjectFunction.accept(element);
+                }
+            }
+        } catch (InterruptedException ex) {
+            stopParserThread(parserThread);
+            Thread.currentThread().interrupt();
+            String txt = "Interrupted while parsing RDF/XML data";
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        } catch (RuntimeException | Error ex) {
+            stopParserThread(parserThread);
+            throw ex;
+        }
 
-                    // Parse over the attributes of the element
-                    element.attributes = parseAttributes(parser, element.name);
+        var error = failure.get();
+        if (error instanceof Error) {
+            LOG.error("Error while parsing RDF/XML data", error);
+            throw (Error) error;
+        }
+        if (error != null) {
+            String txt = "Error while parsing RDF/XML data";
+            LOG.error(txt, error);
+            throw new RuntimeException(txt, error);
+        }
+    }
 
-                    // Call the consumer function for each element
-                    createCimObjectFunction.accept(element);
+    /**
+     * Stop the parser thread and wait for it, so the caller can close the stream.
+     */
+    private static void stopParserThread(Thread parserThread) {
+        parserThread.interrupt();
+        boolean interrupted = false;
+        while (parserThread.isAlive()) {
+            try {
+                parserThread.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parse the md:FullModel header of RDF/XML data.
+     *
+     * Parsing stops at the end of the header or at the first element which is not
+     * part of the header, so only the beginning of the stream is read.
+     *
+     * @param stream Input stream to parse
+     * @param path   The path of the file (only stored in the header)
+     * @return       The header or null if the data has no FullModel header
+     */
+    public static ModelHeader parseHeader(InputStream stream, String path) {
+        try {
+            var factory = XMLInputFactory.newInstance();
+            var parser = factory.createXMLStreamReader(stream);
+            try {
+                // Check if root element has RDF namespace
+                parser.nextTag();
+                if (!parser.getName().getNamespaceURI().equals(RDF)) {
+                    throw new RuntimeException("No RDF data");
+                }
+
+                // The header has to be the first element
+                if (parser.nextTag() != XMLStreamConstants.START_ELEMENT || !MD.equals(parser.getNamespaceURI())
+                        || !parser.getLocalName().equals("FullModel")) {
+                    return null;
                 }
+                String modelId = getIdOrAbout(parser);
+                Map<String, List<String>> values = new LinkedHashMap<>();
+                while (parser.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    String name = parser.getLocalName();
+                    String resource = getResource(parser);
+                    String text = parser.getElementText().strip();
+                    values.computeIfAbsent(name, k -> new ArrayList<>()).add(resource != null ? resource : text);
+                }
+                return new ModelHeader(path, modelId, values);
+            } finally {
+                parser.close();
             }
         } catch (Exception ex) {
-            String txt = "Error while parsing RDF/XML data";
+            String txt = "Error while parsing header of RDF/XML data";
             LOG.error(txt, ex);
             throw new RuntimeException(txt, ex);
         }
     }
 
-    private static List<Attribute> parseAttributes(XMLStreamReader parser, QName outerName) throws XMLStreamException {
+    private static void parseElements(InputStream stream, Consumer<Element> createCimObjectFunction,
+            ElementFilter filter) throws XMLStreamException {
+        var factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+        var parser = factory.createXMLStreamReader(stream);
+        var text = new TextBuffer();
+
+        // Check if root element has RDF namespace
+        parser.nextTag();
+        if (!parser.getName().getNamespaceURI().equals(RDF)) {
+            throw new RuntimeException("No RDF data");
+        }
+
+        // Parse over all elements
+        while (parser.hasNext()) {
+            int eventType = parser.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT && !MD.equals(parser.getNamespaceURI())) {
+                if (filter != null && !filter.acceptElement(parser.getLocalName())) {
+                    skipElement(parser);
+                    continue;
+                }
+                var element = new Element();
+                element.name = parser.getName();
+                element.id = getIdOrAbout(parser);
+                element.about = isAbout(parser);
+
+                // Parse over the attributes of the element
+                element.attributes = parseAttributes(parser, element.name, text, filter);
+
+                // Call the consumer function for each element
+                createCimObjectFunction.accept(element);
+            }
+        }
+    }
+
+    private static List<Attribute> parseAttributes(XMLStreamReader parser, QName outerName, TextBuffer text,
+            ElementFilter filter) throws XMLStreamException {
         var attributeList = new ArrayList<Attribute>();
         var attribute = new Attribute();
+        text.clear();
 
         // Parse over all attributes
         while (parser.hasNext()) {
             int eventType = parser.next();
 
             if (eventType == XMLStreamConstants.START_ELEMENT) {
+                if (filter != null && !filter.acceptAttribute(outerName.getLocalPart(), parser.getLocalName())) {
+                    skipElement(parser);
+                    continue;
+                }
                 // Start of an attribute
                 attribute.name = parser.getName();
                 attribute.resource = getResource(parser);
-                attribute.value = new String();
+                attribute.start = text.length;
 
             } else if (eventType == XMLStreamConstants.CHARACTERS) {
                 // Part of the attribute value (i.e. normal text or replaced entity references, e.g. &lt; -> <)
-                attribute.value += parser.getText();
+                text.append(parser.getTextCharacters(), parser.getTextStart(), parser.getTextLength());
 
             } else if (eventType == XMLStreamConstants.ENTITY_REFERENCE) {
                 // Part of the attribute value (not replaced entity references, e.g. &nbsp;)
-                attribute.value += "&" + parser.getLocalName() + ";";
+                text.append('&');
+                text.append(parser.getLocalName());
+                text.append(';');
 
             } else if (eventType == XMLStreamConstants.END_ELEMENT) {
                 if (parser.getName().equals(attribute.name)) {
                     // End of the attribute
+                    attribute.length = text.length - attribute.start;
                     attributeList.add(attribute);
                     attribute = new Attribute();
                 } else if (parser.getName().equals(outerName)) {
@@ -100,9 +330,30 @@ public final class RdfParser {
                 }
             }
         }
+
+        // All attribute values of the element share one character buffer
+        char[] buffer = text.toArray();
+        for (var attr : attributeList) {
+            attr.buffer = buffer;
+        }
         return attributeList;
     }
 
+    /**
+     * Skip the current element including all nested elements and text.
+     */
+    private static void skipElement(XMLStreamReader parser) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && parser.hasNext()) {
+            int eventType = parser.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                ++depth;
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                --depth;
+            }
+        }
+    }
+
     private static String getIdOrAbout(XMLStreamReader parser) {
         for (int idx = 0; idx < parser.getAttributeCount(); ++idx) {
             var name = parser.getAttributeName(idx);
@@ -123,6 +374,16 @@ public final class RdfParser {
         return null;
     }
 
+    private static boolean isAbout(XMLStreamReader parser) {
+        for (int idx = 0; idx < parser.getAttributeCount(); ++idx) {
+            var name = parser.getAttributeName(idx);
+            if (name.getNamespaceURI().equals(RDF) && name.getLocalPart().equals("about")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static String getResource(XMLStreamReader parser) {
         for (int idx = 0; idx < parser.getAttributeCount(); ++idx) {
             var name = parser.getAttributeName(idx);
@@ -137,15 +398,203 @@ public final class RdfParser {
         return null;
     }
 
+    /**
+     * Filter of the elements and attributes to parse.
+     */
+    public interface ElementFilter {
+
+        /**
+         * Should an element be parsed?
+         *
+         * @param className The class name (local name of the element)
+         * @return          Parse the element?
+         */
+        boolean acceptElement(String className);
+
+        /**
+         * Should an attribute of an accepted element be parsed?
+         *
+         * @param className     The class name (local name of the element)
+         * @param attributeName The local name of the attribute element, e.g.
+         *                      "IdentifiedObject.name"
+         * @return              Parse the attribute?
+         */
+        boolean acceptAttribute(String className, String attributeName);
+    }
+
     public static class Element {
         public QName name;
         public String id;
+        /** Is the id read from rdf:about (i.e. the object is described elsewhere) instead of rdf:ID? */
+        public boolean about;
         public List<Attribute> attributes;
     }
 
     public static class Attribute {
         public QName name;
         public String resource;
-        public String value = new String();
+
+        /**
+         * Value of the attribute as string.
+         *
+         * @deprecated The parser does not create the value strings any more, the
+         *             value is only stored in the character buffer (see getBuffer)
+         *             and this field is filled by the first call of getValue. Use
+         *             getValue instead of this field. A value which is assigned
+         *             to this field replaces the parsed value.
+         */
+        @Deprecated
+        public String value;
+
+        private char[] buffer = EMPTY_BUFFER;
+        private int start = 0;
+        private int length = 0;
+        private String bufferValue;
+
+        /**
+         * Get the value of the attribute as string.
+         *
+         * The string is created on the first call.
+         *
+         * @return The attribute value
+         */
+        public String getValue() {
+            if (value == null) {
+                value = new String(buffer, start, length);
+                bufferValue = value;
+            }
+            return value;
+        }
+
+        /**
+         * Get the character buffer containing the value of the attribute.
+         *
+         * The buffer is shared by all attributes of an element and must not be
+         * modified.
+         *
+         * @return The character buffer
+         */
+        public char[] getBuffer() {
+            syncValue();
+            return buffer;
+        }
+
+        /**
+         * Get the start of the value in the character buffer.
+         *
+         * @return The start position
+         */
+        public int getStart() {
+            syncValue();
+            return start;
+        }
+
+        /**
+         * Get the length of the value in the character buffer.
+         *
+         * @return The length
+         */
+        public int getLength() {
+            syncValue();
+            return length;
+        }
+
+        /**
+         * Use a value which is assigned to the deprecated value field instead of
+         * the parsed value.
+         */
+        private void syncValue() {
+            if (value != null && value != bufferValue) {
+                buffer = value.toCharArray();
+                start = 0;
+                length = buffer.length;
+                bufferValue = value;
+            }
+        }
+    }
+
+    private static final char[] EMPTY_BUFFER = new char[0];
+
+    /**
+     * Collector of the parsed elements in batches for the queue of the pipelined
+     * parser.
+     */
+    private static final class BatchSender implements Consumer<Element> {
+        private final BlockingQueue<List<Element>> queue;
+        private final int batchSize;
+        private List<Element> batch;
+
+        BatchSender(BlockingQueue<List<Element>> queue, int batchSize) {
+            this.queue = queue;
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void accept(Element element) {
+            batch.add(element);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                try {
+                    queue.put(batch);
+                } catch (InterruptedException ex) {
+                    throw new PipelineCancelledException();
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    /**
+     * Thrown in the parser thread of the pipelined parser if the consumer has
+     * stopped the pipeline.
+     */
+    private static final class PipelineCancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Growing character buffer for the attribute values of an element - reused
+     * for all elements of a stream.
+     */
+    private static final class TextBuffer {
+        private char[] chars = new char[256];
+        private int length = 0;
+
+        void append(char[] src, int srcStart, int srcLength) {
+            ensureCapacity(srcLength);
+            System.arraycopy(src, srcStart, chars, length, srcLength);
+            length += srcLength;
+        }
+
+        void append(String src) {
+            ensureCapacity(src.length());
+            src.getChars(0, src.length(), chars, length);
+            length += src.length();
+        }
+
+        void append(char ch) {
+            ensureCapacity(1);
+            chars[length++] = ch;
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        char[] toArray() {
+            return length == 0 ? EMPTY_BUFFER : Arrays.copyOf(chars, length);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + additional));
+            }
+        }
     }
 }
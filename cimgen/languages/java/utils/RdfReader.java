@@ -2,15 +2,19 @@ package cim4j.utils;
 
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
 
 import cim4j.BaseClass;
 import cim4j.CimClassMap;
 import cim4j.Logging;
+import cim4j.ValueDecoder;
 
 /**
  * Read RDF files into a map of rdfid to CIM object.
@@ -21,6 +25,213 @@ public class RdfReader {
 
     private final Map<String, BaseClass> model = new LinkedHashMap<>();
 
+    private final Map<String, PendingObject> pendingObjects = new LinkedHashMap<>();
+
+    private boolean deferredTypeResolution = false;
+
+    private boolean linkingEnabled = true;
+
+    private final ValueDecoder decoder = new ValueDecoder();
+
+    private final ReadDiagnostics diagnostics = new ReadDiagnostics();
+
+    private StringPool stringPool = null;
+
+    private boolean pipelined = false;
+
+    private int pipelineBatchSize = RdfParser.DEFAULT_BATCH_SIZE;
+
+    private int pipelineQueueCapacity = RdfParser.DEFAULT_QUEUE_CAPACITY;
+
+    private ThreadFactory pipelineThreadFactory = RdfParser.DEFAULT_THREAD_FACTORY;
+
+    private ReadProjection projection = null;
+
+    private Map<String, BaseClass> baseModel = null;
+
+    // Keep the types of the objects read before (set by readAdditional)
+    private boolean keepTypes = false;
+
+    /**
+     * Enable or disable the deferred type resolution.
+     *
+     * An object can appear with a generic type in one profile (e.g.
+     * ConductingEquipment) and with its concrete type in another profile (e.g.
+     * ACLineSegment). Without deferred type resolution the object is created with
+     * the first type found and has to be retyped - i.e. created again and all
+     * attributes copied - if a more specific type is found later.
+     *
+     * With deferred type resolution the attributes are buffered per rdfid until
+     * all inputs are parsed. Then each object is created exactly once with the
+     * most specific type found in all inputs.
+     *
+     * @param enabled Deferred type resolution enabled?
+     */
+    public void setDeferredTypeResolution(boolean enabled) {
+        deferredTypeResolution = enabled;
+    }
+
+    /**
+     * Is the deferred type resolution enabled?
+     *
+     * @return Deferred type resolution enabled?
+     */
+    public boolean isDeferredTypeResolution() {
+        return deferredTypeResolution;
+    }
+
+    /**
+     * Enable or disable linking of the objects after reading.
+     *
+     * If linking is disabled, the class and list attributes of the objects only
+     * contain the rdfids read from the input until setAttributeLinks is called.
+     *
+     * @param enabled Linking enabled?
+     */
+    public void setLinkingEnabled(boolean enabled) {
+        linkingEnabled = enabled;
+    }
+
+    /**
+     * Set a pool for the deduplication of the string values, the rdfids of the
+     * objects and the rdfids of referenced objects (null to disable the
+     * deduplication).
+     *
+     * Equal values of different objects share one string instance, and a
+     * reference shares the rdfid instance of the referenced object while both are
+     * in the pool. This mainly reduces the retained memory of models with many
+     * repeated values (e.g. names) and of models read without linking (where the
+     * references remain rdfids). Linking replaces most references by the linked
+     * objects anyway, so for linked models the saving is small. The pool can be
+     * shared by several readers if they are not used concurrently.
+     *
+     * @param pool The string pool or null
+     */
+    public void setStringPool(StringPool pool) {
+        stringPool = pool;
+    }
+
+    /**
+     * Get the pool for the deduplication of strings.
+     *
+     * @return The string pool or null if the deduplication is disabled
+     */
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    /**
+     * Enable or disable the pipelined reading.
+     *
+     * In pipelined mode the XML data of each input is parsed in a separate
+     * thread, which hands the parsed elements over in batches to the reading
+     * thread. So the XML parsing of an input overlaps with the creation of the
+     * CIM objects and the decoding of the attribute values (see
+     * RdfParser.parsePipelined). The result is the same as without pipelining.
+     *
+     * @param enabled Pipelined reading enabled?
+     */
+    public void setPipelined(boolean enabled) {
+        pipelined = enabled;
+    }
+
+    /**
+     * Is the pipelined reading enabled?
+     *
+     * @return Pipelined reading enabled?
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * Set the number of elements handed over at once in pipelined mode.
+     *
+     * Larger batches reduce the synchronization between the threads, smaller
+     * batches reduce the memory of the elements parsed in advance.
+     *
+     * @param batchSize Number of elements per batch
+     */
+    public void setPipelineBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        pipelineBatchSize = batchSize;
+    }
+
+    /**
+     * Set the number of batches which can be parsed in advance in pipelined mode
+     * before the parser thread waits for the reading thread.
+     *
+     * @param queueCapacity Number of batches
+     */
+    public void setPipelineQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+        }
+        pipelineQueueCapacity = queueCapacity;
+    }
+
+    /**
+     * Set the factory of the parser threads in pipelined mode, e.g.
+     * Thread.ofVirtual().factory() for virtual threads (Java 21 or newer).
+     * Default: daemon platform threads.
+     *
+     * @param threadFactory Factory of the parser threads
+     */
+    public void setPipelineThreadFactory(ThreadFactory threadFactory) {
+        pipelineThreadFactory = threadFactory;
+    }
+
+    /**
+     * Set a projection to read only the needed CIM types, attributes and
+     * profiles (null to read all data).
+     *
+     * The elements and attributes which are not part of the projection are
+     * skipped by the parser. Links are only resolved to objects inside the
+     * projection: references to other objects are kept as rdfids and are not
+     * reported as unresolved.
+     *
+     * @param projection The projection or null
+     */
+    public void setProjection(ReadProjection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Get the projection of the data to read.
+     *
+     * @return The projection or null if all data is read
+     */
+    public ReadProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Set a shared base model, e.g. a boundary set (null to read without base
+     * model).
+     *
+     * The objects read are linked to the objects of the base model without
+     * modifying the base objects (see OverlayModel). An object of the base model
+     * which is found in the input is copied (with all attributes) and the copy
+     * gets the new attribute values. The model returned by read only contains
+     * the new and the copied objects.
+     *
+     * @param baseModel The base model as map of rdfid to CIM object or null
+     */
+    public void setBaseModel(Map<String, BaseClass> baseModel) {
+        this.baseModel = baseModel;
+    }
+
+    /**
+     * Get the shared base model.
+     *
+     * @return The base model or null
+     */
+    public Map<String, BaseClass> getBaseModel() {
+        return baseModel;
+    }
+
     /**
      * Read the CIM data from a list of RDF files.
      *
@@ -29,21 +240,46 @@ public class RdfReader {
      */
     public Map<String, BaseClass> read(List<String> pathList) {
         model.clear();
+        pendingObjects.clear();
+        return readAdditional(pathList);
+    }
+
+    /**
+     * Read the CIM data from a list of RDF files in addition to the CIM data read
+     * by the previous calls of read, readFromStrings or readAdditional.
+     *
+     * The new objects are linked to the already read objects. Objects which are
+     * already read get the new attribute values, but keep their type: the objects
+     * should get their most specific type in the first read. The diagnostics
+     * cover the new inputs and the references of all objects.
+     *
+     * @param pathList List of files to read
+     * @return CIM data as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> readAdditional(List<String> pathList) {
+        diagnostics.clear();
+        keepTypes = !model.isEmpty();
         for (String path : pathList) {
-            int count = model.size();
-            long memory = getUsedMemory();
+            int count = getObjectCount();
+            long memory = LOG.isEnabled(Logging.Level.info) ? getUsedMemory() : 0;
             try (var stream = new FileInputStream(path)) {
-                RdfParser.parse(stream, this::createCimObject);
+                parse(stream);
             } catch (Exception ex) {
                 String txt = "Error while reading rdf file: " + path;
                 LOG.error(txt, ex);
                 throw new RuntimeException(txt, ex);
             }
-            memory = getUsedMemory() - memory;
-            LOG.info(String.format("Read %d CIM objects from %s using %d MByte (%d)", model.size() - count,
-                    path, memory / (1024 * 1024), memory));
+            memory = LOG.isEnabled(Logging.Level.info) ? getUsedMemory() - memory : 0;
+            LOG.info("Read %d CIM objects from %s using %d MByte (%d)", getObjectCount() - count,
+                    path, memory / (1024 * 1024), memory);
         }
-        setAttributeLinks();
+        createPendingObjects();
+        removeObjectsOutsideProjection();
+        if (linkingEnabled) {
+            setAttributeLinks();
+        }
+        logStringPool();
+        logDiagnostics();
         return model;
     }
 
@@ -55,40 +291,121 @@ public class RdfReader {
      */
     public Map<String, BaseClass> readFromStrings(List<String> xmlList) {
         model.clear();
+        pendingObjects.clear();
+        diagnostics.clear();
+        keepTypes = false;
         for (String xml : xmlList) {
-            int count = model.size();
-            long memory = getUsedMemory();
+            int count = getObjectCount();
+            long memory = LOG.isEnabled(Logging.Level.info) ? getUsedMemory() : 0;
             try (var stream = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))) {
-                RdfParser.parse(stream, this::createCimObject);
+                parse(stream);
             } catch (Exception ex) {
                 String txt = "Error while reading xml data";
                 LOG.error(txt, ex);
                 throw new RuntimeException(txt, ex);
             }
-            memory = getUsedMemory() - memory;
-            LOG.info(String.format("Read %d CIM objects using %d MByte (%d)", model.size() - count,
-                    memory / (1024 * 1024), memory));
+            memory = LOG.isEnabled(Logging.Level.info) ? getUsedMemory() - memory : 0;
+            LOG.info("Read %d CIM objects using %d MByte (%d)", getObjectCount() - count,
+                    memory / (1024 * 1024), memory);
+        }
+        createPendingObjects();
+        removeObjectsOutsideProjection();
+        if (linkingEnabled) {
+            setAttributeLinks();
         }
+        logStringPool();
+        logDiagnostics();
+        return model;
+    }
+
+    /**
+     * Link CIM data read without linking, e.g. the objects of several readers
+     * merged into one map.
+     *
+     * The objects become the CIM data of this reader, the diagnostics contain
+     * the issues found while linking.
+     *
+     * @param cimData CIM data as map of rdfid to CIM object
+     * @return CIM data as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> link(Map<String, BaseClass> cimData) {
+        model.clear();
+        pendingObjects.clear();
+        diagnostics.clear();
+        model.putAll(cimData);
         setAttributeLinks();
+        logDiagnostics();
         return model;
     }
 
+    /**
+     * Get the data quality issues found by the last call of read or
+     * readFromStrings, e.g. unknown classes or unresolved references.
+     *
+     * @return Diagnostics with the counted issues
+     */
+    public ReadDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Build the reference graph of the CIM data read by the last call of read or
+     * readFromStrings.
+     *
+     * @return Reference graph with dense object ids and CSR edge arrays
+     */
+    public ModelGraph createModelGraph() {
+        return ModelGraph.build(model);
+    }
+
+    private void parse(InputStream stream) {
+        if (pipelined) {
+            RdfParser.parsePipelined(stream, this::createCimObject, projection, pipelineBatchSize,
+                    pipelineQueueCapacity, pipelineThreadFactory);
+        } else {
+            RdfParser.parse(stream, this::createCimObject, projection);
+        }
+    }
+
     private void createCimObject(RdfParser.Element element) {
         var className = element.name.getLocalPart();
         if (element.id != null) {
-            if (CimClassMap.isCimClass(className)) {
-                BaseClass object = model.get(element.id);
+            // The pooled rdfid is shared by the object and the references to it
+            String rdfid = poolString(element.id);
+            if (CimClassMap.isCimClass(className) && deferredTypeResolution && !model.containsKey(rdfid)
+                    && (baseModel == null || !baseModel.containsKey(rdfid))) {
+                PendingObject pending = pendingObjects.get(rdfid);
+                if (pending == null) {
+                    pending = new PendingObject(className);
+                    pendingObjects.put(rdfid, pending);
+                } else {
+                    pending.resolveType(className, rdfid);
+                }
+
+                // Buffer attributes until the object is created
+                for (RdfParser.Attribute attribute : element.attributes) {
+                    pending.addAttribute(getAttributeName(attribute), poolString(attribute.resource),
+                            attribute.resource == null ? getValue(attribute) : null);
+                }
+
+            } else if (CimClassMap.isCimClass(className)) {
+                BaseClass object = model.get(rdfid);
+                if (object == null && baseModel != null && baseModel.containsKey(rdfid)) {
+                    // Copy-on-write of an object of the base model
+                    object = OverlayModel.copyObject(baseModel.get(rdfid));
+                    model.put(rdfid, object);
+                }
                 if (object == null) {
-                    object = createNewObject(className, element.id);
-                    model.put(element.id, object);
-                } else if (!object.getCimType().equals(className)) {
-                    BaseClass newObject = retypeObject(object, className, element.id);
+                    object = createNewObject(className, rdfid);
+                    model.put(rdfid, object);
+                } else if (!keepTypes && !object.getCimType().equals(className)) {
+                    BaseClass newObject = retypeObject(object, className, rdfid);
                     if (newObject != null) {
                         object = newObject;
-                        model.put(element.id, object);
+                        model.put(rdfid, object);
                     } else {
-                        LOG.debug(String.format("Found %s (instead of %s) with rdf:ID: %s in map", object.getCimType(),
-                                className, element.id));
+                        LOG.debug("Found %s (instead of %s) with rdf:ID: %s in map", object.getCimType(),
+                                className, rdfid);
                     }
                 }
 
@@ -98,16 +415,18 @@ public class RdfReader {
                 }
 
             } else {
-                LOG.warn(String.format("Unknown CIM class: %s (rdf:ID: %s)", className, element.id));
+                diagnostics.record(ReadDiagnostics.Category.UNKNOWN_CLASS, className, null, rdfid);
+                LOG.debug("Unknown CIM class: %s (rdf:ID: %s)", className, rdfid);
             }
         } else {
-            LOG.warn(String.format("Possible CIM class: %s (rdf:ID missing)", className));
+            diagnostics.record(ReadDiagnostics.Category.MISSING_RDFID, className, null, null);
+            LOG.debug("Possible CIM class: %s (rdf:ID missing)", className);
         }
     }
 
     private BaseClass createNewObject(String className, String rdfid) {
         BaseClass object = CimClassMap.createCimObject(className, rdfid);
-        LOG.debug(String.format("Created object of type: %s with rdf:ID: %s", className, rdfid));
+        LOG.debug("Created object of type: %s with rdf:ID: %s", className, rdfid);
         return object;
     }
 
@@ -116,8 +435,8 @@ public class RdfReader {
         var oldType = oldObject.getClass();
         var newType = newObject.getClass();
         if (oldType.isAssignableFrom(newType)) {
-            LOG.debug(String.format("Retyping object with rdf:ID: %s from type: %s to type: %s", rdfid,
-                    oldObject.getCimType(), className));
+            LOG.debug("Retyping object with rdf:ID: %s from type: %s to type: %s", rdfid,
+                    oldObject.getCimType(), className);
 
             // Copy attributes from old object to the new object
             for (String attrName : oldObject.getAttributeNames()) {
@@ -127,10 +446,14 @@ public class RdfReader {
                         newObject.setAttribute(attrName, attr);
                     } else if (attr instanceof String) {
                         newObject.setAttribute(attrName, (String) attr);
+                    } else if (attr instanceof BaseClass) {
+                        newObject.setAttribute(attrName, ((BaseClass) attr).getRdfid());
                     } else if (attr instanceof Set<?>) {
                         for (var attrItem : ((Set<?>) attr)) {
                             if (attrItem instanceof String) {
                                 newObject.setAttribute(attrName, (String) attrItem);
+                            } else if (attrItem instanceof BaseClass) {
+                                newObject.setAttribute(attrName, ((BaseClass) attrItem).getRdfid());
                             }
                         }
                     }
@@ -141,29 +464,153 @@ public class RdfReader {
         return null;
     }
 
+    /**
+     * Set the attributes of a parsed element to an object without linking, e.g.
+     * for the streaming conversion (see RdfStreamConverter). Issues are recorded
+     * in the diagnostics of this reader.
+     */
+    void setAttributes(BaseClass object, RdfParser.Element element) {
+        for (RdfParser.Attribute attribute : element.attributes) {
+            setAttribute(object, attribute);
+        }
+    }
+
     private void setAttribute(BaseClass object, RdfParser.Attribute attribute) {
+        var attributeName = getAttributeName(attribute);
+        if (attribute.resource != null) {
+            setResourceAttribute(object, attributeName, attribute.resource);
+        } else {
+            // Set primitive attributes (including datatype_attributes)
+            decoder.setValue(attribute.getBuffer(), attribute.getStart(), attribute.getLength());
+            if (!decodeAttribute(object, attributeName)) {
+                object.setAttribute(attributeName, getValue(attribute));
+            }
+        }
+    }
+
+    private void setAttribute(BaseClass object, String attributeName, String resource, String value) {
+        if (resource != null) {
+            setResourceAttribute(object, attributeName, resource);
+        } else {
+            // Set primitive attributes (including datatype_attributes)
+            decoder.setValue(value);
+            if (!decodeAttribute(object, attributeName)) {
+                object.setAttribute(attributeName, value);
+            }
+        }
+    }
+
+    private void setResourceAttribute(BaseClass object, String attributeName, String resource) {
+        if (!object.getAttributeNames().contains(attributeName)) {
+            diagnostics.record(ReadDiagnostics.Category.UNKNOWN_ATTRIBUTE, object.getCimType(), attributeName,
+                    object.getRdfid());
+            LOG.debug("Unknown attribute %s.%s with resource %s", object.getCimType(), attributeName, resource);
+        } else if (!object.isEnumAttribute(attributeName)) {
+            // Set only rdfid as attribute - link to object later
+            object.setAttribute(attributeName, poolString(resource));
+        } else {
+            // Set enum attributes: the resource is resolved to the enum constant
+            decoder.setValue(resource);
+            if (!decodeAttribute(object, attributeName)) {
+                object.setAttribute(attributeName, resource);
+            }
+        }
+    }
+
+    /**
+     * Set Double, Integer, Boolean and enum attributes directly from the decoder.
+     *
+     * Malformed values are only recorded in the diagnostics.
+     *
+     * @return Could the attribute be set by the decoder?
+     */
+    private boolean decodeAttribute(BaseClass object, String attributeName) {
+        if (!object.decodeAttribute(attributeName, decoder)) {
+            return false;
+        }
+        if (!decoder.isValid()) {
+            diagnostics.record(ReadDiagnostics.Category.MALFORMED_VALUE, object.getCimType(), attributeName,
+                    object.getRdfid());
+        }
+        return true;
+    }
+
+    private String getValue(RdfParser.Attribute attribute) {
+        if (stringPool != null) {
+            return stringPool.intern(attribute.getBuffer(), attribute.getStart(), attribute.getLength());
+        }
+        return attribute.getValue();
+    }
+
+    private String poolString(String value) {
+        return stringPool != null ? stringPool.intern(value) : value;
+    }
+
+    private void logStringPool() {
+        if (stringPool != null) {
+            LOG.info("String pool: %d values, %d lookups, %.1f %% hits", stringPool.getSize(),
+                    stringPool.getLookupCount(), stringPool.getHitRate() * 100.0);
+        }
+    }
+
+    private void logDiagnostics() {
+        if (diagnostics.getTotalCount() > 0) {
+            LOG.warn(() -> "Found data quality issues:" + System.lineSeparator()
+                    + diagnostics.getSummary().stripTrailing());
+        }
+    }
+
+    private static String getAttributeName(RdfParser.Attribute attribute) {
         var attributeName = attribute.name.getLocalPart();
         if (attributeName.contains(".")) {
             attributeName = attributeName.substring(attributeName.lastIndexOf('.') + 1);
         }
-        if (attribute.resource != null) {
-            if (!object.getAttributeNames().contains(attributeName)) {
-                LOG.error(String.format("Unknown attribute %s with resource %s", attribute.name.getLocalPart(),
-                        attribute.resource));
-            } else if (!object.isEnumAttribute(attributeName)) {
-                // Set only rdfid as attribute - link to object later
-                object.setAttribute(attributeName, attribute.resource);
-            } else {
-                // Set enum attributes
-                object.setAttribute(attributeName, attribute.resource);
+        return attributeName;
+    }
+
+    /**
+     * Create the objects buffered by the deferred type resolution.
+     *
+     * Each object is created with its most specific type, then the buffered
+     * attributes are set in the order they were read.
+     */
+    private void createPendingObjects() {
+        for (var entry : pendingObjects.entrySet()) {
+            String rdfid = entry.getKey();
+            PendingObject pending = entry.getValue();
+            BaseClass object = createNewObject(pending.className, rdfid);
+            for (int idx = 0; idx < pending.size; idx += 3) {
+                setAttribute(object, pending.attributes[idx], pending.attributes[idx + 1],
+                        pending.attributes[idx + 2]);
             }
-        } else {
-            // Set primitive attributes (including datatype_attributes)
-            object.setAttribute(attributeName, attribute.value);
+            model.put(rdfid, object);
+        }
+        pendingObjects.clear();
+    }
+
+    /**
+     * Remove the objects which were read with a superclass of an included type of
+     * the projection, but did not get an included type.
+     */
+    private void removeObjectsOutsideProjection() {
+        if (projection != null && projection.hasTypeRestriction()) {
+            model.values().removeIf(object -> !projection.includesType(object.getCimType()));
         }
     }
 
-    private void setAttributeLinks() {
+    private int getObjectCount() {
+        return model.size() + pendingObjects.size();
+    }
+
+    /**
+     * Set the class and list attributes of all objects read by the last call of
+     * read or readFromStrings as links to the objects with the rdfids read from
+     * the input.
+     *
+     * This is done automatically by read and readFromStrings if linking is
+     * enabled.
+     */
+    public void setAttributeLinks() {
         // Set class or list attributes as links to objects
         for (String rdfid : model.keySet()) {
             BaseClass cimObj = model.get(rdfid);
@@ -172,31 +619,11 @@ public class RdfReader {
                 if (!cimObj.isPrimitiveAttribute(attrName) && !cimObj.isEnumAttribute(attrName)) {
                     Object attr = cimObj.getAttribute(attrName);
                     if (attr instanceof String) {
-                        BaseClass attrObj = model.get((String) attr);
-                        if (attrObj != null) {
-                            try {
-                                cimObj.setAttribute(attrName, attrObj);
-                            } catch (IllegalArgumentException ex) {
-                                LOG.error(String.format("Cannot set attribute %s with attribute object: %s", attrName,
-                                        attrObj), ex);
-                            }
-                        } else {
-                            LOG.warn(String.format("Cannot find object with rdf:ID: %s", attr));
-                        }
+                        linkAttribute(cimObj, attrName, (String) attr);
                     } else if (attr instanceof Set<?>) {
                         for (var attrItem : ((Set<?>) attr)) {
                             if (attrItem instanceof String) {
-                                BaseClass attrObj = model.get((String) attrItem);
-                                if (attrObj != null) {
-                                    try {
-                                        cimObj.setAttribute(attrName, attrObj);
-                                    } catch (IllegalArgumentException ex) {
-                                        LOG.error(String.format("Cannot set attribute %s with attribute object: %s",
-                                                attrName, attrObj), ex);
-                                    }
-                                } else {
-                                    LOG.warn(String.format("Cannot find object with rdf:ID: %s", attrItem));
-                                }
+                                linkAttribute(cimObj, attrName, (String) attrItem);
                             }
                         }
                     }
@@ -205,8 +632,98 @@ public class RdfReader {
         }
     }
 
+    /**
+     * Set a class or list attribute as link to the object with an rdfid.
+     *
+     * Objects of the base model are linked without setting their inverse
+     * attribute, so the base model is not modified.
+     */
+    private void linkAttribute(BaseClass cimObj, String attrName, String targetRdfid) {
+        BaseClass attrObj = model.get(targetRdfid);
+        boolean shared = false;
+        if (attrObj == null && baseModel != null) {
+            attrObj = baseModel.get(targetRdfid);
+            shared = attrObj != null;
+        }
+        if (attrObj != null) {
+            try {
+                if (shared) {
+                    cimObj.setAttributeWithoutInverse(attrName, attrObj);
+                } else {
+                    cimObj.setAttribute(attrName, attrObj);
+                }
+            } catch (IllegalArgumentException ex) {
+                diagnostics.record(ReadDiagnostics.Category.INVALID_REFERENCE, cimObj.getCimType(), attrName,
+                        cimObj.getRdfid());
+                LOG.debug("Cannot set attribute %s with attribute object: %s", attrName, attrObj);
+            }
+        } else {
+            recordUnresolvedReference(cimObj, attrName, targetRdfid);
+        }
+    }
+
+    /**
+     * Record a reference which cannot be resolved - unless a projection is used,
+     * then the referenced object is expected to be outside the projection.
+     */
+    private void recordUnresolvedReference(BaseClass cimObj, String attrName, String rdfid) {
+        if (projection == null) {
+            diagnostics.record(ReadDiagnostics.Category.UNRESOLVED_REFERENCE, cimObj.getCimType(), attrName, rdfid);
+        }
+        LOG.debug("Cannot find object with rdf:ID: %s", rdfid);
+    }
+
+    /**
+     * Get the used memory after a garbage collection - only for log messages,
+     * because the garbage collection is expensive.
+     */
     private long getUsedMemory() {
         Runtime.getRuntime().gc();
         return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
     }
+
+    /**
+     * Object buffered by the deferred type resolution.
+     *
+     * The attributes are stored as triples of attribute name, resource and value
+     * in one array.
+     */
+    private static final class PendingObject {
+        private String className;
+        private Class<? extends BaseClass> cimClass;
+        private String[] attributes = new String[12];
+        private int size = 0;
+
+        PendingObject(String className) {
+            this.className = className;
+            this.cimClass = CimClassMap.getCimClass(className);
+        }
+
+        /**
+         * Keep the most specific of the known and the new type.
+         */
+        void resolveType(String newClassName, String rdfid) {
+            if (!className.equals(newClassName)) {
+                var newClass = CimClassMap.getCimClass(newClassName);
+                if (cimClass.isAssignableFrom(newClass)) {
+                    LOG.debug("Resolved type of object with rdf:ID: %s from type: %s to type: %s",
+                            rdfid, className, newClassName);
+                    className = newClassName;
+                    cimClass = newClass;
+                } else if (!newClass.isAssignableFrom(cimClass)) {
+                    LOG.debug("Found %s (instead of %s) with rdf:ID: %s", className, newClassName,
+                            rdfid);
+                }
+            }
+        }
+
+        void addAttribute(String name, String resource, String value) {
+            if (size + 3 > attributes.length) {
+                attributes = Arrays.copyOf(attributes, attributes.length * 2);
+            }
+            attributes[size++] = name;
+            attributes[size++] = resource;
+            attributes[size++] = resource == null ? value : null;
+        }
+    }
 }
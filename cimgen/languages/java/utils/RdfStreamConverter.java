@@ -0,0 +1,249 @@
+package cim4j.utils;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.CimClassMap;
+import cim4j.CimConstants;
+import cim4j.Logging;
+
+/**
+ * Streaming conversion of RDF files to RDF files separated by profiles with
+ * bounded memory.
+ *
+ * Each parsed element is converted to a temporary CIM object, which is written
+ * at once to the files of the profiles of its attributes and then dropped.
+ * Only the profiles of the attributes per CIM type and one open XML writer per
+ * profile are kept, so the memory does not depend on the size of the input.
+ *
+ * Unlike reading the whole model with RdfReader and writing it with RdfWriter,
+ * the objects are neither merged nor linked: an object found in several inputs
+ * (e.g. in EQ and SSH) is written as several elements, only an element with
+ * rdf:ID in the input gets the rdf:ID in the main profile of its type.
+ * References are written as read, without checking the referenced objects.
+ * All known namespaces are declared in each file.
+ *
+ * A converter is not thread-safe.
+ */
+public final class RdfStreamConverter {
+
+    private static final Logging LOG = Logging.getLogger(RdfStreamConverter.class);
+
+    // Reader used to set the attributes of the temporary objects and to collect the diagnostics
+    private final RdfReader reader = new RdfReader();
+    private final Map<String, TypeProfiles> typeProfiles = new HashMap<>();
+    private final Map<CGMESProfile, ProfileOutput> outputs = new EnumMap<>(CGMESProfile.class);
+    private Map<String, CGMESProfile> classProfileMap = Map.of();
+    private String pathStem;
+    private String modelIdStem;
+    private long objectCount;
+
+    /**
+     * Set the main profiles of CIM types which differ from the recommended
+     * profile (see RdfWriter.getClassProfileMap).
+     *
+     * @param classProfileMap Mapping of CIM type to profile
+     */
+    public void setClassProfileMap(Map<String, CGMESProfile> classProfileMap) {
+        this.classProfileMap = Map.copyOf(classProfileMap);
+        typeProfiles.clear();
+    }
+
+    /**
+     * Convert RDF files to RDF files separated by profiles.
+     *
+     * @param pathList    List of files to read
+     * @param pathStem    Stem of the output files, resulting files:
+     *                    <pathStem>_<profileName>.xml
+     * @param modelIdStem Stem of the model IDs, resulting IDs:
+     *                    <modelIdStem>_<profileName>
+     * @return            Written files: Mapping of profile to file
+     */
+    public Map<CGMESProfile, String> convert(List<String> pathList, String pathStem, String modelIdStem) {
+        this.pathStem = pathStem;
+        this.modelIdStem = modelIdStem;
+        reader.getDiagnostics().clear();
+        outputs.clear();
+        objectCount = 0;
+        try {
+            for (String path : pathList) {
+                long count = objectCount;
+                try (var stream = new FileInputStream(path)) {
+                    RdfParser.parse(stream, this::convertElement);
+                } catch (IOException ex) {
+                    String txt = "Error while reading rdf file: " + path;
+                    LOG.error(txt, ex);
+                    throw new RuntimeException(txt, ex);
+                } catch (RuntimeException ex) {
+                    // Errors of the parsing and of the conversion are already logged by RdfParser.parse
+                    throw new RuntimeException("Error while reading rdf file: " + path, ex);
+                }
+                LOG.info("Converted %d CIM objects from %s", objectCount - count, path);
+            }
+
+            Map<CGMESProfile, String> profileToFileMap = new LinkedHashMap<>();
+            for (var entry : outputs.entrySet()) {
+                var output = entry.getValue();
+                try {
+                    output.finish();
+                } catch (Exception ex) {
+                    String txt = "Failed to write rdf file: " + output.path;
+                    LOG.error(txt, ex);
+                    throw new RuntimeException(txt, ex);
+                }
+                LOG.info("Written %d CIM object entries to %s", output.count, output.path);
+                profileToFileMap.put(entry.getKey(), output.path);
+            }
+            var diagnostics = reader.getDiagnostics();
+            if (diagnostics.getTotalCount() > 0) {
+                LOG.warn(() -> "Found data quality issues:" + System.lineSeparator()
+                        + diagnostics.getSummary().stripTrailing());
+            }
+            return profileToFileMap;
+        } finally {
+            for (var output : outputs.values()) {
+                output.close();
+            }
+        }
+    }
+
+    /**
+     * Get the data quality issues found by the last conversion, e.g. unknown
+     * classes or malformed values (but no unresolved references).
+     *
+     * @return Diagnostics with the counted issues
+     */
+    public ReadDiagnostics getDiagnostics() {
+        return reader.getDiagnostics();
+    }
+
+    private void convertElement(RdfParser.Element element) {
+        var className = element.name.getLocalPart();
+        if (element.id == null) {
+            reader.getDiagnostics().record(ReadDiagnostics.Category.MISSING_RDFID, className, null, null);
+            LOG.debug("Possible CIM class: %s (rdf:ID missing)", className);
+            return;
+        }
+        if (!CimClassMap.isCimClass(className)) {
+            reader.getDiagnostics().record(ReadDiagnostics.Category.UNKNOWN_CLASS, className, null, element.id);
+            LOG.debug("Unknown CIM class: %s (rdf:ID: %s)", className, element.id);
+            return;
+        }
+        BaseClass object = CimClassMap.createCimObject(className, element.id);
+        reader.setAttributes(object, element);
+
+        var type = typeProfiles.computeIfAbsent(className, k -> new TypeProfiles(object, classProfileMap.get(k)));
+        var profiles = EnumSet.noneOf(CGMESProfile.class);
+        boolean mainEntryOfObject = !element.about;
+        if (mainEntryOfObject) {
+            profiles.add(type.classProfile);
+        }
+        for (int idx = 0; idx < type.attrNames.length; ++idx) {
+            if (type.attrProfiles[idx] != null && object.getAttribute(type.attrNames[idx]) != null) {
+                profiles.add(type.attrProfiles[idx]);
+            }
+        }
+        try {
+            for (var profile : profiles) {
+                var output = getOutput(profile);
+                RdfWriter.writeObject(output.writer, element.id, object, profile, type.classProfile,
+                        mainEntryOfObject && profile == type.classProfile);
+                ++output.count;
+            }
+        } catch (XMLStreamException ex) {
+            // Logged by RdfParser.parse
+            throw new RuntimeException("Error while writing RDF/XML data of " + element.id, ex);
+        }
+        ++objectCount;
+    }
+
+    private ProfileOutput getOutput(CGMESProfile profile) throws XMLStreamException {
+        var output = outputs.get(profile);
+        if (output == null) {
+            String profileName = profile.getLongName();
+            String path = pathStem + "_" + profileName + ".xml";
+            try {
+                var fileWriter = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8));
+                output = new ProfileOutput(path, fileWriter);
+                outputs.put(profile, output);
+            } catch (Exception ex) {
+                // Logged by RdfParser.parse
+                throw new RuntimeException("Failed to write rdf file: " + path, ex);
+            }
+            output.writer = RdfWriter.startDocument(output.fileWriter, new HashMap<>(CimConstants.NAMESPACES_MAP),
+                    profile, modelIdStem + "_" + profileName);
+        }
+        return output;
+    }
+
+    /**
+     * Main profile and attribute profiles of a CIM type.
+     */
+    private static final class TypeProfiles {
+        private final CGMESProfile classProfile;
+        private final String[] attrNames;
+        private final CGMESProfile[] attrProfiles;
+
+        TypeProfiles(BaseClass prototype, CGMESProfile classProfile) {
+            this.classProfile = classProfile != null ? classProfile : RdfWriter.getClassProfile(prototype);
+            var names = prototype.getAttributeNames();
+            attrNames = names.toArray(new String[0]);
+            attrProfiles = new CGMESProfile[attrNames.length];
+            for (int idx = 0; idx < attrNames.length; ++idx) {
+                if (prototype.isUsedAttribute(attrNames[idx])) {
+                    attrProfiles[idx] = RdfWriter.getAttributeProfile(prototype, attrNames[idx], this.classProfile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Output file of a profile.
+     */
+    private static final class ProfileOutput {
+        private final String path;
+        private final Writer fileWriter;
+        private XMLStreamWriter writer;
+        private long count = 0;
+        private boolean closed = false;
+
+        ProfileOutput(String path, Writer fileWriter) {
+            this.path = path;
+            this.fileWriter = fileWriter;
+        }
+
+        void finish() throws Exception {
+            if (writer != null) {
+                RdfWriter.endDocument(writer);
+            }
+            closed = true;
+            fileWriter.close();
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    fileWriter.close();
+                } catch (Exception ex) {
+                    LOG.warn("Cannot close rdf file: %s", path);
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package cim4j.utils;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
-import java.io.StringWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -14,12 +19,17 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import cim4j.BaseClass;
 import cim4j.CGMESProfile;
 import cim4j.CimConstants;
+import cim4j.CimEnum;
 import cim4j.Logging;
 
 /**
@@ -29,8 +39,26 @@ public class RdfWriter {
 
     private static final Logging LOG = Logging.getLogger(RdfWriter.class);
 
+    /**
+     * Compression of the files written by write(pathStem, modelIdStem, classProfileMap).
+     */
+    public enum Compression {
+        /** Plain RDF files: <pathStem>_<profileName>.xml */
+        NONE,
+        /** Gzip files: <pathStem>_<profileName>.xml.gz */
+        GZIP,
+        /** Zip archives with one entry each: <pathStem>_<profileName>.zip */
+        ZIP
+    }
+
     private final Map<String, BaseClass> cimData = new LinkedHashMap<>();
 
+    private Compression compression = Compression.NONE;
+
+    private int compressionThreads = Runtime.getRuntime().availableProcessors();
+
+    private boolean nioOutput = false;
+
     /**
      * Add cim data as map of rdfid to cim object.
      *
@@ -40,6 +68,16 @@ public class RdfWriter {
         cimData.putAll(newCimData);
     }
 
+    /**
+     * Add the objects of an overlay (the new and the copied objects), but not the
+     * shared objects of the base model.
+     *
+     * @param overlay The overlay model
+     */
+    public void addOverlayData(OverlayModel overlay) {
+        cimData.putAll(overlay.getOverlayObjects());
+    }
+
     /**
      * Get cim data.
      *
@@ -56,6 +94,51 @@ public class RdfWriter {
         cimData.clear();
     }
 
+    /**
+     * Set the compression of the files written by write(pathStem, modelIdStem,
+     * classProfileMap).
+     *
+     * @param compression The compression (default: none)
+     */
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Set the number of threads which compress the data in parallel blocks.
+     *
+     * @param threads Number of threads (default: number of processors)
+     */
+    public void setCompressionThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid number of compression threads: " + threads);
+        }
+        this.compressionThreads = threads;
+    }
+
+    /**
+     * Enable or disable the NIO output of uncompressed files written by
+     * write(pathStem, modelIdStem, classProfileMap).
+     *
+     * The NIO output encodes the RDF/XML directly to UTF-8 in direct byte
+     * buffers which are written to the file by a separate I/O thread (see
+     * RdfByteSerializer), instead of using an XMLStreamWriter.
+     * The written bytes are the same.
+     *
+     * @param enabled NIO output enabled?
+     */
+    public void setNioOutput(boolean enabled) {
+        this.nioOutput = enabled;
+    }
+
+    public boolean isNioOutput() {
+        return nioOutput;
+    }
+
     /**
      * Write the CIM data to a RDF file.
      *
@@ -74,6 +157,9 @@ public class RdfWriter {
      * on classProfileMap. But some objects to more than one file if some attribute
      * profiles are not the same as the class profile.
      *
+     * The files are compressed depending on the compression (see
+     * setCompression), the file names get the extension of the compression.
+     *
      * @param pathStem        Stem of the output files, resulting files:
      *                        <pathStem>_<profileName>.xml
      * @param modelIdStem     Stem of the model IDs, resulting IDs:
@@ -85,28 +171,93 @@ public class RdfWriter {
     public Map<CGMESProfile, String> write(String pathStem, String modelIdStem,
             Map<String, CGMESProfile> classProfileMap) {
         Map<CGMESProfile, String> profileToFileMap = new LinkedHashMap<>();
-
-        for (CGMESProfile profile : CGMESProfile.values()) {
-            String profileName = profile.getLongName();
-            String modelId = modelIdStem + "_" + profileName;
-            String path = pathStem + "_" + profileName + ".xml";
-
-            var stringWriter = new StringWriter();
-            if (write(stringWriter, profile, modelId, classProfileMap)) {
-
-                try (var writer = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8))) {
-                    writer.write(stringWriter.toString());
-                } catch (Exception ex) {
-                    String txt = "Failed to write rdf file";
+        ExecutorService executor = compression != Compression.NONE ? createCompressionExecutor() : null;
+        try {
+            for (CGMESProfile profile : CGMESProfile.values()) {
+                String profileName = profile.getLongName();
+                String modelId = modelIdStem + "_" + profileName;
+                String path = pathStem + "_" + profileName + ".xml";
+
+                if (nioOutput && compression == Compression.NONE) {
+                    if (writeNio(path, profile, modelId, classProfileMap)) {
+                        profileToFileMap.put(profile, path);
+                    }
+                    continue;
+                }
+                String entryName = Path.of(path).getFileName().toString();
+                if (compression == Compression.GZIP) {
+                    path += ".gz";
+                } else if (compression == Compression.ZIP) {
+                    path = pathStem + "_" + profileName + ".zip";
+                }
+                boolean written;
+                try (var writer = openFile(path, entryName, executor)) {
+                    written = write(writer, profile, modelId, classProfileMap);
+                } catch (IOException ex) {
+                    String txt = "Failed to write rdf file: " + path;
                     LOG.error(txt, ex);
                     throw new RuntimeException(txt, ex);
                 }
-                profileToFileMap.put(profile, path);
+                if (written) {
+                    profileToFileMap.put(profile, path);
+                } else {
+                    deleteEmptyFile(path);
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
             }
         }
         return profileToFileMap;
     }
 
+    /**
+     * Write the CIM data to one zip archive with one entry per profile.
+     *
+     * Each CIM object will be written to its corresponding profile entry like
+     * by write(pathStem, modelIdStem, classProfileMap). The entries are
+     * compressed in parallel blocks.
+     *
+     * @param zipPath         Path of the zip archive
+     * @param entryStem       Stem of the entry names, resulting names:
+     *                        <entryStem>_<profileName>.xml
+     * @param modelIdStem     Stem of the model IDs, resulting IDs:
+     *                        <modelIdStem>_<profileName>
+     * @param classProfileMap Mapping of CIM type to profile
+     *
+     * @return Written entries: Mapping of profile to entry name
+     */
+    public Map<CGMESProfile, String> writeZip(String zipPath, String entryStem, String modelIdStem,
+            Map<String, CGMESProfile> classProfileMap) {
+        Map<CGMESProfile, String> profileToEntryMap = new LinkedHashMap<>();
+        ExecutorService executor = createCompressionExecutor();
+        try (var zip = new ParallelZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipPath)), executor,
+                compressionThreads)) {
+            var zipWriter = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+            for (CGMESProfile profile : CGMESProfile.values()) {
+                String profileName = profile.getLongName();
+                String modelId = modelIdStem + "_" + profileName;
+                String entryName = entryStem + "_" + profileName + ".xml";
+
+                // An entry cannot be removed again, so empty profiles are skipped before writing
+                if (countObjects(profile, classProfileMap) != 0) {
+                    zip.putNextEntry(entryName);
+                    write(zipWriter, profile, modelId, classProfileMap);
+                    zipWriter.flush();
+                    profileToEntryMap.put(profile, entryName);
+                }
+            }
+        } catch (IOException ex) {
+            String txt = "Failed to write zip file: " + zipPath;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        return profileToEntryMap;
+    }
+
     /**
      * Write the CIM data to a stream (e.g. a file stream).
      *
@@ -159,146 +310,292 @@ public class RdfWriter {
      */
     public boolean write(Writer streamWriter, CGMESProfile profile, String modelId,
             Map<String, CGMESProfile> classProfileMap) {
-        final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
-        final String MD = CimConstants.NAMESPACES_MAP.get("md");
+        try {
+            var writer = startDocument(streamWriter, getUsedNamespaces(), profile, modelId);
+            int count = writeObjects(profile, classProfileMap, (rdfid, cimObj, classProfile, mainEntryOfObject) ->
+                    writeObject(writer, rdfid, cimObj, profile, classProfile, mainEntryOfObject));
+            endDocument(writer);
+
+            LOG.info("Written %d of %d CIM objects to RDF", count, cimData.size());
+            return count != 0;
+        } catch (Exception ex) {
+            String txt = "Error while writing RDF/XML data";
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+    }
 
+    /**
+     * Write the CIM data corresponding to one profile to a RDF file by the byte
+     * serializer (see setNioOutput). An empty file is deleted.
+     *
+     * @return Success: at least one object is written to the file
+     */
+    private boolean writeNio(String path, CGMESProfile profile, String modelId,
+            Map<String, CGMESProfile> classProfileMap) {
+        int count;
+        try (var serializer = new RdfByteSerializer(path)) {
+            serializer.startDocument(getUsedNamespaces(), profile, modelId);
+            count = writeObjects(profile, classProfileMap, (rdfid, cimObj, classProfile, mainEntryOfObject) ->
+                    serializer.writeObject(rdfid, cimObj, profile, classProfile, mainEntryOfObject));
+            serializer.endDocument();
+        } catch (Exception ex) {
+            String txt = "Failed to write rdf file: " + path;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        }
+        LOG.info("Written %d of %d CIM objects to RDF", count, cimData.size());
+        if (count == 0) {
+            deleteEmptyFile(path);
+        }
+        return count != 0;
+    }
+
+    private static void deleteEmptyFile(String path) {
         try {
-            var factory = XMLOutputFactory.newInstance();
-            var writer = factory.createXMLStreamWriter(streamWriter);
+            Files.deleteIfExists(Path.of(path));
+        } catch (IOException ex) {
+            LOG.warn("Cannot delete empty rdf file: %s", path);
+        }
+    }
 
-            writer.writeStartDocument("utf-8", "1.0");
-            writer.writeCharacters("\n");
+    /**
+     * Select the CIM objects (and the entries of the objects) to write for a
+     * profile and pass them to the output.
+     *
+     * @return Number of written objects
+     */
+    private int writeObjects(CGMESProfile profile, Map<String, CGMESProfile> classProfileMap, ObjectOutput output)
+            throws Exception {
+        int count = 0;
+        for (String rdfid : cimData.keySet()) {
+            BaseClass cimObj = cimData.get(rdfid);
+            if (profile == null || isClassMatchingProfile(cimObj, profile)) {
+                String cimType = cimObj.getCimType();
+                var classProfile = profile != null ? classProfileMap.get(cimType) : null;
+                boolean mainEntryOfObject = Objects.equals(classProfile, profile);
+
+                var attrNames = cimObj.getAttributeNames();
+                boolean noAttrFound = true;
+                for (String attrName : attrNames) {
+                    if (cimObj.isUsedAttribute(attrName) && cimObj.getAttribute(attrName) != null
+                            && (profile == null
+                                    || getAttributeProfile(cimObj, attrName, classProfile) == profile)) {
+                        noAttrFound = false;
+                        break;
+                    }
+                }
+                if (!mainEntryOfObject && noAttrFound) {
+                    continue;
+                }
 
-            var usedNamespaces = getUsedNamespaces();
-            if (profile != null) {
-                usedNamespaces.put("md", MD);
+                output.writeObject(rdfid, cimObj, classProfile, mainEntryOfObject);
+                ++count;
             }
-            var nsList = new ArrayList<>(usedNamespaces.keySet());
-            Collections.sort(nsList);
+        }
+        return count;
+    }
 
-            for (var ns : nsList) {
-                writer.setPrefix(ns, usedNamespaces.get(ns));
-            }
+    /**
+     * Count the CIM objects which would be written for a profile.
+     *
+     * @return Number of objects
+     */
+    private int countObjects(CGMESProfile profile, Map<String, CGMESProfile> classProfileMap) {
+        try {
+            return writeObjects(profile, classProfileMap, (rdfid, cimObj, classProfile, mainEntryOfObject) -> {
+            });
+        } catch (Exception ex) {
+            // Not thrown by the empty output
+            throw new IllegalStateException(ex);
+        }
+    }
 
-            writer.writeStartElement(RDF, "RDF");
+    /**
+     * Output of the selected CIM objects.
+     */
+    private interface ObjectOutput {
+        void writeObject(String rdfid, BaseClass cimObj, CGMESProfile classProfile, boolean mainEntryOfObject)
+                throws Exception;
+    }
 
-            for (var ns : nsList) {
-                writer.writeNamespace(ns, usedNamespaces.get(ns));
-            }
+    /**
+     * Write the start of an RDF document: the namespaces and (if a profile is
+     * specified) the FullModel header.
+     *
+     * @param streamWriter   Writer to an output stream
+     * @param usedNamespaces Mapping of namespace key to URL of the namespaces to
+     *                       declare (md is added for a profile)
+     * @param profile        The profile of the document (or null)
+     * @param modelId        The model ID written to the header
+     * @return               The XML writer for the objects of the document
+     */
+    static XMLStreamWriter startDocument(Writer streamWriter, Map<String, String> usedNamespaces,
+            CGMESProfile profile, String modelId) throws XMLStreamException {
+        final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
+        final String MD = CimConstants.NAMESPACES_MAP.get("md");
 
-            if (profile != null) {
-                writer.writeCharacters("\n  ");
-                writer.writeStartElement(MD, "FullModel");
-                writer.writeAttribute(RDF, "about", "#" + modelId);
-                for (var uri : profile.getUris()) {
-                    writer.writeCharacters("\n    ");
-                    writer.writeStartElement(MD, "Model.profile");
-                    writer.writeCharacters(uri);
-                    writer.writeEndElement();
-                }
-                writer.writeCharacters("\n  ");
+        var factory = XMLOutputFactory.newInstance();
+        var writer = factory.createXMLStreamWriter(streamWriter);
+
+        writer.writeStartDocument("utf-8", "1.0");
+        writer.writeCharacters("\n");
+
+        if (profile != null) {
+            usedNamespaces.put("md", MD);
+        }
+        var nsList = new ArrayList<>(usedNamespaces.keySet());
+        Collections.sort(nsList);
+
+        for (var ns : nsList) {
+            writer.setPrefix(ns, usedNamespaces.get(ns));
+        }
+
+        writer.writeStartElement(RDF, "RDF");
+
+        for (var ns : nsList) {
+            writer.writeNamespace(ns, usedNamespaces.get(ns));
+        }
+
+        if (profile != null) {
+            writer.writeCharacters("\n  ");
+            writer.writeStartElement(MD, "FullModel");
+            writer.writeAttribute(RDF, "about", "#" + modelId);
+            for (var uri : profile.getUris()) {
+                writer.writeCharacters("\n    ");
+                writer.writeStartElement(MD, "Model.profile");
+                writer.writeCharacters(uri);
                 writer.writeEndElement();
             }
+            writer.writeCharacters("\n  ");
+            writer.writeEndElement();
+        }
+        return writer;
+    }
 
-            int count = 0;
-            for (String rdfid : cimData.keySet()) {
-                BaseClass cimObj = cimData.get(rdfid);
-                if (profile == null || isClassMatchingProfile(cimObj, profile)) {
-                    String cimType = cimObj.getCimType();
-                    var classProfile = profile != null ? classProfileMap.get(cimType) : null;
-                    boolean mainEntryOfObject = Objects.equals(classProfile, profile);
-
-                    var attrNames = cimObj.getAttributeNames();
-                    boolean noAttrFound = true;
-                    for (String attrName : attrNames) {
-                        if (cimObj.isUsedAttribute(attrName) && cimObj.getAttribute(attrName) != null
-                                && (profile == null
-                                        || getAttributeProfile(cimObj, attrName, classProfile) == profile)) {
-                            noAttrFound = false;
-                            break;
-                        }
-                    }
-                    if (!mainEntryOfObject && noAttrFound) {
-                        continue;
-                    }
+    /**
+     * Write the end of an RDF document and close the XML writer (but not the
+     * underlying stream).
+     *
+     * @param writer The XML writer of the document
+     */
+    static void endDocument(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeCharacters("\n");
+        writer.writeEndDocument();
+        writer.writeCharacters("\n");
+        writer.close();
+    }
 
-                    writer.writeCharacters("\n  ");
-                    writer.writeStartElement(cimObj.getClassNamespaceUrl(), cimType);
-                    if (mainEntryOfObject) {
-                        writer.writeAttribute(RDF, "ID", rdfid);
-                    } else {
-                        writer.writeAttribute(RDF, "about", "#" + rdfid);
-                    }
+    /**
+     * Write a CIM object with the used attributes of a profile.
+     *
+     * @param writer            The XML writer of the document
+     * @param rdfid             The RDF ID of the CIM object
+     * @param cimObj            The CIM object
+     * @param profile           Only attributes of this profile are written (if
+     *                          specified)
+     * @param classProfile      Main profile of the CIM type (null without profile)
+     * @param mainEntryOfObject Write the object with rdf:ID (else with rdf:about)?
+     */
+    static void writeObject(XMLStreamWriter writer, String rdfid, BaseClass cimObj, CGMESProfile profile,
+            CGMESProfile classProfile, boolean mainEntryOfObject) throws XMLStreamException {
+        final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
 
-                    for (String attrName : attrNames) {
-                        if (cimObj.isUsedAttribute(attrName) && (profile == null
-                                || getAttributeProfile(cimObj, attrName, classProfile) == profile)) {
-                            Object attr = cimObj.getAttribute(attrName);
-                            if (attr != null) {
-                                var namespaceUrl = cimObj.getAttributeNamespaceUrl(attrName);
-                                String attrFullName = cimObj.getAttributeFullName(attrName);
-                                if (cimObj.isPrimitiveAttribute(attrName)) {
-                                    writer.writeCharacters("\n    ");
-                                    writer.writeStartElement(namespaceUrl, attrFullName);
-                                    writer.writeCharacters(attr.toString());
-                                    writer.writeEndElement();
-                                } else if (cimObj.isEnumAttribute(attrName)) {
-                                    String resource = attr.toString();
-                                    if (!resource.contains("#")) {
-                                        resource = "#" + resource;
-                                    } else if (resource.indexOf("#") != 0) {
-                                        String[] parts = resource.split("#");
-                                        resource = namespaceUrl + parts[1];
-                                    }
-                                    writer.writeCharacters("\n    ");
-                                    writer.writeEmptyElement(namespaceUrl, attrFullName);
-                                    writer.writeAttribute(RDF, "resource", resource);
-                                } else if (attr instanceof BaseClass) {
-                                    String resource = "#" + ((BaseClass) attr).getRdfid();
-                                    writer.writeCharacters("\n    ");
-                                    writer.writeEmptyElement(namespaceUrl, attrFullName);
-                                    writer.writeAttribute(RDF, "resource", resource);
-                                } else if (attr instanceof Set<?>) {
-                                    var resources = new TreeSet<String>(); // automatically sorted
-                                    for (var attrItem : ((Set<?>) attr)) {
-                                        if (attrItem instanceof BaseClass) {
-                                            resources.add(((BaseClass) attrItem).getRdfid());
-                                        } else {
-                                            resources.add((String) attrItem);
-                                        }
-                                    }
-                                    for (String resource : resources) {
-                                        writer.writeCharacters("\n    ");
-                                        writer.writeEmptyElement(namespaceUrl, attrFullName);
-                                        writer.writeAttribute(RDF, "resource", "#" + resource);
-                                    }
-                                } else if (attr instanceof String) {
-                                    writer.writeCharacters("\n    ");
-                                    writer.writeEmptyElement(namespaceUrl, attrFullName);
-                                    writer.writeAttribute(RDF, "resource", "#" + (String) attr);
-                                }
-                            }
-                        }
-                    }
-                    writer.writeCharacters("\n  ");
-                    writer.writeEndElement();
-                    ++count;
+        writer.writeCharacters("\n  ");
+        writer.writeStartElement(cimObj.getClassNamespaceUrl(), cimObj.getCimType());
+        if (mainEntryOfObject) {
+            writer.writeAttribute(RDF, "ID", rdfid);
+        } else {
+            writer.writeAttribute(RDF, "about", "#" + rdfid);
+        }
+
+        for (String attrName : cimObj.getAttributeNames()) {
+            if (cimObj.isUsedAttribute(attrName) && (profile == null
+                    || getAttributeProfile(cimObj, attrName, classProfile) == profile)) {
+                Object attr = cimObj.getAttribute(attrName);
+                if (attr != null) {
+                    writeAttribute(writer, "\n    ", cimObj, attrName, attr);
                 }
             }
-            writer.writeCharacters("\n");
-            writer.writeEndDocument();
-            writer.writeCharacters("\n");
-            writer.close();
+        }
+        writer.writeCharacters("\n  ");
+        writer.writeEndElement();
+    }
 
-            LOG.info(String.format("Written %d of %d CIM objects to RDF", count, cimData.size()));
-            return count != 0;
-        } catch (Exception ex) {
-            String txt = "Error while writing RDF/XML data";
-            LOG.error(txt, ex);
-            throw new RuntimeException(txt, ex);
+    /**
+     * Write the value of an attribute of a CIM object (one element per value).
+     *
+     * @param writer   The XML writer
+     * @param indent   The text before each element (line break and indentation)
+     * @param cimObj   The CIM object
+     * @param attrName The attribute name
+     * @param attr     The attribute value (not null)
+     */
+    static void writeAttribute(XMLStreamWriter writer, String indent, BaseClass cimObj, String attrName, Object attr)
+            throws XMLStreamException {
+        final String RDF = CimConstants.NAMESPACES_MAP.get("rdf");
+
+        var namespaceUrl = cimObj.getAttributeNamespaceUrl(attrName);
+        String attrFullName = cimObj.getAttributeFullName(attrName);
+        if (cimObj.isPrimitiveAttribute(attrName)) {
+            writer.writeCharacters(indent);
+            writer.writeStartElement(namespaceUrl, attrFullName);
+            writer.writeCharacters(attr.toString());
+            writer.writeEndElement();
+        } else if (cimObj.isEnumAttribute(attrName)) {
+            String resource = getEnumResource(namespaceUrl, attr);
+            writer.writeCharacters(indent);
+            writer.writeEmptyElement(namespaceUrl, attrFullName);
+            writer.writeAttribute(RDF, "resource", resource);
+        } else if (attr instanceof BaseClass) {
+            String resource = "#" + ((BaseClass) attr).getRdfid();
+            writer.writeCharacters(indent);
+            writer.writeEmptyElement(namespaceUrl, attrFullName);
+            writer.writeAttribute(RDF, "resource", resource);
+        } else if (attr instanceof Set<?>) {
+            var resources = new TreeSet<String>(); // automatically sorted
+            for (var attrItem : ((Set<?>) attr)) {
+                if (attrItem instanceof BaseClass) {
+                    resources.add(((BaseClass) attrItem).getRdfid());
+                } else {
+                    resources.add((String) attrItem);
+                }
+            }
+            for (String resource : resources) {
+                writer.writeCharacters(indent);
+                writer.writeEmptyElement(namespaceUrl, attrFullName);
+                writer.writeAttribute(RDF, "resource", "#" + resource);
+            }
+        } else if (attr instanceof String) {
+            writer.writeCharacters(indent);
+            writer.writeEmptyElement(namespaceUrl, attrFullName);
+            writer.writeAttribute(RDF, "resource", "#" + (String) attr);
         }
     }
 
+    /**
+     * Get the resource of an enum attribute value.
+     *
+     * Unknown values which are kept as string are written like they are read,
+     * only the namespace is replaced by the namespace of the attribute.
+     *
+     * @param namespaceUrl The namespace URL of the attribute
+     * @param attr         The attribute value: enum constant or string (not null)
+     * @return             The resource
+     */
+    static String getEnumResource(String namespaceUrl, Object attr) {
+        if (attr instanceof CimEnum) {
+            return namespaceUrl + ((CimEnum) attr).getResourceName();
+        }
+        String resource = attr.toString();
+        if (!resource.contains("#")) {
+            return "#" + resource;
+        } else if (resource.indexOf("#") != 0) {
+            return namespaceUrl + resource.substring(resource.indexOf("#") + 1);
+        }
+        return resource;
+    }
+
     /**
      * Check if this profile is a possible profile for this CIM object.
      *
@@ -403,6 +700,35 @@ public class RdfWriter {
         return null;
     }
 
+    /**
+     * Open a file for writing with the compression of this writer.
+     */
+    private Writer openFile(String path, String entryName, ExecutorService executor) throws IOException {
+        switch (compression) {
+            case GZIP: {
+                var stream = new ParallelDeflateOutputStream(new BufferedOutputStream(new FileOutputStream(path)),
+                        executor, compressionThreads, true);
+                return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            }
+            case ZIP: {
+                var zip = new ParallelZipOutputStream(new BufferedOutputStream(new FileOutputStream(path)), executor,
+                        compressionThreads);
+                zip.putNextEntry(entryName);
+                return new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+            }
+            default:
+                return new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8));
+        }
+    }
+
+    private ExecutorService createCompressionExecutor() {
+        return Executors.newFixedThreadPool(compressionThreads, runnable -> {
+            var thread = new Thread(runnable, "cim4j-deflate");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     private Map<String, String> getUsedNamespaces() {
         Set<String> urls = new HashSet<>();
         urls.add(CimConstants.NAMESPACES_MAP.get("rdf"));
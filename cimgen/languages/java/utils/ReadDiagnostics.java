@@ -0,0 +1,215 @@
+package cim4j.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collector of data quality issues found while reading CIM data.
+ *
+ * Instead of logging one line per issue, the issues are counted by category,
+ * CIM type and attribute. For each category a bounded number of examples (e.g.
+ * the rdfids of the affected objects) is kept. Recording an issue only updates
+ * a counter, so even hundreds of thousands of issues cost next to nothing.
+ *
+ * A collector is not thread-safe.
+ */
+public final class ReadDiagnostics {
+
+    /**
+     * Category of an issue.
+     */
+    public enum Category {
+        /** Element with a class name which is not a known CIM class. */
+        UNKNOWN_CLASS,
+        /** Element without rdf:ID or rdf:about. */
+        MISSING_RDFID,
+        /** Attribute which is not known for the CIM class. */
+        UNKNOWN_ATTRIBUTE,
+        /**
+         * Value of a Double, Integer or enum attribute which cannot be decoded
+         * (unknown enum values are kept as string).
+         */
+        MALFORMED_VALUE,
+        /** Link to an rdfid which cannot be found. */
+        UNRESOLVED_REFERENCE,
+        /** Link to an object of a type which is not allowed for the attribute. */
+        INVALID_REFERENCE
+    }
+
+    /**
+     * Default maximum number of examples per category.
+     */
+    public static final int DEFAULT_MAX_EXAMPLES = 10;
+
+    private static final String NO_ATTRIBUTE = "";
+
+    private final int maxExamples;
+    private final Map<Category, Map<String, Map<String, long[]>>> counts = new EnumMap<>(Category.class);
+    private final Map<Category, List<String>> examples = new EnumMap<>(Category.class);
+    private final long[] categoryCounts = new long[Category.values().length];
+
+    /**
+     * Create a collector with the default maximum number of examples per category.
+     */
+    public ReadDiagnostics() {
+        this(DEFAULT_MAX_EXAMPLES);
+    }
+
+    /**
+     * Create a collector.
+     *
+     * @param maxExamples Maximum number of examples per category
+     */
+    public ReadDiagnostics(int maxExamples) {
+        this.maxExamples = maxExamples;
+    }
+
+    /**
+     * Record an issue.
+     *
+     * @param category  The category of the issue
+     * @param cimType   The CIM type (or class name) of the affected object
+     * @param attribute The attribute name (or null if the issue is not related
+     *                  to an attribute)
+     * @param example   An example to keep, e.g. the rdfid of the affected object
+     *                  (only kept if the maximum number of examples of the
+     *                  category is not reached)
+     */
+    public void record(Category category, String cimType, String attribute, String example) {
+        ++categoryCounts[category.ordinal()];
+        var attrCounts = counts.computeIfAbsent(category, k -> new HashMap<>()).computeIfAbsent(cimType,
+                k -> new HashMap<>());
+        long[] counter = attrCounts.get(attribute != null ? attribute : NO_ATTRIBUTE);
+        if (counter == null) {
+            counter = new long[1];
+            attrCounts.put(attribute != null ? attribute : NO_ATTRIBUTE, counter);
+        }
+        ++counter[0];
+        if (example != null) {
+            var list = examples.computeIfAbsent(category, k -> new ArrayList<>());
+            if (list.size() < maxExamples) {
+                list.add(example);
+            }
+        }
+    }
+
+    /**
+     * Remove all recorded issues.
+     */
+    public void clear() {
+        counts.clear();
+        examples.clear();
+        for (int idx = 0; idx < categoryCounts.length; ++idx) {
+            categoryCounts[idx] = 0;
+        }
+    }
+
+    /**
+     * Get the total number of issues of all categories.
+     *
+     * @return Number of issues
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (long count : categoryCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of issues of a category.
+     *
+     * @param category The category
+     * @return         Number of issues
+     */
+    public long getCount(Category category) {
+        return categoryCounts[category.ordinal()];
+    }
+
+    /**
+     * Get the number of issues of a category per CIM type and attribute.
+     *
+     * The keys are "<cim_type>.<attribute_name>" or "<cim_type>" for issues
+     * without attribute. The map is sorted by descending number of issues.
+     *
+     * @param category The category
+     * @return         Map of CIM type and attribute to number of issues
+     */
+    public Map<String, Long> getCounts(Category category) {
+        var list = new ArrayList<Map.Entry<String, Long>>();
+        for (var typeEntry : counts.getOrDefault(category, Map.of()).entrySet()) {
+            for (var attrEntry : typeEntry.getValue().entrySet()) {
+                String key = attrEntry.getKey().equals(NO_ATTRIBUTE) ? typeEntry.getKey()
+                        : typeEntry.getKey() + "." + attrEntry.getKey();
+                list.add(Map.entry(key, attrEntry.getValue()[0]));
+            }
+        }
+        list.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (var entry : list) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Get the kept examples of a category.
+     *
+     * @param category The category
+     * @return         List of examples
+     */
+    public List<String> getExamples(Category category) {
+        return Collections.unmodifiableList(examples.getOrDefault(category, List.of()));
+    }
+
+    /**
+     * Get a summary of all recorded issues as multi-line text.
+     *
+     * For each category with issues the total number, the numbers of the (at
+     * most maxEntries) most frequent CIM types and attributes, and the examples
+     * are listed.
+     *
+     * @param maxEntries Maximum number of CIM type/attribute entries per category
+     * @return           The summary (empty if no issues are recorded)
+     */
+    public String getSummary(int maxEntries) {
+        var text = new StringBuilder();
+        for (Category category : Category.values()) {
+            long total = getCount(category);
+            if (total == 0) {
+                continue;
+            }
+            text.append(String.format("%s: %d%n", category, total));
+            int count = 0;
+            var entryCounts = getCounts(category);
+            for (var entry : entryCounts.entrySet()) {
+                if (count++ == maxEntries) {
+                    text.append(String.format("    ... (%d more)%n", entryCounts.size() - maxEntries));
+                    break;
+                }
+                text.append(String.format("    %s: %d%n", entry.getKey(), entry.getValue()));
+            }
+            var categoryExamples = getExamples(category);
+            if (!categoryExamples.isEmpty()) {
+                text.append(String.format("    e.g. %s%n", String.join(", ", categoryExamples)));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Get a summary of all recorded issues as multi-line text with at most 20
+     * CIM type/attribute entries per category.
+     *
+     * @return The summary (empty if no issues are recorded)
+     */
+    public String getSummary() {
+        return getSummary(20);
+    }
+}
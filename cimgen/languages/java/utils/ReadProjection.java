@@ -0,0 +1,208 @@
+package cim4j.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.CimClassMap;
+
+/**
+ * Projection of the CIM data to read: the CIM types, attributes and profiles
+ * which are needed, e.g. only the SvVoltage and SvPowerFlow objects or only the
+ * impedances of the ACLineSegments.
+ *
+ * The projection is applied by the RDF parser: elements and attributes which
+ * are not part of the projection are skipped by the XML tokenizer without
+ * creating objects or strings for them.
+ *
+ * Each kind of restriction is optional, a projection without restrictions
+ * includes all data:
+ * - Types: only objects of the included types (optionally including their
+ *   subclasses) are read. Elements of a superclass of an included type are
+ *   read too, because the object can get a more specific type from another
+ *   input, objects which do not get an included type are removed after reading.
+ * - Attributes: only the included attributes are read. An attribute can be
+ *   given by its name (e.g. "name") or its full name (e.g. "IdentifiedObject.name").
+ * - Profiles: only objects and attributes of the included profiles are read.
+ *
+ * The decisions are cached per class and attribute name. A projection can be
+ * shared by readers running in parallel, but must not be modified while it is
+ * in use.
+ */
+public final class ReadProjection implements RdfParser.ElementFilter {
+
+    private final Map<Class<? extends BaseClass>, Boolean> types = new LinkedHashMap<>();
+    private final Set<String> attributeNames = new HashSet<>();
+    private final Set<CGMESProfile> profiles = EnumSet.noneOf(CGMESProfile.class);
+    private final Map<String, ClassProjection> classProjections = new ConcurrentHashMap<>();
+
+    /**
+     * Include a CIM type and all its subclasses.
+     *
+     * @param className The class name of the CIM type
+     * @return          This projection
+     */
+    public ReadProjection includeType(String className) {
+        return includeType(className, true);
+    }
+
+    /**
+     * Include a CIM type.
+     *
+     * @param className      The class name of the CIM type
+     * @param withSubclasses Include the subclasses of the type too?
+     * @return               This projection
+     */
+    public ReadProjection includeType(String className, boolean withSubclasses) {
+        var cimClass = CimClassMap.getCimClass(className);
+        if (cimClass == null) {
+            throw new IllegalArgumentException("Unknown CIM class: " + className);
+        }
+        types.merge(cimClass, withSubclasses, Boolean::logicalOr);
+        classProjections.clear();
+        return this;
+    }
+
+    /**
+     * Include attributes.
+     *
+     * @param attrNames The names or full names of the attributes
+     * @return          This projection
+     */
+    public ReadProjection includeAttributes(String... attrNames) {
+        attributeNames.addAll(Arrays.asList(attrNames));
+        classProjections.clear();
+        return this;
+    }
+
+    /**
+     * Include profiles.
+     *
+     * @param profilesToInclude The profiles
+     * @return                  This projection
+     */
+    public ReadProjection includeProfiles(CGMESProfile... profilesToInclude) {
+        profiles.addAll(Arrays.asList(profilesToInclude));
+        classProjections.clear();
+        return this;
+    }
+
+    /**
+     * Is the final type of an object part of the projection?
+     *
+     * @param className The class name of the CIM type
+     * @return          Is the type included?
+     */
+    public boolean includesType(String className) {
+        if (types.isEmpty()) {
+            return true;
+        }
+        var cimClass = CimClassMap.getCimClass(className);
+        if (cimClass == null) {
+            return false;
+        }
+        for (var entry : types.entrySet()) {
+            if (entry.getKey() == cimClass || (entry.getValue() && entry.getKey().isAssignableFrom(cimClass))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Has this projection a restriction of the types?
+     *
+     * @return Are only some types included?
+     */
+    public boolean hasTypeRestriction() {
+        return !types.isEmpty();
+    }
+
+    @Override
+    public boolean acceptElement(String className) {
+        return getClassProjection(className).accepted;
+    }
+
+    @Override
+    public boolean acceptAttribute(String className, String attributeName) {
+        return getClassProjection(className).acceptAttribute(attributeName);
+    }
+
+    private ClassProjection getClassProjection(String className) {
+        var classProjection = classProjections.get(className);
+        if (classProjection == null) {
+            classProjection = new ClassProjection(className);
+            classProjections.put(className, classProjection);
+        }
+        return classProjection;
+    }
+
+    private boolean acceptClass(BaseClass prototype) {
+        if (prototype == null) {
+            // Unknown classes are only read (and reported) without type and profile restrictions
+            return types.isEmpty() && profiles.isEmpty();
+        }
+        if (!types.isEmpty()) {
+            var cimClass = prototype.getClass();
+            boolean related = false;
+            for (var entry : types.entrySet()) {
+                var type = entry.getKey();
+                if (cimClass.isAssignableFrom(type) || (entry.getValue() && type.isAssignableFrom(cimClass))) {
+                    related = true;
+                    break;
+                }
+            }
+            if (!related) {
+                return false;
+            }
+        }
+        return profiles.isEmpty() || !Collections.disjoint(prototype.getPossibleProfilesIncludingAttributes(),
+                profiles);
+    }
+
+    private boolean acceptAttribute(BaseClass prototype, String localName) {
+        var attrName = localName.substring(localName.lastIndexOf('.') + 1);
+        boolean known = prototype != null && prototype.getAttributeNames().contains(attrName);
+        if (!attributeNames.isEmpty() && !attributeNames.contains(attrName) && !attributeNames.contains(localName)
+                && !(known && attributeNames.contains(prototype.getAttributeFullName(attrName)))) {
+            return false;
+        }
+        return profiles.isEmpty()
+                || (known && !Collections.disjoint(prototype.getPossibleAttributeProfiles(attrName), profiles));
+    }
+
+    /**
+     * Cached decisions for one class name.
+     */
+    private final class ClassProjection {
+        private final BaseClass prototype;
+        private final boolean accepted;
+        private final boolean allAttributes;
+        private final Map<String, Boolean> attributes = new ConcurrentHashMap<>();
+
+        ClassProjection(String className) {
+            prototype = CimClassMap.isCimClass(className) ? CimClassMap.createCimObject(className, "") : null;
+            accepted = acceptClass(prototype);
+            allAttributes = attributeNames.isEmpty() && profiles.isEmpty();
+        }
+
+        boolean acceptAttribute(String localName) {
+            if (allAttributes) {
+                return true;
+            }
+            Boolean accept = attributes.get(localName);
+            if (accept == null) {
+                accept = ReadProjection.this.acceptAttribute(prototype, localName);
+                attributes.put(localName, accept);
+            }
+            return accept;
+        }
+    }
+}
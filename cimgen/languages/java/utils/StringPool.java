@@ -0,0 +1,210 @@
+package cim4j.utils;
+
+/**
+ * Bounded pool for the deduplication of strings while reading CIM data.
+ *
+ * CIM data repeats the same text values very often (e.g. names, descriptions,
+ * unit multipliers or rdfids of referenced objects). The pool returns the same
+ * string instance for equal values, so that the repeated values are kept in
+ * memory only once. Values can be looked up directly from a character buffer,
+ * a string is only created if the value is not yet in the pool.
+ *
+ * The pool is a hash table with a fixed number of entries. If all entries of
+ * a probe sequence are used by other values, the first entry is replaced, so
+ * the memory of the pool is bounded and rarely used values are dropped. Values
+ * longer than the maximum length are not pooled.
+ *
+ * A pool is not thread-safe.
+ */
+public final class StringPool {
+
+    /**
+     * Default number of entries.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Default maximum length of the pooled values.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 256;
+
+    // Number of entries searched for a value before an entry is replaced
+    private static final int MAX_PROBES = 4;
+
+    private final String[] entries;
+    private final int[] hashes;
+    private final int mask;
+    private final int maxLength;
+    private int size = 0;
+    private long lookupCount = 0;
+    private long hitCount = 0;
+
+    /**
+     * Create a pool with the default capacity and maximum length.
+     */
+    public StringPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Create a pool.
+     *
+     * @param capacity  Number of entries (rounded up to a power of two)
+     * @param maxLength Maximum length of the pooled values
+     */
+    public StringPool(int capacity, int maxLength) {
+        int tableSize = Integer.highestOneBit(Math.max(MAX_PROBES, capacity - 1)) << 1;
+        entries = new String[tableSize];
+        hashes = new int[tableSize];
+        mask = tableSize - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Get the pooled string of a value in a character buffer.
+     *
+     * @param buffer Character buffer
+     * @param start  Start of the value in the buffer
+     * @param length Length of the value
+     * @return       The pooled string (or a new string if the value is too long)
+     */
+    public String intern(char[] buffer, int start, int length) {
+        if (length > maxLength) {
+            return new String(buffer, start, length);
+        }
+        ++lookupCount;
+        int hash = 0;
+        for (int idx = start; idx < start + length; ++idx) {
+            hash = 31 * hash + buffer[idx];
+        }
+        int first = mix(hash) & mask;
+        int pos = first;
+        for (int probe = 0; probe < MAX_PROBES; ++probe) {
+            String entry = entries[pos];
+            if (entry == null) {
+                return insert(pos, hash, new String(buffer, start, length));
+            }
+            if (hashes[pos] == hash && contentEquals(entry, buffer, start, length)) {
+                ++hitCount;
+                return entry;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return replace(first, hash, new String(buffer, start, length));
+    }
+
+    /**
+     * Get the pooled string of a value.
+     *
+     * @param value The value
+     * @return      The pooled string (or the value itself if it is not yet in the
+     *              pool or too long)
+     */
+    public String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        ++lookupCount;
+        int hash = value.hashCode();
+        int first = mix(hash) & mask;
+        int pos = first;
+        for (int probe = 0; probe < MAX_PROBES; ++probe) {
+            String entry = entries[pos];
+            if (entry == null) {
+                return insert(pos, hash, value);
+            }
+            if (hashes[pos] == hash && entry.equals(value)) {
+                ++hitCount;
+                return entry;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return replace(first, hash, value);
+    }
+
+    /**
+     * Remove all values from the pool and reset the statistics.
+     */
+    public void clear() {
+        for (int idx = 0; idx < entries.length; ++idx) {
+            entries[idx] = null;
+        }
+        size = 0;
+        lookupCount = 0;
+        hitCount = 0;
+    }
+
+    /**
+     * Get the number of entries of the pool.
+     *
+     * @return Maximum number of pooled values
+     */
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    /**
+     * Get the number of pooled values.
+     *
+     * @return Number of values
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of lookups (without the values which are too long).
+     *
+     * @return Number of lookups
+     */
+    public long getLookupCount() {
+        return lookupCount;
+    }
+
+    /**
+     * Get the number of lookups which found the value in the pool.
+     *
+     * @return Number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the rate of lookups which found the value in the pool.
+     *
+     * @return Hit rate between 0.0 and 1.0
+     */
+    public double getHitRate() {
+        return lookupCount == 0 ? 0.0 : (double) hitCount / lookupCount;
+    }
+
+    private String insert(int pos, int hash, String value) {
+        entries[pos] = value;
+        hashes[pos] = hash;
+        ++size;
+        return value;
+    }
+
+    private String replace(int pos, int hash, String value) {
+        entries[pos] = value;
+        hashes[pos] = hash;
+        return value;
+    }
+
+    private static boolean contentEquals(String entry, char[] buffer, int start, int length) {
+        if (entry.length() != length) {
+            return false;
+        }
+        for (int idx = 0; idx < length; ++idx) {
+            if (entry.charAt(idx) != buffer[start + idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
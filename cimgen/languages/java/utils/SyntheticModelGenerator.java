@@ -0,0 +1,452 @@
+package cim4j.utils;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import javax.xml.stream.XMLStreamWriter;
+
+import cim4j.BaseClass;
+import cim4j.CGMESProfile;
+import cim4j.CimClassMap;
+import cim4j.CimConstants;
+import cim4j.Logging;
+
+/**
+ * Generator of synthetic CGMES grid models, e.g. for load tests of the reader
+ * and writer.
+ *
+ * A model consists of a chain of substations. Each substation has a high and a
+ * medium voltage level with one busbar (connectivity node) each, a two winding
+ * power transformer between the busbars and one to four energy consumers at the
+ * medium voltage busbar. The high voltage busbar of each substation is
+ * connected by an AC line to the high voltage busbar of the previous
+ * substation. All equipment has terminals, the model contains the bus-branch
+ * topology (topological nodes) and steady state hypothesis data (terminal
+ * status, loads) as well as state variables (voltages and power flows).
+ *
+ * The generated models are fully linked and only depend on the seed and the
+ * requested size. Only attributes which exist in all supported CGMES versions
+ * are used.
+ *
+ * Large models are written while they are generated: the objects are written
+ * to the profile files in batches of limited size and then dropped, so that
+ * the memory consumption does not depend on the total model size. The written
+ * model is the same connected model as the one returned by generate.
+ */
+public final class SyntheticModelGenerator {
+
+    private static final Logging LOG = Logging.getLogger(SyntheticModelGenerator.class);
+
+    /**
+     * Default seed of the generator.
+     */
+    public static final long DEFAULT_SEED = 42;
+
+    /**
+     * Default maximum number of CIM objects kept in memory before they are
+     * written to the profile files.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1_000_000;
+
+    private static final double HIGH_VOLTAGE = 110.0;
+    private static final double MEDIUM_VOLTAGE = 20.0;
+
+    private final long seed;
+
+    // State of the current generation
+    private SplittableRandom idRandom;
+    private Map<String, BaseClass> model;
+    private BaseClass region;
+    private BaseClass highBaseVoltage;
+    private BaseClass mediumBaseVoltage;
+    private BaseClass previousHighNode;
+    private BaseClass previousHighTopoNode;
+
+    /**
+     * Create a generator with the default seed.
+     */
+    public SyntheticModelGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Create a generator.
+     *
+     * @param seed Seed of the random values and rdfids
+     */
+    public SyntheticModelGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generate a model in memory.
+     *
+     * The model contains at least objectCount objects (substations are added
+     * until the number is reached).
+     *
+     * @param objectCount Minimum number of CIM objects
+     * @return            CIM data as map of rdfid to CIM object
+     */
+    public Map<String, BaseClass> generate(long objectCount) {
+        startModel();
+        long substation = 0;
+        while (model.size() < objectCount) {
+            addSubstation(substation++);
+        }
+        LOG.info("Generated model with %d substations and %d CIM objects", substation, model.size());
+        var result = model;
+        finishModel();
+        return result;
+    }
+
+    /**
+     * Generate a model and write it to RDF files separated by profiles.
+     *
+     * The model is the same as the one returned by generate(objectCount). It is
+     * written in batches of about batchSize objects (a substation is not
+     * split) to the files <pathStem>_<profileName>.xml, so at most one batch is
+     * kept in memory. All known namespaces are declared in each file.
+     *
+     * @param pathStem    Stem of the output files (also used as stem of the
+     *                    model IDs)
+     * @param objectCount Minimum number of CIM objects
+     * @param batchSize   Maximum number of CIM objects kept in memory
+     *                    (approximately, a substation is not split)
+     * @return            Written files: Mapping of profile to file
+     */
+    public Map<CGMESProfile, String> write(String pathStem, long objectCount, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        var outputs = new EnumMap<CGMESProfile, ProfileOutput>(CGMESProfile.class);
+        var typeProfiles = new HashMap<String, TypeProfiles>();
+        startModel();
+        try {
+            long written = 0;
+            long substation = 0;
+            while (written + model.size() < objectCount) {
+                addSubstation(substation++);
+                if (model.size() >= batchSize) {
+                    written += writeBatch(pathStem, outputs, typeProfiles);
+                    LOG.info("Written %d of %d CIM objects", written, objectCount);
+                }
+            }
+            written += writeBatch(pathStem, outputs, typeProfiles);
+
+            Map<CGMESProfile, String> profileToFileMap = new LinkedHashMap<>();
+            for (var entry : outputs.entrySet()) {
+                var output = entry.getValue();
+                output.finish();
+                LOG.info("Written %d CIM object entries to %s", output.count, output.path);
+                profileToFileMap.put(entry.getKey(), output.path);
+            }
+            LOG.info("Generated model with %d substations and %d CIM objects", substation, written);
+            return profileToFileMap;
+        } catch (Exception ex) {
+            String txt = "Failed to write synthetic model: " + pathStem;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        } finally {
+            for (var output : outputs.values()) {
+                output.close();
+            }
+            finishModel();
+        }
+    }
+
+    /**
+     * Generate a model and write it to RDF files separated by profiles in
+     * batches of at most DEFAULT_BATCH_SIZE objects.
+     *
+     * @param pathStem    Stem of the output files (also used as stem of the
+     *                    model IDs)
+     * @param objectCount Minimum number of CIM objects
+     * @return            Written files: Mapping of profile to file
+     */
+    public Map<CGMESProfile, String> write(String pathStem, long objectCount) {
+        return write(pathStem, objectCount, DEFAULT_BATCH_SIZE);
+    }
+
+    private void startModel() {
+        idRandom = new SplittableRandom(seed);
+        model = new LinkedHashMap<>();
+        previousHighNode = null;
+        previousHighTopoNode = null;
+
+        var geoRegion = create("GeographicalRegion", "Region 1");
+        region = create("SubGeographicalRegion", "Subregion 1");
+        region.setAttribute("Region", geoRegion);
+
+        highBaseVoltage = create("BaseVoltage", "110 kV");
+        highBaseVoltage.setAttribute("nominalVoltage", HIGH_VOLTAGE);
+        mediumBaseVoltage = create("BaseVoltage", "20 kV");
+        mediumBaseVoltage.setAttribute("nominalVoltage", MEDIUM_VOLTAGE);
+    }
+
+    private void finishModel() {
+        model = null;
+        region = null;
+        highBaseVoltage = null;
+        mediumBaseVoltage = null;
+        previousHighNode = null;
+        previousHighTopoNode = null;
+    }
+
+    /**
+     * Write the objects generated since the last batch to the profile files
+     * (opened with the first object of a profile) and start the next batch.
+     *
+     * The objects of the next batch refer to the shared objects (region, base
+     * voltages and the last high voltage busbar) of the written batches by
+     * empty placeholders with the same rdfids. Otherwise the inverse
+     * references of the shared objects would keep all written objects in
+     * memory.
+     *
+     * @return Number of written objects
+     */
+    private int writeBatch(String pathStem, Map<CGMESProfile, ProfileOutput> outputs,
+            Map<String, TypeProfiles> typeProfiles) throws Exception {
+        for (var entry : model.entrySet()) {
+            var object = entry.getValue();
+            var type = typeProfiles.computeIfAbsent(object.getCimType(), k -> new TypeProfiles(object));
+            var profiles = EnumSet.of(type.classProfile);
+            for (int idx = 0; idx < type.attrNames.length; ++idx) {
+                if (type.attrProfiles[idx] != null && object.getAttribute(type.attrNames[idx]) != null) {
+                    profiles.add(type.attrProfiles[idx]);
+                }
+            }
+            for (var profile : profiles) {
+                var output = outputs.get(profile);
+                if (output == null) {
+                    output = new ProfileOutput(pathStem, profile);
+                    outputs.put(profile, output);
+                }
+                RdfWriter.writeObject(output.writer, entry.getKey(), object, profile, type.classProfile,
+                        profile == type.classProfile);
+                ++output.count;
+            }
+        }
+        int count = model.size();
+        model = new LinkedHashMap<>();
+        region = placeholder(region);
+        highBaseVoltage = placeholder(highBaseVoltage);
+        mediumBaseVoltage = placeholder(mediumBaseVoltage);
+        previousHighNode = placeholder(previousHighNode);
+        previousHighTopoNode = placeholder(previousHighTopoNode);
+        return count;
+    }
+
+    private static BaseClass placeholder(BaseClass cimObj) {
+        return cimObj != null ? CimClassMap.createCimObject(cimObj.getCimType(), cimObj.getRdfid()) : null;
+    }
+
+    private void addSubstation(long index) {
+        // The values of a substation only depend on the seed and the substation index
+        var random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+        String name = "S" + (index + 1);
+
+        var substation = create("Substation", name);
+        substation.setAttribute("Region", region);
+
+        // Voltage levels with busbars
+        var highLevel = createVoltageLevel(substation, name + " 110 kV", highBaseVoltage, HIGH_VOLTAGE);
+        var mediumLevel = createVoltageLevel(substation, name + " 20 kV", mediumBaseVoltage, MEDIUM_VOLTAGE);
+        var highNode = createNode(highLevel, name + " 110 kV busbar");
+        var mediumNode = createNode(mediumLevel, name + " 20 kV busbar");
+        var highTopoNode = createTopoNode(highLevel, highNode, highBaseVoltage, HIGH_VOLTAGE, random);
+        var mediumTopoNode = createTopoNode(mediumLevel, mediumNode, mediumBaseVoltage, MEDIUM_VOLTAGE, random);
+
+        // Transformer
+        var transformer = create("PowerTransformer", name + " T1");
+        transformer.setAttribute("EquipmentContainer", substation);
+        double ratedS = 20.0 + 10.0 * random.nextInt(5);
+        double load = 0.2 + 0.6 * random.nextDouble();
+        createTransformerEnd(transformer, 1, highNode, highTopoNode, highBaseVoltage, HIGH_VOLTAGE, ratedS,
+                load * ratedS);
+        createTransformerEnd(transformer, 2, mediumNode, mediumTopoNode, mediumBaseVoltage, MEDIUM_VOLTAGE, ratedS,
+                -load * ratedS);
+
+        // Loads
+        int consumerCount = 1 + random.nextInt(4);
+        for (int idx = 1; idx <= consumerCount; ++idx) {
+            var consumer = create("EnergyConsumer", name + " load " + idx);
+            consumer.setAttribute("EquipmentContainer", mediumLevel);
+            consumer.setAttribute("BaseVoltage", mediumBaseVoltage);
+            double p = round(load * ratedS / consumerCount);
+            double q = round(p * (0.1 + 0.3 * random.nextDouble()));
+            consumer.setAttribute("p", p);
+            consumer.setAttribute("q", q);
+            createTerminal(consumer, 1, mediumNode, mediumTopoNode, p, q);
+        }
+
+        // Line to the previous substation
+        if (previousHighNode != null) {
+            var line = create("Line", "L" + index + "-" + (index + 1));
+            line.setAttribute("Region", region);
+            var segment = create("ACLineSegment", "L" + index + "-" + (index + 1) + " segment");
+            segment.setAttribute("EquipmentContainer", line);
+            segment.setAttribute("BaseVoltage", highBaseVoltage);
+            double length = round(5.0 + 45.0 * random.nextDouble());
+            segment.setAttribute("length", length);
+            segment.setAttribute("r", round(0.12 * length));
+            segment.setAttribute("x", round(0.39 * length));
+            segment.setAttribute("bch", 2.9e-6 * length);
+            double p = round(10.0 * random.nextDouble());
+            createTerminal(segment, 1, previousHighNode, previousHighTopoNode, p, 0.0);
+            createTerminal(segment, 2, highNode, highTopoNode, -p, 0.0);
+        }
+        previousHighNode = highNode;
+        previousHighTopoNode = highTopoNode;
+    }
+
+    private BaseClass createVoltageLevel(BaseClass substation, String name, BaseClass baseVoltage,
+            double nominalVoltage) {
+        var voltageLevel = create("VoltageLevel", name);
+        voltageLevel.setAttribute("Substation", substation);
+        voltageLevel.setAttribute("BaseVoltage", baseVoltage);
+        voltageLevel.setAttribute("highVoltageLimit", round(nominalVoltage * 1.1));
+        voltageLevel.setAttribute("lowVoltageLimit", round(nominalVoltage * 0.9));
+        return voltageLevel;
+    }
+
+    private BaseClass createNode(BaseClass voltageLevel, String name) {
+        var node = create("ConnectivityNode", name);
+        node.setAttribute("ConnectivityNodeContainer", voltageLevel);
+        return node;
+    }
+
+    private BaseClass createTopoNode(BaseClass voltageLevel, BaseClass node, BaseClass baseVoltage,
+            double nominalVoltage, SplittableRandom random) {
+        var topoNode = create("TopologicalNode", node.getAttribute("name").toString());
+        topoNode.setAttribute("ConnectivityNodeContainer", voltageLevel);
+        topoNode.setAttribute("BaseVoltage", baseVoltage);
+        node.setAttribute("TopologicalNode", topoNode);
+
+        var voltage = create("SvVoltage", null);
+        voltage.setAttribute("TopologicalNode", topoNode);
+        voltage.setAttribute("v", round(nominalVoltage * (0.95 + 0.1 * random.nextDouble())));
+        voltage.setAttribute("angle", round(-10.0 * random.nextDouble()));
+        return topoNode;
+    }
+
+    private void createTransformerEnd(BaseClass transformer, int endNumber, BaseClass node, BaseClass topoNode,
+            BaseClass baseVoltage, double ratedU, double ratedS, double p) {
+        var terminal = createTerminal(transformer, endNumber, node, topoNode, round(p), round(0.2 * p));
+        var end = create("PowerTransformerEnd", transformer.getAttribute("name") + " end " + endNumber);
+        end.setAttribute("PowerTransformer", transformer);
+        end.setAttribute("Terminal", terminal);
+        end.setAttribute("BaseVoltage", baseVoltage);
+        end.setAttribute("endNumber", endNumber);
+        end.setAttribute("ratedU", ratedU);
+        end.setAttribute("ratedS", ratedS);
+        end.setAttribute("r", endNumber == 1 ? round(0.005 * ratedU * ratedU / ratedS) : 0.0);
+        end.setAttribute("x", endNumber == 1 ? round(0.12 * ratedU * ratedU / ratedS) : 0.0);
+        end.setAttribute("connectionKind", CimConstants.NAMESPACES_MAP.get("cim")
+                + (endNumber == 1 ? "WindingConnection.Y" : "WindingConnection.D"));
+    }
+
+    private BaseClass createTerminal(BaseClass equipment, int sequenceNumber, BaseClass node, BaseClass topoNode,
+            double p, double q) {
+        var terminal = create("Terminal", equipment.getAttribute("name") + " terminal " + sequenceNumber);
+        terminal.setAttribute("ConductingEquipment", equipment);
+        terminal.setAttribute("sequenceNumber", sequenceNumber);
+        terminal.setAttribute("ConnectivityNode", node);
+        terminal.setAttribute("TopologicalNode", topoNode);
+        terminal.setAttribute("connected", true);
+
+        var powerFlow = create("SvPowerFlow", null);
+        powerFlow.setAttribute("Terminal", terminal);
+        powerFlow.setAttribute("p", p);
+        powerFlow.setAttribute("q", q);
+        return terminal;
+    }
+
+    /**
+     * Create a CIM object with a random (but reproducible) rdfid and add it to the
+     * model.
+     *
+     * @param className The CIM class name
+     * @param name      The name of the object (or null for objects without name)
+     * @return          The new CIM object
+     */
+    private BaseClass create(String className, String name) {
+        long mostSigBits = (idRandom.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (idRandom.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        String rdfid = "_" + new UUID(mostSigBits, leastSigBits);
+        var cimObj = CimClassMap.createCimObject(className, rdfid);
+        if (name != null) {
+            cimObj.setAttribute("name", name);
+        }
+        model.put(rdfid, cimObj);
+        return cimObj;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    /**
+     * Main profile and attribute profiles of a CIM type.
+     */
+    private static final class TypeProfiles {
+        private final CGMESProfile classProfile;
+        private final String[] attrNames;
+        private final CGMESProfile[] attrProfiles;
+
+        TypeProfiles(BaseClass prototype) {
+            classProfile = RdfWriter.getClassProfile(prototype);
+            attrNames = prototype.getAttributeNames().toArray(new String[0]);
+            attrProfiles = new CGMESProfile[attrNames.length];
+            for (int idx = 0; idx < attrNames.length; ++idx) {
+                if (prototype.isUsedAttribute(attrNames[idx])) {
+                    attrProfiles[idx] = RdfWriter.getAttributeProfile(prototype, attrNames[idx], classProfile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Output file of a profile.
+     */
+    private static final class ProfileOutput {
+        private final String path;
+        private final Writer fileWriter;
+        private final XMLStreamWriter writer;
+        private long count = 0;
+        private boolean closed = false;
+
+        ProfileOutput(String pathStem, CGMESProfile profile) throws Exception {
+            String profileName = profile.getLongName();
+            path = pathStem + "_" + profileName + ".xml";
+            fileWriter = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8));
+            writer = RdfWriter.startDocument(fileWriter, new HashMap<>(CimConstants.NAMESPACES_MAP), profile,
+                    pathStem + "_" + profileName);
+        }
+
+        void finish() throws Exception {
+            RdfWriter.endDocument(writer);
+            closed = true;
+            fileWriter.close();
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    fileWriter.close();
+                } catch (Exception ex) {
+                    LOG.warn("Cannot close rdf file: %s", path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,646 @@
+package cim4j.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cim4j.BaseClass;
+import cim4j.CimEnum;
+import cim4j.Logging;
+
+/**
+ * Export of a CIM model to columnar tables for analytics: one table per CIM
+ * type with one row per object and one column per used attribute.
+ *
+ * The columns are derived from the attribute metadata of the CIM type (the
+ * attribute details of the generated classes), the column names are the full
+ * attribute names (e.g. "IdentifiedObject.name"). The first column "rdfid"
+ * contains the rdfids of the objects. Enum values are written as resource names
+ * (e.g. "WindingConnection.Y"). References of class and list attributes are
+ * written as rdfids or as dense ids: the index of an object in the iteration
+ * order of the model, -1 for references to objects which are not in the model.
+ * With dense ids the table has an additional first column "id".
+ *
+ * The tables are written in parallel, one task per CIM type. Each table is
+ * written column by column directly from the objects, numeric values are
+ * copied to primitive arrays without boxing.
+ *
+ * Binary format (file &lt;type&gt;.cimcol, big-endian like DataOutputStream):
+ *
+ * <pre>
+ * magic        8 bytes "CIMCOL01"
+ * rowCount     int
+ * columnCount  int
+ * per column:  name (string), type (byte: ColumnType.getCode)
+ * per column the data depending on the type:
+ *   DOUBLE, INTEGER, BOOLEAN: presence bitmap of (rowCount + 7) / 8 bytes (bit
+ *                 row % 8 of byte row / 8 is set for not null values), then
+ *                 rowCount values (double, int, byte 0/1, 0 for null)
+ *   STRING:       dictionary size (int), dictionary (strings), rowCount codes
+ *                 (int index in the dictionary, -1 for null)
+ *   STRING_LIST:  dictionary size (int), dictionary (strings), rowCount counts
+ *                 (int), then the codes of all rows (int)
+ *   ID:           rowCount ids (int, -1 for null or objects not in the model)
+ *   ID_LIST:      rowCount counts (int), then the ids of all rows (int)
+ * string:       length (int), UTF-8 bytes
+ * </pre>
+ *
+ * CSV format (file &lt;type&gt;.csv, UTF-8): one header line with the column
+ * names, values as in RDF/XML, empty for null, the values of list attributes
+ * separated by spaces, quoted by RFC 4180 if necessary.
+ *
+ * The model must not be modified during the export.
+ */
+public final class TableExporter {
+
+    private static final Logging LOG = Logging.getLogger(TableExporter.class);
+
+    private static final byte[] MAGIC = "CIMCOL01".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * File format of the tables.
+     */
+    public enum Format {
+        BINARY(".cimcol"), CSV(".csv");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Representation of the references to other objects.
+     */
+    public enum References {
+        RDFID, DENSE_ID
+    }
+
+    /**
+     * Type of a column.
+     */
+    public enum ColumnType {
+        DOUBLE(1), INTEGER(2), BOOLEAN(3), STRING(4), STRING_LIST(5), ID(6), ID_LIST(7);
+
+        private final byte code;
+
+        ColumnType(int code) {
+            this.code = (byte) code;
+        }
+
+        /**
+         * Get the code of the type in the binary format.
+         *
+         * @return The code
+         */
+        public byte getCode() {
+            return code;
+        }
+    }
+
+    private Format format = Format.BINARY;
+    private References references = References.RDFID;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setReferences(References references) {
+        this.references = references;
+    }
+
+    public References getReferences() {
+        return references;
+    }
+
+    /**
+     * Set the number of threads which write the tables.
+     *
+     * @param parallelism Number of threads (default: number of processors)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Export the CIM data to one table file per CIM type.
+     *
+     * @param cimData   CIM data as map of rdfid to CIM object
+     * @param directory The directory of the table files (created if missing),
+     *                  resulting files: &lt;directory&gt;/&lt;type&gt;.cimcol
+     *                  or &lt;directory&gt;/&lt;type&gt;.csv
+     * @return          Written files: Mapping of CIM type to file (sorted by type)
+     */
+    public Map<String, String> export(Map<String, BaseClass> cimData, String directory) {
+        Map<String, List<BaseClass>> typeObjects = new TreeMap<>();
+        for (var cimObj : cimData.values()) {
+            typeObjects.computeIfAbsent(cimObj.getCimType(), k -> new ArrayList<>()).add(cimObj);
+        }
+        Map<String, Integer> denseIds = null;
+        if (references == References.DENSE_ID) {
+            denseIds = new HashMap<>(cimData.size() * 4 / 3 + 1);
+            for (String rdfid : cimData.keySet()) {
+                denseIds.put(rdfid, denseIds.size());
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            var thread = new Thread(runnable, "cim4j-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(Path.of(directory));
+            boolean binary = format == Format.BINARY;
+            var tasks = new ArrayList<Callable<String>>();
+            for (var entry : typeObjects.entrySet()) {
+                var table = new Table(entry.getValue(), denseIds);
+                String path = Path.of(directory, entry.getKey() + format.getExtension()).toString();
+                tasks.add(() -> {
+                    if (binary) {
+                        table.writeBinary(path);
+                    } else {
+                        table.writeCsv(path);
+                    }
+                    return path;
+                });
+            }
+            Map<String, String> typeFileMap = new LinkedHashMap<>();
+            var types = new ArrayList<>(typeObjects.keySet());
+            var futures = executor.invokeAll(tasks);
+            for (int idx = 0; idx < futures.size(); ++idx) {
+                typeFileMap.put(types.get(idx), getResult(futures.get(idx)));
+            }
+            LOG.info("Exported %d CIM objects to %d tables in %s", cimData.size(), typeFileMap.size(), directory);
+            return typeFileMap;
+        } catch (IOException ex) {
+            String txt = "Failed to create table directory: " + directory;
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            String txt = "Interrupted while exporting tables";
+            LOG.error(txt, ex);
+            throw new RuntimeException(txt, ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the columns of the table of a CIM type.
+     *
+     * @param prototype  An object of the CIM type
+     * @param references Representation of the references
+     * @return           Mapping of column name to column type
+     */
+    public static Map<String, ColumnType> getColumns(BaseClass prototype, References references) {
+        Map<String, ColumnType> columns = new LinkedHashMap<>();
+        for (var column : Table.createColumns(prototype, references)) {
+            columns.put(column.name, column.type);
+        }
+        return columns;
+    }
+
+    private static String getResult(Future<String> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            String txt = "Error while exporting tables";
+            LOG.error(txt, ex.getCause());
+            throw new RuntimeException(txt, ex.getCause());
+        }
+    }
+
+    /**
+     * Column of a table: an attribute, the rdfid or the dense id of the objects.
+     *
+     * Attribute columns read the values by the getter of the attribute details
+     * (resolved once per table), not by looking up the attribute name per cell.
+     */
+    private static final class Column {
+        private final String name;
+        private final BaseClass.AttributeGetter getter;
+        private final ColumnType type;
+
+        Column(String name, BaseClass.AttributeGetter getter, ColumnType type) {
+            this.name = name;
+            this.getter = getter;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Table of the objects of one CIM type.
+     */
+    private static final class Table {
+        private static final String RDFID_COLUMN = "rdfid";
+        private static final String ID_COLUMN = "id";
+
+        private final List<BaseClass> rows;
+        private final Map<String, Integer> denseIds;
+        private final List<Column> columns;
+
+        Table(List<BaseClass> rows, Map<String, Integer> denseIds) {
+            this.rows = rows;
+            this.denseIds = denseIds;
+            this.columns = createColumns(rows.get(0), denseIds != null ? References.DENSE_ID : References.RDFID);
+        }
+
+        static List<Column> createColumns(BaseClass prototype, References references) {
+            boolean dense = references == References.DENSE_ID;
+            var columns = new ArrayList<Column>();
+            if (dense) {
+                columns.add(new Column(ID_COLUMN, null, ColumnType.ID));
+            }
+            columns.add(new Column(RDFID_COLUMN, null, ColumnType.STRING));
+            for (String attrName : prototype.getAttributeNames()) {
+                if (!prototype.isUsedAttribute(attrName)) {
+                    continue;
+                }
+                ColumnType type;
+                if (prototype.isListAttribute(attrName)) {
+                    type = dense ? ColumnType.ID_LIST : ColumnType.STRING_LIST;
+                } else if (prototype.isEnumAttribute(attrName)) {
+                    type = ColumnType.STRING;
+                } else if (!prototype.isPrimitiveAttribute(attrName)) {
+                    type = dense ? ColumnType.ID : ColumnType.STRING;
+                } else {
+                    var valueType = prototype.getAttributeType(attrName);
+                    if (valueType == Double.class) {
+                        type = ColumnType.DOUBLE;
+                    } else if (valueType == Integer.class) {
+                        type = ColumnType.INTEGER;
+                    } else if (valueType == Boolean.class) {
+                        type = ColumnType.BOOLEAN;
+                    } else {
+                        type = ColumnType.STRING;
+                    }
+                }
+                columns.add(new Column(prototype.getAttributeFullName(attrName), prototype.getAttributeGetter(attrName),
+                        type));
+            }
+            return columns;
+        }
+
+        void writeBinary(String path) throws IOException {
+            try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 64 * 1024))) {
+                out.write(MAGIC);
+                out.writeInt(rows.size());
+                out.writeInt(columns.size());
+                for (var column : columns) {
+                    writeString(out, column.name);
+                    out.writeByte(column.type.getCode());
+                }
+                for (var column : columns) {
+                    switch (column.type) {
+                        case DOUBLE:
+                            writeDoubleColumn(out, column);
+                            break;
+                        case INTEGER:
+                            writeIntegerColumn(out, column);
+                            break;
+                        case BOOLEAN:
+                            writeBooleanColumn(out, column);
+                            break;
+                        case STRING:
+                            writeStringColumn(out, column);
+                            break;
+                        case STRING_LIST:
+                            writeStringListColumn(out, column);
+                            break;
+                        case ID:
+                            writeIdColumn(out, column);
+                            break;
+                        case ID_LIST:
+                            writeIdListColumn(out, column);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown column type: " + column.type);
+                    }
+                }
+            }
+        }
+
+        void writeCsv(String path) throws IOException {
+            try (var out = new BufferedWriter(new FileWriter(path, StandardCharsets.UTF_8), 64 * 1024)) {
+                for (int col = 0; col < columns.size(); ++col) {
+                    if (col > 0) {
+                        out.write(',');
+                    }
+                    writeCsvValue(out, columns.get(col).name);
+                }
+                out.write("\r\n");
+                var cell = new StringBuilder();
+                for (var cimObj : rows) {
+                    for (int col = 0; col < columns.size(); ++col) {
+                        if (col > 0) {
+                            out.write(',');
+                        }
+                        cell.setLength(0);
+                        appendCsvCell(cell, cimObj, columns.get(col));
+                        writeCsvValue(out, cell);
+                    }
+                    out.write("\r\n");
+                }
+            }
+        }
+
+        private void appendCsvCell(StringBuilder cell, BaseClass cimObj, Column column) {
+            if (column.getter == null) {
+                if (column.type == ColumnType.ID) {
+                    cell.append(denseId(cimObj.getRdfid()));
+                } else {
+                    cell.append(cimObj.getRdfid());
+                }
+                return;
+            }
+            Object value = column.getter.get(cimObj);
+            if (value == null) {
+                return;
+            }
+            switch (column.type) {
+                case STRING_LIST:
+                case ID_LIST:
+                    boolean first = true;
+                    for (Object element : (Collection<?>) value) {
+                        if (!first) {
+                            cell.append(' ');
+                        }
+                        first = false;
+                        appendReference(cell, element, column.type == ColumnType.ID_LIST);
+                    }
+                    break;
+                case ID:
+                    appendReference(cell, value, true);
+                    break;
+                default:
+                    if (value instanceof BaseClass) {
+                        cell.append(((BaseClass) value).getRdfid());
+                    } else if (value instanceof CimEnum) {
+                        cell.append(((CimEnum) value).getResourceName());
+                    } else {
+                        cell.append(value);
+                    }
+                    break;
+            }
+        }
+
+        private void appendReference(StringBuilder cell, Object reference, boolean dense) {
+            String rdfid = referenceId(reference);
+            if (dense) {
+                cell.append(denseId(rdfid));
+            } else {
+                cell.append(rdfid);
+            }
+        }
+
+        private void writeDoubleColumn(DataOutputStream out, Column column) throws IOException {
+            var present = new byte[(rows.size() + 7) / 8];
+            var values = new double[rows.size()];
+            for (int row = 0; row < rows.size(); ++row) {
+                var value = (Double) column.getter.get(rows.get(row));
+                if (value != null) {
+                    present[row >>> 3] |= (byte) (1 << (row & 7));
+                    values[row] = value.doubleValue();
+                }
+            }
+            out.write(present);
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        }
+
+        private void writeIntegerColumn(DataOutputStream out, Column column) throws IOException {
+            var present = new byte[(rows.size() + 7) / 8];
+            var values = new int[rows.size()];
+            for (int row = 0; row < rows.size(); ++row) {
+                var value = (Integer) column.getter.get(rows.get(row));
+                if (value != null) {
+                    present[row >>> 3] |= (byte) (1 << (row & 7));
+                    values[row] = value.intValue();
+                }
+            }
+            out.write(present);
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+
+        private void writeBooleanColumn(DataOutputStream out, Column column) throws IOException {
+            var present = new byte[(rows.size() + 7) / 8];
+            var values = new byte[rows.size()];
+            for (int row = 0; row < rows.size(); ++row) {
+                var value = (Boolean) column.getter.get(rows.get(row));
+                if (value != null) {
+                    present[row >>> 3] |= (byte) (1 << (row & 7));
+                    values[row] = value.booleanValue() ? (byte) 1 : 0;
+                }
+            }
+            out.write(present);
+            out.write(values);
+        }
+
+        private void writeStringColumn(DataOutputStream out, Column column) throws IOException {
+            var dictionary = new Dictionary();
+            var codes = new int[rows.size()];
+            for (int row = 0; row < rows.size(); ++row) {
+                var cimObj = rows.get(row);
+                codes[row] = dictionary.code(column.getter == null ? cimObj.getRdfid()
+                        : stringValue(column.getter.get(cimObj)));
+            }
+            dictionary.write(out);
+            for (int code : codes) {
+                out.writeInt(code);
+            }
+        }
+
+        private void writeStringListColumn(DataOutputStream out, Column column) throws IOException {
+            var dictionary = new Dictionary();
+            var counts = new int[rows.size()];
+            var codes = new IntList();
+            for (int row = 0; row < rows.size(); ++row) {
+                var value = (Collection<?>) column.getter.get(rows.get(row));
+                if (value != null) {
+                    counts[row] = value.size();
+                    for (Object element : value) {
+                        codes.add(dictionary.code(referenceId(element)));
+                    }
+                }
+            }
+            dictionary.write(out);
+            for (int count : counts) {
+                out.writeInt(count);
+            }
+            codes.write(out);
+        }
+
+        private void writeIdColumn(DataOutputStream out, Column column) throws IOException {
+            for (var cimObj : rows) {
+                if (column.getter == null) {
+                    out.writeInt(denseId(cimObj.getRdfid()));
+                } else {
+                    Object value = column.getter.get(cimObj);
+                    out.writeInt(value != null ? denseId(referenceId(value)) : -1);
+                }
+            }
+        }
+
+        private void writeIdListColumn(DataOutputStream out, Column column) throws IOException {
+            var counts = new int[rows.size()];
+            var ids = new IntList();
+            for (int row = 0; row < rows.size(); ++row) {
+                var value = (Collection<?>) column.getter.get(rows.get(row));
+                if (value != null) {
+                    counts[row] = value.size();
+                    for (Object element : value) {
+                        ids.add(denseId(referenceId(element)));
+                    }
+                }
+            }
+            for (int count : counts) {
+                out.writeInt(count);
+            }
+            ids.write(out);
+        }
+
+        private int denseId(String rdfid) {
+            var id = denseIds.get(rdfid);
+            return id != null ? id : -1;
+        }
+
+        private static String stringValue(Object value) {
+            if (value == null) {
+                return null;
+            } else if (value instanceof BaseClass) {
+                return ((BaseClass) value).getRdfid();
+            } else if (value instanceof CimEnum) {
+                return ((CimEnum) value).getResourceName();
+            }
+            return value.toString();
+        }
+
+        /**
+         * Get the rdfid of a reference: a linked object or the rdfid of an
+         * unresolved link.
+         */
+        private static String referenceId(Object reference) {
+            if (reference instanceof BaseClass) {
+                return ((BaseClass) reference).getRdfid();
+            }
+            return (String) reference;
+        }
+
+        private static void writeCsvValue(Writer out, CharSequence value) throws IOException {
+            boolean quote = false;
+            for (int idx = 0; idx < value.length(); ++idx) {
+                char ch = value.charAt(idx);
+                if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                    quote = true;
+                    break;
+                }
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.write('"');
+            for (int idx = 0; idx < value.length(); ++idx) {
+                char ch = value.charAt(idx);
+                if (ch == '"') {
+                    out.write('"');
+                }
+                out.write(ch);
+            }
+            out.write('"');
+        }
+    }
+
+    /**
+     * Dictionary of the distinct strings of a column.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            var code = codes.get(value);
+            if (code == null) {
+                code = strings.size();
+                codes.put(value, code);
+                strings.add(value);
+            }
+            return code;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(strings.size());
+            for (String value : strings) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    /**
+     * Growable array of int values.
+     */
+    private static final class IntList {
+        private int[] values = new int[64];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            for (int idx = 0; idx < size; ++idx) {
+                out.writeInt(values[idx]);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}